@@ -1,8 +1,12 @@
 package com.kk.cibaria;
 
+import java.util.List;
+
+import com.kk.cibaria.security.CurrentUserArgumentResolver;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -23,6 +27,11 @@ public class CibariaApplication {
 						.allowedMethods("*")
 						.allowedHeaders("Authorization","Content-Type", "*");
 			}
+
+			@Override
+			public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+				resolvers.add(new CurrentUserArgumentResolver());
+			}
 		};
 	}
 
@@ -3,6 +3,7 @@ package com.kk.cibaria.admin;
 import java.io.IOException;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,6 +17,7 @@ import com.kk.cibaria.dto.admin.AdminStatsDto;
 import com.kk.cibaria.dto.admin.UpdateUserDto;
 import com.kk.cibaria.recipe.Recipe;
 import com.kk.cibaria.recipe.RecipeService;
+import com.kk.cibaria.security.CurrentUser;
 @RestController
 @RequestMapping("/admin")
 @PreAuthorize("hasRole('ADMIN')")
@@ -54,26 +56,27 @@ public class AdminController {
     }
 
     @DeleteMapping("/recipes/{id}")
-    public ResponseEntity<Void> deleteRecipe(@PathVariable int id, @RequestHeader("Authorization") String token) {
-        recipeService.delete(token, id);
+    public ResponseEntity<Void> deleteRecipe(@PathVariable int id, CurrentUser currentUser) {
+        recipeService.delete(currentUser, id);
         return ResponseEntity.ok().build();
     }
 
     @PutMapping(value = "recipes/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public Recipe updateRecipe(@PathVariable int id,
                         @RequestParam("recipe") String json,
-                        @RequestHeader("Authorization") String token,
+                        CurrentUser currentUser,
                         @RequestParam(value = "images", required = false) List<MultipartFile> images,
-                        @RequestParam(value = "keepExistingImage", required = false) String keepExistingImage) throws IOException {
+                        @RequestParam(value = "keepExistingImage", required = false) String keepExistingImage,
+                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws IOException {
         
         ObjectMapper objectMapper = new ObjectMapper();
         Recipe recipe = objectMapper.readValue(json, Recipe.class);
         
         if(images != null && !images.isEmpty()) {
-            return recipeService.updateRecipeWithPhotos(id, recipe, images, token);
+            return recipeService.updateRecipeWithPhotos(id, recipe, images, currentUser, ifMatch);
         } else {
             boolean shouldKeepImages = "true".equals(keepExistingImage);
-            return recipeService.updateRecipeWithoutPhotos(id, recipe, token, shouldKeepImages);
+            return recipeService.updateRecipeWithoutPhotos(id, recipe, currentUser, shouldKeepImages, ifMatch);
         }
     }
 
@@ -4,12 +4,13 @@ import com.kk.cibaria.dto.auth.TokenResponseDto;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.kk.cibaria.exception.UserNotFoundException;
-import com.kk.cibaria.security.UserDetailService;
+import com.kk.cibaria.security.AuthenticatedUser;
 import com.kk.cibaria.security.jwt.JwtService;
 import com.kk.cibaria.dto.auth.LoginFormDto;
 import jakarta.validation.Valid;
@@ -19,22 +20,21 @@ public class LoginController {
 
   private final AuthenticationManager authenticationManager;
   private final JwtService jwtService;
-  private final UserDetailService userDetailService;
 
-  public LoginController(AuthenticationManager authenticationManager, JwtService jwtService,
-      UserDetailService userDetailService) {
+  public LoginController(AuthenticationManager authenticationManager, JwtService jwtService) {
     this.authenticationManager = authenticationManager;
     this.jwtService = jwtService;
-    this.userDetailService = userDetailService;
   }
 
   @PostMapping("/authenticate")
   public TokenResponseDto authenticate(@Valid @RequestBody LoginFormDto loginFormDto) {
     try{
-      authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginFormDto.email(),
-              loginFormDto.password()));
+      Authentication authentication = authenticationManager.authenticate(
+              new UsernamePasswordAuthenticationToken(loginFormDto.email(), loginFormDto.password()));
+      // the provider already loaded the user to check the password, mint the token from that same entity
+      AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
       TokenResponseDto token = new TokenResponseDto();
-      token.setToken(jwtService.generateToken(userDetailService.loadUserByUsername(loginFormDto.email())));
+      token.setToken(jwtService.generateToken(principal.getUser()));
       return token;
     }catch (BadCredentialsException ex) {
       throw new UserNotFoundException("Invalid credentials");
@@ -1,10 +1,13 @@
 package com.kk.cibaria.auth;
 
+import com.kk.cibaria.dto.auth.EmailAvailabilityDto;
 import com.kk.cibaria.dto.auth.RegisterDto;
 import com.kk.cibaria.dto.auth.TokenResponseDto;
 import com.kk.cibaria.user.UserService;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import jakarta.validation.Valid;
 
@@ -20,4 +23,9 @@ public class RegisterController {
     public TokenResponseDto RegisterUser(@Valid @RequestBody RegisterDto dto) {
         return userService.save(dto);
     }
+
+    @GetMapping("/register/available")
+    public EmailAvailabilityDto isEmailAvailable(@RequestParam String email) {
+        return new EmailAvailabilityDto(email, userService.isEmailAvailable(email));
+    }
 }
@@ -0,0 +1,140 @@
+package com.kk.cibaria.catalog;
+
+import java.util.List;
+
+import com.kk.cibaria.catalog.RecipeColumns.Query;
+import com.kk.cibaria.catalog.RecipeColumns.Result;
+import com.kk.cibaria.catalog.RecipeColumns.Row;
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import com.kk.cibaria.helper.RecipeSpecification;
+import com.kk.cibaria.recipe.RecipeCatalogVersion;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import com.kk.cibaria.recipe.RecipeRatedEvent;
+import com.kk.cibaria.search.IngredientIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// In-memory read model of the recipe listing (cibaria.listing.engine=catalog). It answers the page listing filters
+// with the ids of the requested page and the number of matches, the summaries of the page are then loaded by id.
+// Loaded on startup and updated after every committed recipe or rating change, like the search indexes.
+@Component
+@ConditionalOnProperty(name = "cibaria.listing.engine", havingValue = "catalog")
+public class RecipeCatalog implements ApplicationRunner, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeCatalog.class);
+
+    private static final String SELECT_ROWS = """
+            SELECT r.id, r.difficulty, r.servings, r.prepareTime, r.category, r.language, r.isPublic,
+                   r.ratingCount, r.ratingSum
+            FROM Recipe r""";
+
+    public record Page(List<Integer> ids, int total) {
+    }
+
+    private final IngredientIndex ingredientIndex;
+    private volatile RecipeColumns columns = new RecipeColumns();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public RecipeCatalog(IngredientIndex ingredientIndex) {
+        this.ingredientIndex = ingredientIndex;
+    }
+
+    // same parameters and semantics as RecipeSpecification.filterByParams
+    public Page find(List<String> category, Integer difficulty, String servings, String prepareTime, Boolean isPublic,
+                     String language, List<String> ingredients, int offset, int limit) {
+        Result result = columns.find(toQuery(category, difficulty, servings, prepareTime, isPublic, language,
+                ingredients), offset, limit);
+        return new Page(result.ids(), result.total());
+    }
+
+    public RecipeFacetsDto facets(List<String> category, Integer difficulty, String servings, String prepareTime,
+                                  Boolean isPublic, String language, List<String> ingredients) {
+        return columns.facets(toQuery(category, difficulty, servings, prepareTime, isPublic, language, ingredients));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public synchronized void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        RecipeColumns loaded = new RecipeColumns();
+        entityManager.createQuery(SELECT_ROWS + " ORDER BY r.id", Object[].class)
+                .getResultStream()
+                .forEach(row -> loaded.put(toRow(row)));
+        columns = loaded;
+        log.info("Loaded {} recipes into the catalog in {} ms", loaded.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Order(RecipeCatalogVersion.INDEXES)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.deleted()) {
+            columns.remove(event.recipeId());
+            return;
+        }
+        reload(event.recipeId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Order(RecipeCatalogVersion.INDEXES)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onRecipeRated(RecipeRatedEvent event) {
+        reload(event.recipeId());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("recipes.catalog.size", this, catalog -> catalog.columns.estimatedSizeInBytes())
+                .description("Estimated heap used by the in-memory recipe catalog")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("recipes.catalog.recipes", this, catalog -> catalog.columns.size())
+                .description("Recipes in the in-memory recipe catalog")
+                .register(registry);
+    }
+
+    private void reload(int recipeId) {
+        List<Object[]> rows = entityManager.createQuery(SELECT_ROWS + " WHERE r.id = :id", Object[].class)
+                .setParameter("id", recipeId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            columns.remove(recipeId);
+        } else {
+            columns.put(toRow(rows.get(0)));
+        }
+    }
+
+    private Query toQuery(List<String> category, Integer difficulty, String servings, String prepareTime,
+                          Boolean isPublic, String language, List<String> ingredients) {
+        return new Query(category, difficulty,
+                servings == null ? null : RecipeSpecification.parseRange(servings),
+                prepareTime == null ? null : RecipeSpecification.parseRange(prepareTime),
+                isPublic != null && isPublic,
+                language == null || language.isEmpty() ? null : language,
+                ingredients == null || ingredients.isEmpty() ? null : ingredientIndex.recipesWithAll(ingredients));
+    }
+
+    private static Row toRow(Object[] row) {
+        int ratingCount = (Integer) row[7];
+        long ratingSum = (Long) row[8];
+        return new Row((Integer) row[0], (Integer) row[1], (Integer) row[2], (Integer) row[3], (String) row[4],
+                (String) row[5], Boolean.TRUE.equals(row[6]), ratingCount == 0 ? 0f : (float) ratingSum / ratingCount);
+    }
+}
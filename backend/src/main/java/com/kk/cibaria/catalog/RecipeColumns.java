@@ -0,0 +1,311 @@
+package com.kk.cibaria.catalog;
+
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import com.kk.cibaria.helper.RecipeFacetCounter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Column store of the recipe listing fields. Row i holds the recipe ids[i], rows are kept in id order so a recipe is
+// found with binary search and matches come out in listing order. Category and language are dictionary coded, and
+// every value of public, difficulty, category and language has a bitset of its rows, so the equality filters are
+// bitwise ANDs; the servings and prepare time ranges are checked on the remaining rows. Deleted rows stay until a
+// quarter of the rows are dead, then the columns are compacted.
+class RecipeColumns {
+
+    record Row(int id, int difficulty, int servings, int prepareTime, String category, String language,
+               boolean isPublic, float avgRating) {
+    }
+
+    // null = no restriction
+    record Query(Collection<String> categories, Integer difficulty, int[] servings, int[] prepareTime,
+                 boolean publicOnly, String language, int[] recipeIds) {
+    }
+
+    record Result(List<Integer> ids, int total) {
+    }
+
+    private static final int NO_VALUE = -1;
+
+    private int size;
+    private int dead;
+    private int[] ids = new int[16];
+    private int[] difficulty = new int[16];
+    private int[] servings = new int[16];
+    private int[] prepareTime = new int[16];
+    private int[] category = new int[16];
+    private int[] language = new int[16];
+    private float[] avgRating = new float[16];
+
+    private final BitSet live = new BitSet();
+    private final BitSet publicRows = new BitSet();
+    private final Map<Integer, BitSet> byDifficulty = new HashMap<>();
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary languages = new Dictionary();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void put(Row row) {
+        lock.writeLock().lock();
+        try {
+            int index = rowOf(row.id());
+            if (index >= 0) {
+                unindex(index);
+                write(index, row);
+            } else if (size > 0 && ids[size - 1] >= row.id()) {
+                // a recipe committed after a newer one (concurrent writes), or a dead row with the same id
+                append(row);
+                compact();
+            } else {
+                append(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int index = rowOf(id);
+            if (index < 0) {
+                return;
+            }
+            unindex(index);
+            live.clear(index);
+            dead++;
+            if (dead > 64 && dead * 4 > size) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Result find(Query query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(query);
+            int total = matches.cardinality();
+            List<Integer> page = new ArrayList<>(Math.min(limit, Math.max(0, total - offset)));
+            int skipped = 0;
+            for (int i = matches.nextSetBit(0); i >= 0 && page.size() < limit; i = matches.nextSetBit(i + 1)) {
+                if (skipped++ >= offset) {
+                    page.add(ids[i]);
+                }
+            }
+            return new Result(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // counts of the matching rows per category, difficulty, language and servings / prepare time bucket, in one pass
+    RecipeFacetsDto facets(Query query) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = matches(query);
+            RecipeFacetCounter counter = new RecipeFacetCounter();
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                counter.add(categories.value(category[i]), difficulty[i], languages.value(language[i]),
+                        RecipeFacetCounter.bucketOf(servings[i], RecipeFacetCounter.SERVINGS_BUCKETS),
+                        RecipeFacetCounter.bucketOf(prepareTime[i], RecipeFacetCounter.PREPARE_TIME_BUCKETS), 1);
+            }
+            return counter.toDto();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // rows matching the query, callers hold the read lock
+    private BitSet matches(Query query) {
+        BitSet matches = (BitSet) live.clone();
+        if (query.publicOnly()) {
+            matches.and(publicRows);
+        }
+        if (query.categories() != null) {
+            BitSet any = new BitSet();
+            query.categories().forEach(value -> any.or(categories.rows(value)));
+            matches.and(any);
+        }
+        if (query.difficulty() != null) {
+            matches.and(byDifficulty.getOrDefault(query.difficulty(), new BitSet()));
+        }
+        if (query.language() != null) {
+            matches.and(languages.rows(query.language().toLowerCase(Locale.ROOT)));
+        }
+        if (query.recipeIds() != null) {
+            BitSet rows = new BitSet();
+            for (int id : query.recipeIds()) {
+                int index = rowOf(id);
+                if (index >= 0) {
+                    rows.set(index);
+                }
+            }
+            matches.and(rows);
+        }
+        if (query.servings() != null || query.prepareTime() != null) {
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (!inRange(servings[i], query.servings()) || !inRange(prepareTime[i], query.prepareTime())) {
+                    matches.clear(i);
+                }
+            }
+        }
+        return matches;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size - dead;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // rough heap usage: the seven columns, the bitsets (one bit per row and value) and the dictionaries
+    long estimatedSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 7L * (16 + 4L * ids.length);
+            bytes += bitsetBytes(live) + bitsetBytes(publicRows);
+            for (BitSet rows : byDifficulty.values()) {
+                bytes += 48 + bitsetBytes(rows);
+            }
+            return bytes + categories.estimatedSizeInBytes() + languages.estimatedSizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // index of the live row of the recipe, or -1
+    private int rowOf(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        return index >= 0 && live.get(index) ? index : -1;
+    }
+
+    private void append(Row row) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            difficulty = Arrays.copyOf(difficulty, capacity);
+            servings = Arrays.copyOf(servings, capacity);
+            prepareTime = Arrays.copyOf(prepareTime, capacity);
+            category = Arrays.copyOf(category, capacity);
+            language = Arrays.copyOf(language, capacity);
+            avgRating = Arrays.copyOf(avgRating, capacity);
+        }
+        int index = size++;
+        live.set(index);
+        write(index, row);
+    }
+
+    private void write(int index, Row row) {
+        ids[index] = row.id();
+        difficulty[index] = row.difficulty();
+        servings[index] = row.servings();
+        prepareTime[index] = row.prepareTime();
+        category[index] = row.category() == null ? NO_VALUE : categories.code(row.category());
+        language[index] = row.language() == null ? NO_VALUE : languages.code(row.language().toLowerCase(Locale.ROOT));
+        avgRating[index] = row.avgRating();
+
+        publicRows.set(index, row.isPublic());
+        byDifficulty.computeIfAbsent(row.difficulty(), value -> new BitSet()).set(index);
+        categories.set(category[index], index);
+        languages.set(language[index], index);
+    }
+
+    private void unindex(int index) {
+        publicRows.clear(index);
+        BitSet rows = byDifficulty.get(difficulty[index]);
+        if (rows != null) {
+            rows.clear(index);
+        }
+        categories.clear(category[index], index);
+        languages.clear(language[index], index);
+    }
+
+    // rewrites the live rows in id order, dropping the dead ones
+    private void compact() {
+        List<Row> rows = new ArrayList<>(size - dead);
+        for (int i = live.nextSetBit(0); i >= 0 && i < size; i = live.nextSetBit(i + 1)) {
+            rows.add(new Row(ids[i], difficulty[i], servings[i], prepareTime[i], categories.value(category[i]),
+                    languages.value(language[i]), publicRows.get(i), avgRating[i]));
+        }
+        rows.sort(Comparator.comparingInt(Row::id));
+
+        size = 0;
+        dead = 0;
+        live.clear();
+        publicRows.clear();
+        byDifficulty.clear();
+        categories.clearRows();
+        languages.clearRows();
+        rows.forEach(this::append);
+    }
+
+    private static boolean inRange(int value, int[] range) {
+        return range == null || (value >= range[0] && value <= range[1]);
+    }
+
+    private static long bitsetBytes(BitSet rows) {
+        return 32 + rows.size() / 8;
+    }
+
+    // value <-> code, and the rows of every code
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<BitSet> rows = new ArrayList<>();
+
+        int code(String value) {
+            return codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                rows.add(new BitSet());
+                return values.size() - 1;
+            });
+        }
+
+        String value(int code) {
+            return code == NO_VALUE ? null : values.get(code);
+        }
+
+        BitSet rows(String value) {
+            Integer code = codes.get(value);
+            return code == null ? new BitSet() : rows.get(code);
+        }
+
+        void set(int code, int row) {
+            if (code != NO_VALUE) {
+                rows.get(code).set(row);
+            }
+        }
+
+        void clear(int code, int row) {
+            if (code != NO_VALUE) {
+                rows.get(code).clear(row);
+            }
+        }
+
+        void clearRows() {
+            rows.forEach(BitSet::clear);
+        }
+
+        long estimatedSizeInBytes() {
+            long bytes = 0;
+            for (int code = 0; code < values.size(); code++) {
+                bytes += 48 + 40 + values.get(code).length() + bitsetBytes(rows.get(code));
+            }
+            return bytes;
+        }
+    }
+}
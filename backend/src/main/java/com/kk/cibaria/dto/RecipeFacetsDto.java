@@ -0,0 +1,17 @@
+package com.kk.cibaria.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+// Counts of the recipes matching the current listing filters, per value of each filter.
+// Servings and prepareTime keys are "from-to" ranges that can be sent back as the filter value.
+@Data
+public class RecipeFacetsDto {
+    private long total;
+    private Map<String, Long> category;
+    private Map<Integer, Long> difficulty;
+    private Map<String, Long> language;
+    private Map<String, Long> servings;
+    private Map<String, Long> prepareTime;
+}
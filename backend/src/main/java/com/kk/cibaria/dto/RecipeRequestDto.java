@@ -1,12 +1,11 @@
 package com.kk.cibaria.dto;
 
-import com.kk.cibaria.recipe.Recipe;
 import lombok.Data;
 
 import java.util.List;
 
 @Data
 public class RecipeRequestDto {
-    private List<Recipe> content;
+    private List<RecipeSummary> content;
     private int totalPages;
 }
@@ -0,0 +1,12 @@
+package com.kk.cibaria.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RecipeScrollDto {
+    private List<RecipeSummary> content;
+    private String next;
+    private boolean hasNext;
+}
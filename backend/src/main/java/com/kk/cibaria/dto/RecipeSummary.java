@@ -0,0 +1,38 @@
+package com.kk.cibaria.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// What a recipe card needs, read straight from the database without loading the Recipe entity graph
+@Data
+@NoArgsConstructor
+public class RecipeSummary {
+    private Integer id;
+    private String recipeName;
+    private String category;
+    private Integer difficulty;
+    private Integer prepareTime;
+    private Integer servings;
+    private String language;
+    private Double avgRating;
+    private String imageUrl;
+    // ingredient names, filled for the listing pages and the profile lists, whose filters offer them
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> ingredients;
+
+    public RecipeSummary(Integer id, String recipeName, String category, Integer difficulty, Integer prepareTime,
+                         Integer servings, String language, Double avgRating, String imageUrl) {
+        this.id = id;
+        this.recipeName = recipeName;
+        this.category = category;
+        this.difficulty = difficulty;
+        this.prepareTime = prepareTime;
+        this.servings = servings;
+        this.language = language;
+        this.avgRating = avgRating;
+        this.imageUrl = imageUrl;
+    }
+}
@@ -0,0 +1,13 @@
+package com.kk.cibaria.dto.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailAvailabilityDto {
+    private String email;
+    private boolean available;
+}
@@ -1,5 +1,6 @@
 package com.kk.cibaria.dto.myProfile;
 
+import com.kk.cibaria.dto.RecipeSummary;
 import lombok.Data;
 
 import java.util.List;
@@ -11,6 +12,6 @@ public class MyProfileDto {
     private String backgroundUrl;
     private String username;
     private String description;
-    private List<MyProfileRecipeDto> favourites;
-    private List<MyProfileRecipeDto> UserRecipes;
+    private List<RecipeSummary> favourites;
+    private List<RecipeSummary> UserRecipes;
 }
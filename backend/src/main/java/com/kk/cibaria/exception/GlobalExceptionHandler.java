@@ -1,5 +1,8 @@
 package com.kk.cibaria.exception;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -18,6 +21,32 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<ErrorObject>(errorObject, HttpStatus.NOT_FOUND);
   }
 
+  @ExceptionHandler(RecipeVersionMismatchException.class)
+  public ResponseEntity<ErrorObject> handleRecipeVersionMismatchException(RecipeVersionMismatchException ex) {
+    ErrorObject errorObject = new ErrorObject();
+    errorObject.setStatusCode(HttpStatus.PRECONDITION_FAILED.value());
+    errorObject.setMessage(ex.getMessage());
+    return new ResponseEntity<ErrorObject>(errorObject, HttpStatus.PRECONDITION_FAILED);
+  }
+
+  // an edit committed between loading the recipe and writing it back
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<ErrorObject> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+    ErrorObject errorObject = new ErrorObject();
+    errorObject.setStatusCode(HttpStatus.CONFLICT.value());
+    errorObject.setMessage("The recipe was changed by someone else, reload it and try again");
+    return new ResponseEntity<ErrorObject>(errorObject, HttpStatus.CONFLICT);
+  }
+
+  // a unique index rejected the write, e.g. an email another instance registered after this one checked it
+  @ExceptionHandler(DataIntegrityViolationException.class)
+  public ResponseEntity<ErrorObject> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+    ErrorObject errorObject = new ErrorObject();
+    errorObject.setStatusCode(HttpStatus.CONFLICT.value());
+    errorObject.setMessage("The change conflicts with existing data");
+    return new ResponseEntity<ErrorObject>(errorObject, HttpStatus.CONFLICT);
+  }
+
   @ExceptionHandler(UserNotFoundException.class)
   public ResponseEntity<ErrorObject> handleUserNotFoundException(UserNotFoundException ex) {
     ErrorObject errorObject = new ErrorObject();
@@ -71,6 +100,17 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<ErrorObject>(errorObject, HttpStatus.UNAUTHORIZED);
   }
 
+  // the password hashing queue is full, the client can retry shortly
+  @ExceptionHandler(PasswordHashingBusyException.class)
+  public ResponseEntity<ErrorObject> handlePasswordHashingBusyException(PasswordHashingBusyException ex){
+    ErrorObject errorObject = new ErrorObject();
+    errorObject.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value());
+    errorObject.setMessage(ex.getMessage());
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, "1");
+    return new ResponseEntity<ErrorObject>(errorObject, headers, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
   @ExceptionHandler(InvalidPasswordException.class)
   public ResponseEntity<ErrorObject> handleInvalidPasswordException(InvalidPasswordException ex){
     ErrorObject errorObject = new ErrorObject();
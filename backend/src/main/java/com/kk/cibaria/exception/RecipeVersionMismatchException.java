@@ -0,0 +1,7 @@
+package com.kk.cibaria.exception;
+
+public class RecipeVersionMismatchException extends RuntimeException {
+  public RecipeVersionMismatchException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,17 @@
+package com.kk.cibaria.helper;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+// Tells Postgres (production) apart from the H2 used in tests, for the few queries that need Postgres-only SQL
+public class DatabasePlatform {
+
+    private DatabasePlatform() {
+    }
+
+    public static boolean isPostgres(EntityManager entityManager) {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+}
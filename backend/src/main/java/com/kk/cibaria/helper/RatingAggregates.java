@@ -0,0 +1,62 @@
+package com.kk.cibaria.helper;
+
+import com.kk.cibaria.recipe.Recipe;
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Writes the rating aggregates of a recipe. A bulk HQL update of Recipe, or native SQL declaring it, clears the whole
+// recipe region of the second-level cache, so the statements here run as native SQL under a query space no entity
+// uses and only the rated recipe is evicted: right after the statement, and again once the transaction is over, so a
+// copy another transaction cached from the old row in between is not served after the commit.
+public class RatingAggregates {
+
+    public static final String QUERY_SPACE = "recipe_rating_aggregates";
+
+    private static final String ADD = """
+            UPDATE recipe SET
+              rating_count = rating_count + :countDelta,
+              rating_sum = rating_sum + :sumDelta,
+              rating_average = CASE WHEN rating_count + :countDelta > 0
+                THEN (rating_sum + :sumDelta) * 1.0 / (rating_count + :countDelta) ELSE 0 END
+            WHERE id = :id""";
+
+    private static final String LOCK = "UPDATE recipe SET rating_count = rating_count WHERE id = :id";
+
+    private RatingAggregates() {
+    }
+
+    public static int add(EntityManager entityManager, int recipeId, int countDelta, long sumDelta) {
+        int updated = entityManager.createNativeQuery(ADD)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(QUERY_SPACE)
+                .setParameter("countDelta", countDelta)
+                .setParameter("sumDelta", sumDelta)
+                .setParameter("id", recipeId)
+                .executeUpdate();
+        evict(entityManager, recipeId);
+        return updated;
+    }
+
+    // locks the recipe row without changing it, 0 when there is no such recipe
+    public static int lock(EntityManager entityManager, int recipeId) {
+        return entityManager.createNativeQuery(LOCK)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(QUERY_SPACE)
+                .setParameter("id", recipeId)
+                .executeUpdate();
+    }
+
+    public static void evict(EntityManager entityManager, int recipeId) {
+        entityManager.getEntityManagerFactory().getCache().evict(Recipe.class, recipeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    entityManager.getEntityManagerFactory().getCache().evict(Recipe.class, recipeId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.kk.cibaria.helper;
+
+import com.kk.cibaria.dto.RecipeSummary;
+import com.kk.cibaria.recipe.Recipe;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque "after" token of the scroll listing, it remembers the sort key and id of the last recipe sent to the client
+public class RecipeCursor {
+
+    private static final String SORT_BY_ID = "id";
+
+    private final String sort;
+    private final String key;
+    private final int id;
+
+    private RecipeCursor(String sort, String key, int id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static RecipeCursor after(RecipeSummary recipe) {
+        return new RecipeCursor(SORT_BY_ID, String.valueOf(recipe.getId()), recipe.getId());
+    }
+
+    public static RecipeCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(":", 3);
+            if (parts.length != 3 || !SORT_BY_ID.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new RecipeCursor(parts[0], parts[1], Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String raw = sort + ":" + key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Seek predicate, rows strictly after the cursor in listing order
+    public Specification<Recipe> toSpecification() {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,43 @@
+package com.kk.cibaria.helper;
+
+// Strong ETag of the recipe detail, read with one row lookup so a conditional GET never loads the recipe graph.
+// The rating aggregates are in the JSON but move without the version, so they are part of the tag. An If-Match
+// only compares the version, a rating given in the meantime does not make an edit fail.
+public class RecipeETag {
+
+    private final long version;
+    private final int ratingCount;
+    private final long ratingSum;
+
+    public RecipeETag(long version, int ratingCount, long ratingSum) {
+        this.version = version;
+        this.ratingCount = ratingCount;
+        this.ratingSum = ratingSum;
+    }
+
+    public String value() {
+        return "\"" + version + "-" + ratingCount + "-" + ratingSum + "\"";
+    }
+
+    // If-Match is a list of tags or *, compared strongly: weak and malformed tags match no version
+    public static boolean matches(String ifMatch, long version) {
+        for (String tag : ifMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*")) {
+                return true;
+            }
+            if (trimmed.length() < 2 || !trimmed.startsWith("\"") || !trimmed.endsWith("\"")) {
+                continue;
+            }
+            String[] parts = trimmed.substring(1, trimmed.length() - 1).split("-", 3);
+            if (parts.length == 3 && parts[0].equals(String.valueOf(version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,75 @@
+package com.kk.cibaria.helper;
+
+import com.kk.cibaria.dto.RecipeFacetsDto;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Sums recipe counts into the facets of the filter sidebar. Servings and prepare time are counted in fixed buckets,
+// callers pass the bucket index (see bucketOf) so the database can do the bucketing in its GROUP BY.
+public class RecipeFacetCounter {
+
+    public static final int[][] SERVINGS_BUCKETS = { { 0, 2 }, { 3, 4 }, { 5, 8 }, { 9, 99999 } };
+    public static final int[][] PREPARE_TIME_BUCKETS = { { 0, 15 }, { 16, 30 }, { 31, 60 }, { 61, 120 }, { 121, 99999 } };
+
+    private long total;
+    private final Map<String, Long> category = new HashMap<>();
+    private final Map<Integer, Long> difficulty = new TreeMap<>();
+    private final Map<String, Long> language = new HashMap<>();
+    private final long[] servings = new long[SERVINGS_BUCKETS.length];
+    private final long[] prepareTime = new long[PREPARE_TIME_BUCKETS.length];
+
+    public void add(String category, int difficulty, String language, int servingsBucket, int prepareTimeBucket,
+                    long count) {
+        total += count;
+        if (category != null) {
+            this.category.merge(category, count, Long::sum);
+        }
+        this.difficulty.merge(difficulty, count, Long::sum);
+        if (language != null) {
+            this.language.merge(language, count, Long::sum);
+        }
+        servings[servingsBucket] += count;
+        prepareTime[prepareTimeBucket] += count;
+    }
+
+    public RecipeFacetsDto toDto() {
+        RecipeFacetsDto facets = new RecipeFacetsDto();
+        facets.setTotal(total);
+        facets.setCategory(byCountDescending(category));
+        facets.setDifficulty(new LinkedHashMap<>(difficulty));
+        facets.setLanguage(byCountDescending(language));
+        facets.setServings(buckets(SERVINGS_BUCKETS, servings));
+        facets.setPrepareTime(buckets(PREPARE_TIME_BUCKETS, prepareTime));
+        return facets;
+    }
+
+    // index of the bucket holding the value, values below the first bucket count into it and above the last into that
+    public static int bucketOf(int value, int[][] buckets) {
+        for (int i = 0; i < buckets.length - 1; i++) {
+            if (value <= buckets[i][1]) {
+                return i;
+            }
+        }
+        return buckets.length - 1;
+    }
+
+    private static Map<String, Long> byCountDescending(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static Map<String, Long> buckets(int[][] buckets, long[] counts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            result.put(buckets[i][0] + "-" + buckets[i][1], counts[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,43 @@
+package com.kk.cibaria.helper;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+
+// Sort options of the recipe listing, each with its natural direction. Ties are broken by id in the same direction,
+// so the order is total and a descending page walks the (isPublic, key, id) index of Recipe backwards.
+public enum RecipeSort {
+    RATING("rating", "ratingAverage", Sort.Direction.DESC),
+    NEWEST("newest", "createdAt", Sort.Direction.DESC),
+    PREPARE_TIME("prepareTime", "prepareTime", Sort.Direction.ASC),
+    DIFFICULTY("difficulty", "difficulty", Sort.Direction.ASC),
+    POPULARITY("popularity", "ratingCount", Sort.Direction.DESC);
+
+    public static final Sort DEFAULT = Sort.by("id");
+
+    private final String param;
+    private final String property;
+    private final Sort.Direction direction;
+
+    RecipeSort(String param, String property, Sort.Direction direction) {
+        this.param = param;
+        this.property = property;
+        this.direction = direction;
+    }
+
+    // sort and direction as given in the request, both optional
+    public static Sort toSort(String sort, String direction) {
+        if (sort == null || sort.isEmpty()) {
+            return DEFAULT;
+        }
+        RecipeSort option = Arrays.stream(values())
+                .filter(value -> value.param.equalsIgnoreCase(sort))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown sort: " + sort
+                        + ", expected one of rating, newest, prepareTime, difficulty, popularity"));
+        Sort.Direction order = direction == null || direction.isEmpty()
+                ? option.direction
+                : Sort.Direction.fromString(direction);
+        return Sort.by(order, option.property, "id");
+    }
+}
@@ -0,0 +1,88 @@
+package com.kk.cibaria.helper;
+
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.search.IngredientIndex;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class RecipeSpecification {
+
+    private RecipeSpecification() {
+    }
+
+    // Builds the WHERE clause for the recipe listing, every param is optional (null = no restriction)
+    public static Specification<Recipe> filterByParams(List<String> category, Integer difficulty,
+                                                       String servings, String prepareTime, Boolean isPublic,
+                                                       String language, List<String> ingredients) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (isPublic != null && isPublic) {
+                predicates.add(cb.isTrue(root.get("isPublic")));
+            }
+
+            if (category != null) {
+                predicates.add(root.get("category").in(category));
+            }
+
+            if (difficulty != null) {
+                predicates.add(cb.equal(root.get("difficulty"), difficulty));
+            }
+
+            if (servings != null) {
+                int[] range = parseRange(servings);
+                predicates.add(cb.between(root.get("servings"), range[0], range[1]));
+            }
+
+            if (prepareTime != null) {
+                int[] range = parseRange(prepareTime);
+                predicates.add(cb.between(root.get("prepareTime"), range[0], range[1]));
+            }
+
+            if (language != null && !language.isEmpty()) {
+                predicates.add(cb.equal(cb.lower(root.get("language")), language.toLowerCase()));
+            }
+
+            if (ingredients != null && !ingredients.isEmpty()) {
+                // one EXISTS per selected ingredient, so a recipe has to contain all of them
+                for (String ingredientName : ingredients) {
+                    Subquery<Integer> subquery = query.subquery(Integer.class);
+                    Root<Ingredient> ingredient = subquery.from(Ingredient.class);
+                    subquery.select(ingredient.get("id"))
+                            .where(cb.equal(ingredient.get("recipe"), root),
+                                    cb.equal(cb.lower(ingredient.get("ingredientName")),
+                                            IngredientIndex.normalize(ingredientName)));
+                    predicates.add(cb.exists(subquery));
+                }
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    public static Specification<Recipe> idIn(Collection<Integer> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    public static Specification<Recipe> ownedBy(int userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Recipe> favouriteOf(int userId) {
+        return (root, query, cb) -> cb.equal(root.join("favouriteByUsers").get("id"), userId);
+    }
+
+    // "from-to" format used by the servings and prepareTime filters
+    public static int[] parseRange(String range) {
+        int from = Integer.parseInt(range.split("-")[0]);
+        int to = Integer.parseInt(range.split("-")[1]);
+        return new int[] { from, to };
+    }
+}
@@ -3,18 +3,24 @@ package com.kk.cibaria.ingredient;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
 import com.kk.cibaria.recipe.Recipe;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "Ingredient")
+@Table(name = "Ingredient", indexes = @Index(columnList = "recipe_id"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ingredient")
 @Data
 @NoArgsConstructor
 public class Ingredient {
@@ -1,6 +1,7 @@
 package com.kk.cibaria.rating;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import com.kk.cibaria.recipe.Recipe;
 import com.kk.cibaria.user.UserEntity;
@@ -9,7 +10,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "Rating")
+@Table(name = "Rating", uniqueConstraints = @UniqueConstraint(columnNames = {"recipe_id", "user_id"}))
 @Data
 @NoArgsConstructor
 public class Rating {
@@ -24,7 +25,7 @@ public class Rating {
 
   @ManyToOne
   @JoinColumn(name = "recipe_id")
-  @JsonBackReference("rating")
+  @JsonIgnore
   private Recipe recipe;
 
   @Column(name = "rating_value")
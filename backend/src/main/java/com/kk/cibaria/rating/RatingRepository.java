@@ -3,8 +3,16 @@ package com.kk.cibaria.rating;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface RatingRepository extends JpaRepository<Rating,Integer> {
+public interface RatingRepository extends JpaRepository<Rating,Integer>, RatingRepositoryCustom {
     Optional<Rating> findByRecipeIdAndUserId(int recipeId, int userId);
-}
 
+    // keeps the newest rating of every (recipe, user) pair, needed before the unique constraint can be created
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Rating r WHERE EXISTS (SELECT 1 FROM Rating o WHERE o.recipe = r.recipe AND o.user = r.user AND o.ratingId > r.ratingId)")
+    int deleteDuplicates();
+}
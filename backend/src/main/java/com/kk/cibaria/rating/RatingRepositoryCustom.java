@@ -0,0 +1,7 @@
+package com.kk.cibaria.rating;
+
+public interface RatingRepositoryCustom {
+    // inserts or replaces the user's rating and moves the recipe's rating aggregates with it,
+    // false when the recipe does not exist
+    boolean upsert(int recipeId, int userId, int value);
+}
@@ -0,0 +1,115 @@
+package com.kk.cibaria.rating;
+
+import java.util.List;
+
+import com.kk.cibaria.helper.DatabasePlatform;
+import com.kk.cibaria.helper.RatingAggregates;
+import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.user.UserEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+
+public class RatingRepositoryImpl implements RatingRepositoryCustom {
+
+    // One statement: an existing rating is locked and updated (its old value gives the exact sum delta), otherwise
+    // a new one is inserted, and the recipe aggregates move in the same statement. A concurrent first rating by the
+    // same user makes the insert hit the unique constraint and do nothing, nothing is written and the caller retries.
+    private static final String POSTGRES_UPSERT = """
+            WITH changed AS (
+              UPDATE rating SET rating_value = :value
+              FROM (SELECT rating_id, rating_value FROM rating
+                    WHERE recipe_id = :recipeId AND user_id = :userId FOR UPDATE) previous
+              WHERE rating.rating_id = previous.rating_id
+              RETURNING previous.rating_value AS previous_value
+            ), inserted AS (
+              INSERT INTO rating (recipe_id, user_id, rating_value)
+              SELECT :recipeId, :userId, :value
+              WHERE NOT EXISTS (SELECT 1 FROM changed) AND EXISTS (SELECT 1 FROM recipe WHERE id = :recipeId)
+              ON CONFLICT (recipe_id, user_id) DO NOTHING
+              RETURNING rating_value
+            ), delta AS (
+              SELECT (SELECT COUNT(*) FROM inserted) AS count_delta,
+                     COALESCE((SELECT :value - previous_value FROM changed), 0)
+                     + COALESCE((SELECT SUM(rating_value) FROM inserted), 0) AS sum_delta
+            )
+            UPDATE recipe SET
+              rating_count = rating_count + delta.count_delta,
+              rating_sum = rating_sum + delta.sum_delta,
+              rating_average = COALESCE((rating_sum + delta.sum_delta) * 1.0
+                                        / NULLIF(rating_count + delta.count_delta, 0), 0)
+            FROM delta
+            WHERE id = :recipeId AND (EXISTS (SELECT 1 FROM changed) OR EXISTS (SELECT 1 FROM inserted))""";
+
+    private static final String POSTGRES_RECIPE_EXISTS = "SELECT COUNT(*) FROM recipe WHERE id = :recipeId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public boolean upsert(int recipeId, int userId, int value) {
+        if (!DatabasePlatform.isPostgres(entityManager)) {
+            return upsertWithLock(recipeId, userId, value);
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            // Rating is not cached and of the recipes only this one changes, see RatingAggregates
+            int updated = entityManager.createNativeQuery(POSTGRES_UPSERT)
+                    .unwrap(NativeQuery.class)
+                    .addSynchronizedQuerySpace(RatingAggregates.QUERY_SPACE)
+                    .setParameter("recipeId", recipeId)
+                    .setParameter("userId", userId)
+                    .setParameter("value", value)
+                    .executeUpdate();
+            if (updated > 0) {
+                RatingAggregates.evict(entityManager, recipeId);
+                return true;
+            }
+            Number recipes = (Number) entityManager.createNativeQuery(POSTGRES_RECIPE_EXISTS)
+                    .setParameter("recipeId", recipeId)
+                    .getSingleResult();
+            if (recipes.intValue() == 0) {
+                return false;
+            }
+        }
+        throw new IllegalStateException("Could not save rating of recipe " + recipeId + " by user " + userId);
+    }
+
+    // Portable path for databases without ON CONFLICT (H2 in tests): the aggregate update locks the recipe row,
+    // so raters of the same recipe queue up behind it and the check for an existing rating cannot race
+    private boolean upsertWithLock(int recipeId, int userId, int value) {
+        if (RatingAggregates.lock(entityManager, recipeId) == 0) {
+            return false;
+        }
+
+        List<Rating> existing = entityManager.createQuery(
+                        "SELECT r FROM Rating r WHERE r.recipe.id = :recipeId AND r.user.id = :userId", Rating.class)
+                .setParameter("recipeId", recipeId)
+                .setParameter("userId", userId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+
+        int countDelta;
+        int sumDelta;
+        if (existing.isEmpty()) {
+            Rating rating = new Rating();
+            rating.setRecipe(entityManager.getReference(Recipe.class, recipeId));
+            rating.setUser(entityManager.getReference(UserEntity.class, userId));
+            rating.setValue(value);
+            entityManager.persist(rating);
+            countDelta = 1;
+            sumDelta = value;
+        } else {
+            Rating rating = existing.get(0);
+            entityManager.createQuery("UPDATE Rating r SET r.value = :value WHERE r.ratingId = :ratingId")
+                    .setParameter("value", value)
+                    .setParameter("ratingId", rating.getRatingId())
+                    .executeUpdate();
+            countDelta = 0;
+            sumDelta = value - rating.getValue();
+        }
+
+        RatingAggregates.add(entityManager, recipeId, countDelta, sumDelta);
+        return true;
+    }
+}
@@ -0,0 +1,25 @@
+package com.kk.cibaria.recipe;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.kk.cibaria.search.IngredientIndex;
+
+// The listing filter parameters in a canonical form, the key of the listing and facet caches: two requests for the
+// same recipes share cache entries. Ingredients are normalized like the ingredient index matches them.
+record ListingKey(List<String> category, Integer difficulty, String servings, String prepareTime, boolean isPublic,
+                  String language, List<String> ingredients) {
+
+  static ListingKey of(List<String> category, Integer difficulty, String servings, String prepareTime,
+                       Boolean isPublic, String language, List<String> ingredients) {
+    return new ListingKey(
+        category == null ? null : category.stream().distinct().sorted().toList(),
+        difficulty,
+        servings,
+        prepareTime,
+        isPublic != null && isPublic,
+        language == null || language.isEmpty() ? null : language.toLowerCase(Locale.ROOT),
+        ingredients == null || ingredients.isEmpty() ? null
+            : ingredients.stream().map(IngredientIndex::normalize).distinct().sorted().toList());
+  }
+}
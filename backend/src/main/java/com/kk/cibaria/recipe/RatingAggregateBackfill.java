@@ -0,0 +1,35 @@
+package com.kk.cibaria.recipe;
+
+import com.kk.cibaria.rating.RatingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// One-off cleanup for data created before the rating aggregates and the (recipe, user) unique constraint existed:
+// drops duplicate ratings and recounts Recipe.ratingCount / ratingSum. Run once with
+// --cibaria.backfill.rating-aggregates=true, the constraint is created by the schema update on the next start
+@Component
+@ConditionalOnProperty(name = "cibaria.backfill.rating-aggregates", havingValue = "true")
+public class RatingAggregateBackfill implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(RatingAggregateBackfill.class);
+
+  private final RecipeRepository recipeRepository;
+  private final RatingRepository ratingRepository;
+
+  public RatingAggregateBackfill(RecipeRepository recipeRepository, RatingRepository ratingRepository) {
+    this.recipeRepository = recipeRepository;
+    this.ratingRepository = ratingRepository;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    int duplicates = ratingRepository.deleteDuplicates();
+    log.info("Removed {} duplicate ratings", duplicates);
+    int updated = recipeRepository.recountRatingAggregates();
+    log.info("Recounted rating aggregates of {} recipes", updated);
+  }
+}
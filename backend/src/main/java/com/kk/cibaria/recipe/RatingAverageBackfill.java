@@ -0,0 +1,35 @@
+package com.kk.cibaria.recipe;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Recipe.ratingAverage is added with the default 0, rated recipes saved before it existed get their average from
+// the aggregates. A rated recipe never averages 0, so only rows still missing it are touched. The update bypasses
+// Hibernate, recipes already in the second-level cache are evicted. Run once with
+// --cibaria.backfill.rating-average=true after upgrading such a database
+@Component
+@ConditionalOnProperty(name = "cibaria.backfill.rating-average", havingValue = "true")
+public class RatingAverageBackfill implements ApplicationRunner {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManagerFactory entityManagerFactory;
+
+  public RatingAverageBackfill(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.entityManagerFactory = entityManagerFactory;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    int updated = jdbcTemplate.update("""
+        UPDATE recipe SET rating_average = rating_sum * 1.0 / rating_count
+        WHERE rating_count > 0 AND rating_average = 0""");
+    if (updated > 0) {
+      entityManagerFactory.getCache().evict(Recipe.class);
+    }
+  }
+}
@@ -1,12 +1,14 @@
 package com.kk.cibaria.recipe;
 
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import com.kk.cibaria.image.Image;
 import com.kk.cibaria.ingredient.Ingredient;
@@ -14,12 +16,29 @@ import com.kk.cibaria.rating.Rating;
 import com.kk.cibaria.step.Step;
 import com.kk.cibaria.user.UserEntity;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OptimisticLock;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "Recipe")
+// The listing sorts (see RecipeSort) under the default isPublic filter are read in index order, ties broken by id
+@Table(name = "Recipe", indexes = {
+    @Index(name = "recipe_public_rating_idx", columnList = "isPublic, rating_average, id"),
+    @Index(name = "recipe_public_created_idx", columnList = "isPublic, created_at, id"),
+    @Index(name = "recipe_public_prepare_time_idx", columnList = "isPublic, prepare_time, id"),
+    @Index(name = "recipe_public_difficulty_idx", columnList = "isPublic, difficulty, id"),
+    @Index(name = "recipe_public_rating_count_idx", columnList = "isPublic, rating_count, id")
+})
+// Second-level cached together with ingredients, steps and images, which only change through these lists.
+// ratings and favouriteByUsers are written from the Rating / UserEntity side and would go stale, so they are not
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,6 +55,7 @@ public class Recipe {
 
   @Column(name = "ingredients")
   @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe-ingredients")
   @JsonManagedReference("ingredient")
   private List<Ingredient> ingredients;
 
@@ -56,23 +76,64 @@ public class Recipe {
 
   @Column(name = "rating")
   @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL)
-  @JsonManagedReference("rating")
+  @OptimisticLock(excluded = true)
+  @JsonIgnore
   private List<Rating> ratings = new ArrayList<>();
 
   @ManyToMany(mappedBy = "favouriteRecipes", cascade = CascadeType.ALL)
+  @OptimisticLock(excluded = true)
   @JsonIgnore
   private List<UserEntity> favouriteByUsers = new ArrayList<>();
  
-  @ManyToOne
+  // lazy: the owner checks only read its id, which the proxy holds without loading the user
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "user_id")
   @JsonBackReference("user-recipes")
   private UserEntity user;
 
+  // images and steps are indexed lists, not bags, so the detail view can join fetch both of them at once.
+  // Indexed lists hash their elements, which point back to the recipe, hence the excludes
   @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
+  @OrderColumn(name = "image_order")
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe-images")
   @JsonManagedReference("recipe-images")
+  @EqualsAndHashCode.Exclude
   private List<Image> images = new ArrayList<>();
 
   @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
+  @OrderColumn(name = "step_order")
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe-steps")
   @JsonManagedReference("recipe-steps")
+  @EqualsAndHashCode.Exclude
   private List<Step> steps;
+
+  // running totals of ratings, only changed by RecipeRepository.addToRatingAggregates so concurrent raters do not
+  // overwrite each other, never written from the entity
+  @Column(name = "rating_count", nullable = false, insertable = false, updatable = false)
+  @ColumnDefault("0")
+  private int ratingCount;
+
+  @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+  @ColumnDefault("0")
+  private long ratingSum;
+
+  // ratingSum / ratingCount (0 while unrated), kept with the other aggregates so the rating sort can use an index
+  @Column(name = "rating_average", nullable = false, insertable = false, updatable = false)
+  @ColumnDefault("0")
+  private double ratingAverage;
+
+  // rows that existed before the column get the time of the schema update. Read only in JSON, the update
+  // endpoints parse the recipe with a plain ObjectMapper that has no java.time support
+  @Column(name = "created_at", nullable = false, updatable = false)
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  @ColumnDefault("CURRENT_TIMESTAMP")
+  @CreationTimestamp
+  private Instant createdAt;
+
+  // moves with every edit of the recipe or its ingredients, steps and images (ratings and favourites excluded),
+  // guards the updates against lost writes and is the base of the detail ETag (see RecipeETag)
+  @Version
+  @Column(name = "version", nullable = false)
+  @ColumnDefault("0")
+  private long version;
 }
@@ -0,0 +1,45 @@
+package com.kk.cibaria.recipe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Counts committed changes to the recipes (saved, updated, deleted or rated). The listing caches key their entries
+// with the version they were computed at, so an entry computed before a change is never served after it. The
+// in-memory indexes the listings read (catalog, ingredient postings) apply a change in listeners ordered INDEXES,
+// before the version moves, so a page computed from an index that misses the change cannot get the new version.
+@Component
+public class RecipeCatalogVersion {
+
+  public static final int INDEXES = 0;
+
+  private final AtomicLong version = new AtomicLong();
+
+  // the counter restarts with the application, the start time keeps tags of an earlier run from matching
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+  public long current() {
+    return version.get();
+  }
+
+  // weak ETag of the listing responses, read before the page so a concurrent change can only make it older
+  public String etag() {
+    return "W/\"" + epoch + "-" + version.get() + "\"";
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onRecipeChanged(RecipeChangedEvent event) {
+    version.incrementAndGet();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void onRecipeRated(RecipeRatedEvent event) {
+    version.incrementAndGet();
+  }
+}
@@ -0,0 +1,5 @@
+package com.kk.cibaria.recipe;
+
+// Published by RecipeServiceImpl after a recipe is created, updated or deleted, so derived search data can follow
+public record RecipeChangedEvent(int recipeId, boolean deleted) {
+}
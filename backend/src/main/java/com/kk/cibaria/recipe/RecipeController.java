@@ -2,19 +2,28 @@ package com.kk.cibaria.recipe;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kk.cibaria.dto.FavouriteRequest;
 import com.kk.cibaria.dto.RecipeAddDto;
+import com.kk.cibaria.dto.RecipeFacetsDto;
 import com.kk.cibaria.dto.RecipeRequestDto;
+import com.kk.cibaria.dto.RecipeScrollDto;
+import com.kk.cibaria.dto.RecipeSummary;
 import com.kk.cibaria.image.ImageService;
+import com.kk.cibaria.security.CurrentUser;
 
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -35,6 +44,42 @@ public class RecipeController {
   public RecipeRequestDto getRecipesByPage(
           @RequestParam(defaultValue = "1", required = false) @Min(1) int page,
           @RequestParam(defaultValue = "10", required = false) @Min(1) int size,
+          @RequestParam(required = false) List<String> category,
+          @RequestParam(required = false) Integer difficulty,
+          @RequestParam(required = false) String servings,
+          @RequestParam(required = false) String prepareTime,
+          @RequestParam(defaultValue = "true") Boolean isPublic,
+          @RequestParam(required = false) String language,
+          @RequestParam(required = false) List<String> ingredients,
+          @RequestParam(required = false) String sort,
+          @RequestParam(required = false) String direction,
+          WebRequest request
+  )
+  {
+    if (request.checkNotModified(recipeService.getListingETag())) {
+      return null;
+    }
+    return recipeService.getRecipeByPage(page,size,category,difficulty,servings,prepareTime, isPublic, language, ingredients, sort, direction);
+  }
+
+  @GetMapping("/scroll")
+  public RecipeScrollDto getRecipesAfter(
+          @RequestParam(required = false) String after,
+          @RequestParam(defaultValue = "10", required = false) @Min(1) int size,
+          @RequestParam(required = false) List<String> category,
+          @RequestParam(required = false) Integer difficulty,
+          @RequestParam(required = false) String servings,
+          @RequestParam(required = false) String prepareTime,
+          @RequestParam(defaultValue = "true") Boolean isPublic,
+          @RequestParam(required = false) String language,
+          @RequestParam(required = false) List<String> ingredients
+  )
+  {
+    return recipeService.getRecipesAfter(after, size, category, difficulty, servings, prepareTime, isPublic, language, ingredients);
+  }
+
+  @GetMapping("/facets")
+  public RecipeFacetsDto getFacets(
           @RequestParam(required = false) List<String> category,
           @RequestParam(required = false) Integer difficulty,
           @RequestParam(required = false) String servings,
@@ -44,17 +89,65 @@ public class RecipeController {
           @RequestParam(required = false) List<String> ingredients
   )
   {
-    return recipeService.getRecipeByPage(page,size,category,difficulty,servings,prepareTime, isPublic, language, ingredients);
+    return recipeService.getFacets(category, difficulty, servings, prepareTime, isPublic, language, ingredients);
   }
 
+  // answered with 304 from the ETag alone when the client's copy is current, otherwise with the cached JSON bytes
   @GetMapping("/{id}")
-  public Recipe getById(@PathVariable int id) {
-    return recipeService.getById(id);
+  public ResponseEntity<byte[]> getById(@PathVariable int id, WebRequest request, HttpServletResponse servletResponse) {
+    String etag = recipeService.getETag(id);
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    RecipeDetailCache.Detail detail = recipeService.getDetail(id, etag);
+    // a change committed since the ETag was read gets serialized, the header has to name the body that is sent
+    if (!detail.etag().equals(etag)) {
+      servletResponse.setHeader(HttpHeaders.ETAG, detail.etag());
+    }
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(detail.gzip());
+    }
+    return response.body(detail.json());
+  }
+
+  // gzip (or x-gzip) unless refused with q=0, or a * that is not refused when gzip is not listed
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Boolean gzip = null;
+    boolean any = false;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim().toLowerCase(Locale.ROOT);
+      boolean accepted = parts.length < 2 || quality(parts[1]) > 0;
+      if (name.equals("gzip") || name.equals("x-gzip")) {
+        gzip = accepted;
+      } else if (name.equals("*")) {
+        any = accepted;
+      }
+    }
+    return gzip != null ? gzip : any;
+  }
+
+  private static double quality(String param) {
+    String trimmed = param.trim();
+    if (!trimmed.startsWith("q=")) {
+      return 1;
+    }
+    try {
+      return Double.parseDouble(trimmed.substring(2));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
   }
 
   @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   public Recipe save(@RequestParam("recipe") String json,
-                     @RequestHeader("Authorization") String token,                   
+                     CurrentUser currentUser,
                      @RequestParam(value = "images", required = false) Optional<List<MultipartFile>> images) throws IOException {
 
     System.out.println("=== KONTROLER ===");
@@ -64,44 +157,45 @@ public class RecipeController {
     ObjectMapper objectMapper = new ObjectMapper();
     RecipeAddDto recipe = objectMapper.readValue(json,RecipeAddDto.class);
     if(images.isPresent() && images.get() != null && !images.get().isEmpty()){
-     return recipeService.saveRecipeWithPhotos(recipe, images.get(), token);
+     return recipeService.saveRecipeWithPhotos(recipe, images.get(), currentUser);
     }else{
-      return recipeService.saveRecipeWithoutPhoto(recipe, token);
+      return recipeService.saveRecipeWithoutPhoto(recipe, currentUser);
     }
   }
 
   @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   public Recipe update(@PathVariable int id,
                       @RequestParam("recipe") String json,
-                      @RequestHeader("Authorization") String token,
+                      CurrentUser currentUser,
                       @RequestParam(value = "images", required = false) List<MultipartFile> images,
-                      @RequestParam(value = "keepExistingImage", required = false) String keepExistingImage) throws IOException {
+                      @RequestParam(value = "keepExistingImage", required = false) String keepExistingImage,
+                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws IOException {
       
       ObjectMapper objectMapper = new ObjectMapper();
       Recipe recipe = objectMapper.readValue(json, Recipe.class);
       
       if(images != null && !images.isEmpty()) {
-          return recipeService.updateRecipeWithPhotos(id, recipe, images, token);
+          return recipeService.updateRecipeWithPhotos(id, recipe, images, currentUser, ifMatch);
       } else {
           boolean shouldKeepImages = "true".equals(keepExistingImage);
-          return recipeService.updateRecipeWithoutPhotos(id, recipe, token, shouldKeepImages);
+          return recipeService.updateRecipeWithoutPhotos(id, recipe, currentUser, shouldKeepImages, ifMatch);
       }
   }
 
   @DeleteMapping("/{id}")
-  public void delete(@PathVariable int id, @RequestHeader("Authorization") String token) {
-    recipeService.delete(token, id);
+  public void delete(@PathVariable int id, CurrentUser currentUser) {
+    recipeService.delete(currentUser, id);
   }
 
   @PostMapping("/{id}")
-  public void recipeRating(@PathVariable int id, @RequestHeader("Authorization") String token, @RequestBody int rating) {
-      recipeService.rating(id, token, rating);
+  public void recipeRating(@PathVariable int id, CurrentUser currentUser, @RequestBody int rating) {
+      recipeService.rating(id, currentUser, rating);
   }
 
   @GetMapping("/{id}/rating")
-  public ResponseEntity<Integer> getUserRating(@PathVariable int id, @RequestHeader("Authorization") String token) {
+  public ResponseEntity<Integer> getUserRating(@PathVariable int id, CurrentUser currentUser) {
     try {
-      int userRating = recipeService.getUserRating(id, token);
+      int userRating = recipeService.getUserRating(id, currentUser);
       return ResponseEntity.ok(userRating);
     } catch (Exception e){
       return ResponseEntity.ok(0);
@@ -109,30 +203,38 @@ public class RecipeController {
   }
 
   @GetMapping("/favourites/isFavourite")
-  public boolean isRecipeFavourite(@RequestHeader("Authorization") String token,
+  public boolean isRecipeFavourite(CurrentUser currentUser,
                                    @RequestParam int recipeId) {
-    return recipeService.isRecipeFavourite(token, recipeId);
+    return recipeService.isRecipeFavourite(currentUser, recipeId);
   }
 
   @GetMapping("/{id}/isOwner")
-  public boolean isOwner(@PathVariable int id, @RequestHeader("Authorization") String token){
-    return recipeService.isOwner(id, token);
+  public boolean isOwner(@PathVariable int id, CurrentUser currentUser){
+    return recipeService.isOwner(id, currentUser);
   }
 
   @PostMapping("/favourites/add")
-  public void addRecipeToFavourites(@RequestHeader("Authorization") String token,
+  public void addRecipeToFavourites(CurrentUser currentUser,
                                           @RequestBody FavouriteRequest request){
-    recipeService.addRecipeToFavourites(token,request.getRecipeId());
+    recipeService.addRecipeToFavourites(currentUser,request.getRecipeId());
   }
 
   @PostMapping("/favourites/delete")
-  public void deleteRecipeFromFavourites(@RequestHeader("Authorization") String token,
+  public void deleteRecipeFromFavourites(CurrentUser currentUser,
                                           @RequestBody FavouriteRequest request){
-    recipeService.deleteRiceFromFavourites(token,request.getRecipeId());
+    recipeService.deleteRiceFromFavourites(currentUser,request.getRecipeId());
   }
 
   @GetMapping("/search")
-  public List<Recipe> search(@RequestParam String query) {
-    return recipeService.searchRecipes(query);
+  public List<RecipeSummary> search(@RequestParam String query,
+                                    @RequestParam(defaultValue = "1", required = false) @Min(1) int page,
+                                    @RequestParam(defaultValue = "20", required = false) @Min(1) int size) {
+    return recipeService.searchRecipes(query, page, size);
+  }
+
+  @GetMapping("/suggest")
+  public List<String> suggest(@RequestParam String prefix,
+                              @RequestParam(defaultValue = "10", required = false) @Min(1) @Max(20) int limit) {
+    return recipeService.suggest(prefix, limit);
   }
 }
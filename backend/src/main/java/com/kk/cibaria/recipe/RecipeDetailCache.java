@@ -0,0 +1,81 @@
+package com.kk.cibaria.recipe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kk.cibaria.helper.RecipeETag;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// The GET /recipes/{id} body of the recipes being read, serialized once and kept as bytes next to its gzip encoding,
+// so a hit writes the bytes without Jackson or the compressor. An entry carries the ETag it was serialized at and is
+// only served for that ETag, committed edits and ratings also drop it. Bounded by cibaria.detail.cache.max-bytes.
+@Component
+public class RecipeDetailCache implements MeterBinder {
+
+  public record Detail(String etag, byte[] json, byte[] gzip) {
+  }
+
+  private final ObjectMapper objectMapper;
+  private final Cache<Integer, Detail> details;
+
+  public RecipeDetailCache(ObjectMapper objectMapper,
+                           @Value("${cibaria.detail.cache.max-bytes:33554432}") long maxBytes) {
+    this.objectMapper = objectMapper;
+    this.details = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((Integer id, Detail detail) -> detail.json().length + detail.gzip().length)
+        .recordStats()
+        .build();
+  }
+
+  Detail get(int id, String etag, Supplier<Recipe> loader) {
+    Detail detail = details.get(id, key -> serialize(loader.get()));
+    if (!detail.etag().equals(etag)) {
+      // serialized before a change whose event has not arrived yet
+      detail = serialize(loader.get());
+      details.put(id, detail);
+    }
+    return detail;
+  }
+
+  private Detail serialize(Recipe recipe) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(recipe);
+      ByteArrayOutputStream gzip = new ByteArrayOutputStream(json.length / 4 + 64);
+      try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+        out.write(json);
+      }
+      String etag = new RecipeETag(recipe.getVersion(), recipe.getRatingCount(), recipe.getRatingSum()).value();
+      return new Detail(etag, json, gzip.toByteArray());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onRecipeChanged(RecipeChangedEvent event) {
+    details.invalidate(event.recipeId());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void onRecipeRated(RecipeRatedEvent event) {
+    details.invalidate(event.recipeId());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, details, "recipes.detail");
+  }
+}
@@ -0,0 +1,45 @@
+package com.kk.cibaria.recipe;
+
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+// Facet counts of the most used filter combinations, valid for one catalog version
+@Component
+public class RecipeFacetCache implements MeterBinder {
+
+  static final int MAX_ENTRIES = 256;
+
+  private record Key(long version, ListingKey listing) {
+  }
+
+  private final RecipeCatalogVersion catalogVersion;
+  private final Cache<Key, RecipeFacetsDto> entries = Caffeine.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .recordStats()
+      .build();
+
+  public RecipeFacetCache(RecipeCatalogVersion catalogVersion) {
+    this.catalogVersion = catalogVersion;
+  }
+
+  RecipeFacetsDto get(ListingKey listing, Supplier<RecipeFacetsDto> counter) {
+    return entries.get(new Key(catalogVersion.current(), listing), key -> counter.get());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, entries, "recipes.facets");
+  }
+
+  long size() {
+    entries.cleanUp();
+    return entries.estimatedSize();
+  }
+}
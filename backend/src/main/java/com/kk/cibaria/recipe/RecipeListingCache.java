@@ -0,0 +1,55 @@
+package com.kk.cibaria.recipe;
+
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kk.cibaria.dto.RecipeRequestDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+// Pages of the /recipes listing, so identical requests (the first pages, mostly) are served without a query.
+// Entries are keyed with the catalog version and weighed by their summaries, Caffeine evicts the least valuable
+// ones (W-TinyLFU) once cibaria.listing.cache.max-weight is reached, and pages of older versions are never hit again.
+@Component
+public class RecipeListingCache implements MeterBinder {
+
+  private record Key(long version, ListingKey listing, int page, int size, Sort order) {
+  }
+
+  private final RecipeCatalogVersion catalogVersion;
+  private final Cache<Key, RecipeRequestDto> pages;
+
+  public RecipeListingCache(RecipeCatalogVersion catalogVersion,
+                            @Value("${cibaria.listing.cache.max-weight:20000}") long maxWeight) {
+    this.catalogVersion = catalogVersion;
+    this.pages = Caffeine.newBuilder()
+        .maximumWeight(maxWeight)
+        .weigher((Key key, RecipeRequestDto page) -> 1 + page.getContent().size())
+        .recordStats()
+        .build();
+  }
+
+  RecipeRequestDto get(ListingKey listing, int page, int size, Sort order, Supplier<RecipeRequestDto> loader) {
+    return pages.get(new Key(catalogVersion.current(), listing, page, size, order), key -> loader.get());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    // cache.gets (hit / miss), cache.evictions, cache.eviction.weight and cache.load.duration, tagged with the name
+    CaffeineCacheMetrics.monitor(registry, pages, "recipes.listing");
+    Gauge.builder("recipes.listing.cache.hit.ratio", pages, cache -> cache.stats().hitRate())
+        .description("Share of /recipes pages served from the listing cache")
+        .register(registry);
+  }
+
+  long size() {
+    pages.cleanUp();
+    return pages.estimatedSize();
+  }
+}
@@ -0,0 +1,35 @@
+package com.kk.cibaria.recipe;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Recipe.images and Recipe.steps are indexed lists, rows saved before the order columns existed have no index
+// and Hibernate refuses to load a list with a null index. Numbers them by id, only touches null rows. Run once with
+// --cibaria.backfill.order-columns=true after upgrading such a database
+@Component
+@ConditionalOnProperty(name = "cibaria.backfill.order-columns", havingValue = "true")
+public class RecipeOrderColumnBackfill implements ApplicationRunner {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public RecipeOrderColumnBackfill(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    backfill("image", "image_order");
+    backfill("step", "step_order");
+  }
+
+  private void backfill(String table, String orderColumn) {
+    jdbcTemplate.update(String.format("""
+        UPDATE %1$s SET %2$s = (
+          SELECT COUNT(*) FROM %1$s previous
+          WHERE previous.recipe_id = %1$s.recipe_id AND previous.id < %1$s.id)
+        WHERE recipe_id IS NOT NULL AND %2$s IS NULL""", table, orderColumn));
+  }
+}
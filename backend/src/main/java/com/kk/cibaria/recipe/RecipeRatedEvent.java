@@ -0,0 +1,5 @@
+package com.kk.cibaria.recipe;
+
+// Published when the ratings of a recipe change (a rating is added or changed, or its user is deleted)
+public record RecipeRatedEvent(int recipeId) {
+}
@@ -1,17 +1,44 @@
 package com.kk.cibaria.recipe;
 
 
+import com.kk.cibaria.helper.RecipeETag;
 import com.kk.cibaria.user.UserEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 
-public interface RecipeRepository extends JpaRepository<Recipe, Integer> {
-    @Query("SELECT u FROM Recipe u WHERE u.recipeName ILIKE %:query%")
-    List<Recipe> findByRecipeNameQuery(@Param("query") String query);
-
+public interface RecipeRepository extends JpaRepository<Recipe, Integer>, JpaSpecificationExecutor<Recipe>, RecipeRepositoryCustom {
     List<Recipe> findByUser(UserEntity user);
+
+    // for the edit endpoints: the ingredient, step and image lists are mapped by the children and would not move
+    // the version on their own, the forced increment moves it on every edit
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    Optional<Recipe> findForUpdateById(int id);
+
+    @Query("SELECT new com.kk.cibaria.helper.RecipeETag(r.version, r.ratingCount, r.ratingSum) FROM Recipe r WHERE r.id = :id")
+    Optional<RecipeETag> findETagById(@Param("id") int id);
+
+    @Query("SELECT r.user.id FROM Recipe r WHERE r.id = :id")
+    Optional<Integer> findOwnerIdById(@Param("id") int id);
+
+    boolean existsByIdAndFavouriteByUsersId(int id, int userId);
+
+    // full recount from the rating table, used by the backfill
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Recipe r SET
+            r.ratingCount = (SELECT COUNT(x) FROM Rating x WHERE x.recipe = r),
+            r.ratingSum = (SELECT COALESCE(SUM(x.value), 0) FROM Rating x WHERE x.recipe = r),
+            r.ratingAverage = (SELECT COALESCE(AVG(x.value), 0) FROM Rating x WHERE x.recipe = r)""")
+    int recountRatingAggregates();
 }
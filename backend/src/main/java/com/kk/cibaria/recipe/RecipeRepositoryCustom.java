@@ -0,0 +1,30 @@
+package com.kk.cibaria.recipe;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import com.kk.cibaria.dto.RecipeSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface RecipeRepositoryCustom {
+    Page<RecipeSummary> findSummaries(Specification<Recipe> spec, Pageable pageable);
+
+    List<RecipeSummary> findSummaries(Specification<Recipe> spec, Sort sort, Limit limit);
+
+    Optional<Recipe> findDetailById(int id);
+
+    // sets the ingredient names of the given summaries, in one query
+    void addIngredientNames(List<RecipeSummary> summaries);
+
+    RecipeFacetsDto countFacets(Specification<Recipe> spec);
+
+    // moves the rating aggregates of one recipe, evicting only that recipe from the second-level cache
+    @Transactional
+    int addToRatingAggregates(int id, int countDelta, long sumDelta);
+}
@@ -0,0 +1,182 @@
+package com.kk.cibaria.recipe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import com.kk.cibaria.dto.RecipeSummary;
+import com.kk.cibaria.helper.RatingAggregates;
+import com.kk.cibaria.helper.RecipeFacetCounter;
+import com.kk.cibaria.image.Image;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+public class RecipeRepositoryImpl implements RecipeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<RecipeSummary> findSummaries(Specification<Recipe> spec, Pageable pageable) {
+        TypedQuery<RecipeSummary> query = createSummaryQuery(spec, pageable.getSort());
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<RecipeSummary> findSummaries(Specification<Recipe> spec, Sort sort, Limit limit) {
+        TypedQuery<RecipeSummary> query = createSummaryQuery(spec, sort);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList();
+    }
+
+    // Two statements for the whole detail view. Ingredients are a bag, so they are joined alone (a bag joined
+    // with another collection would get duplicated rows), steps and images are indexed lists and share the second one.
+    // Both selects fill the same managed instance. The owner stays a proxy, the body does not include it.
+    @Override
+    public Optional<Recipe> findDetailById(int id) {
+        EntityGraph<Recipe> graph = entityManager.createEntityGraph(Recipe.class);
+        graph.addAttributeNodes("ingredients");
+
+        List<Recipe> recipes = entityManager.createQuery("SELECT r FROM Recipe r WHERE r.id = :id", Recipe.class)
+                .setParameter("id", id)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, graph)
+                .getResultList();
+        if (recipes.isEmpty()) {
+            return Optional.empty();
+        }
+
+        entityManager.createQuery("SELECT r FROM Recipe r LEFT JOIN FETCH r.steps LEFT JOIN FETCH r.images WHERE r.id = :id",
+                        Recipe.class)
+                .setParameter("id", id)
+                .getResultList();
+        return Optional.of(recipes.get(0));
+    }
+
+    @Override
+    public void addIngredientNames(List<RecipeSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<String>> names = new HashMap<>();
+        entityManager.createQuery("SELECT i.recipe.id, i.ingredientName FROM Ingredient i WHERE i.recipe.id IN :ids",
+                        Object[].class)
+                .setParameter("ids", summaries.stream().map(RecipeSummary::getId).toList())
+                .getResultList()
+                .forEach(row -> names.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((String) row[1]));
+        summaries.forEach(summary -> summary.setIngredients(names.getOrDefault(summary.getId(), List.of())));
+    }
+
+    @Override
+    public int addToRatingAggregates(int id, int countDelta, long sumDelta) {
+        return RatingAggregates.add(entityManager, id, countDelta, sumDelta);
+    }
+
+    // One grouped statement over the filtered recipes, the groups are folded into the facets in a single pass.
+    // Servings and prepare time are grouped by value and bucketed here, a CASE in the GROUP BY would be rendered
+    // with bind parameters that Postgres does not match to the ones in the select list.
+    @Override
+    public RecipeFacetsDto countFacets(Specification<Recipe> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Recipe> root = query.from(Recipe.class);
+
+        Expression<String> language = cb.lower(root.get("language"));
+        query.multiselect(root.get("category"), root.get("difficulty"), language, root.get("servings"),
+                root.get("prepareTime"), cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.groupBy(root.get("category"), root.get("difficulty"), language, root.get("servings"),
+                root.get("prepareTime"));
+
+        RecipeFacetCounter counter = new RecipeFacetCounter();
+        for (Object[] row : entityManager.createQuery(query).getResultList()) {
+            counter.add((String) row[0], (Integer) row[1], (String) row[2],
+                    RecipeFacetCounter.bucketOf((Integer) row[3], RecipeFacetCounter.SERVINGS_BUCKETS),
+                    RecipeFacetCounter.bucketOf((Integer) row[4], RecipeFacetCounter.PREPARE_TIME_BUCKETS),
+                    (Long) row[5]);
+        }
+        return counter.toDto();
+    }
+
+    private TypedQuery<RecipeSummary> createSummaryQuery(Specification<Recipe> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RecipeSummary> query = cb.createQuery(RecipeSummary.class);
+        Root<Recipe> root = query.from(Recipe.class);
+
+        query.select(summaryOf(root, query, cb));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    // average rating comes from the rating aggregates and the first image is a correlated subquery,
+    // so the card data comes back in one statement
+    private CompoundSelection<RecipeSummary> summaryOf(Root<Recipe> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Expression<Integer> ratingCount = root.get("ratingCount");
+        Expression<Double> avgRating = cb.<Double>selectCase()
+                .when(cb.equal(ratingCount, 0), cb.nullLiteral(Double.class))
+                .otherwise(cb.quot(cb.prod(root.get("ratingSum"), 1.0), ratingCount).as(Double.class));
+
+        Subquery<String> imageUrl = query.subquery(String.class);
+        Root<Image> image = imageUrl.from(Image.class);
+        Subquery<Long> firstImageId = imageUrl.subquery(Long.class);
+        Root<Image> firstImage = firstImageId.from(Image.class);
+        firstImageId.select(cb.min(firstImage.get("id")))
+                .where(cb.equal(firstImage.get("recipe"), root));
+        imageUrl.select(image.get("imageUrl"))
+                .where(cb.equal(image.get("id"), firstImageId));
+
+        return cb.construct(RecipeSummary.class,
+                root.get("id"),
+                root.get("recipeName"),
+                root.get("category"),
+                root.get("difficulty"),
+                root.get("prepareTime"),
+                root.get("servings"),
+                root.get("language"),
+                avgRating,
+                imageUrl);
+    }
+
+    private long count(Specification<Recipe> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Recipe> root = query.from(Recipe.class);
+
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
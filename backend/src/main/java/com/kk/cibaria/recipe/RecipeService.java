@@ -4,7 +4,11 @@ import java.io.IOException;
 import java.util.List;
 
 import com.kk.cibaria.dto.RecipeAddDto;
+import com.kk.cibaria.dto.RecipeFacetsDto;
 import com.kk.cibaria.dto.RecipeRequestDto;
+import com.kk.cibaria.dto.RecipeScrollDto;
+import com.kk.cibaria.dto.RecipeSummary;
+import com.kk.cibaria.security.CurrentUser;
 
 import org.springframework.web.multipart.MultipartFile;
 
@@ -13,30 +17,47 @@ public interface RecipeService {
 
   Recipe getById(int id);
 
-  Recipe saveRecipeWithoutPhoto(RecipeAddDto recipe, String token) throws IOException;
+  // getById as serialized JSON (and gzipped), cached while the recipe still has the given ETag
+  RecipeDetailCache.Detail getDetail(int id, String etag);
 
-  Recipe saveRecipeWithPhotos(RecipeAddDto recipe, List<MultipartFile> images, String token);
+  String getETag(int id);
 
-  Recipe updateRecipeWithoutPhotos(int id, Recipe recipe, String token, boolean keepExistingImages);
+  String getListingETag();
 
-  Recipe updateRecipeWithPhotos(int id, Recipe recipe, List<MultipartFile> images, String token);
+  Recipe saveRecipeWithoutPhoto(RecipeAddDto recipe, CurrentUser currentUser) throws IOException;
+
+  Recipe saveRecipeWithPhotos(RecipeAddDto recipe, List<MultipartFile> images, CurrentUser currentUser);
+
+  // ifMatch is the If-Match header or null, a recipe changed since the given ETag is not overwritten
+  Recipe updateRecipeWithoutPhotos(int id, Recipe recipe, CurrentUser currentUser, boolean keepExistingImages, String ifMatch);
+
+  Recipe updateRecipeWithPhotos(int id, Recipe recipe, List<MultipartFile> images, CurrentUser currentUser, String ifMatch);
 
   RecipeRequestDto getRecipeByPage(int page, int size, List<String> category, Integer difficulty, String servings,
-                                   String prepareTime, Boolean isPublic, String language, List<String> ingredients);
+                                   String prepareTime, Boolean isPublic, String language, List<String> ingredients,
+                                   String sort, String direction);
+
+  RecipeFacetsDto getFacets(List<String> category, Integer difficulty, String servings, String prepareTime,
+                            Boolean isPublic, String language, List<String> ingredients);
+
+  RecipeScrollDto getRecipesAfter(String after, int size, List<String> category, Integer difficulty, String servings,
+                                  String prepareTime, Boolean isPublic, String language, List<String> ingredients);
+
+  void addRecipeToFavourites(CurrentUser currentUser, int recipeId);
 
-  void addRecipeToFavourites(String token, int recipeId);
+  void deleteRiceFromFavourites(CurrentUser currentUser, int recipeId);
 
-  void deleteRiceFromFavourites(String token, int recipeId);
+  void delete(CurrentUser currentUser, int id);
 
-  void delete(String token, int id);
+  List<RecipeSummary> searchRecipes(String query, int page, int size);
 
-  List<Recipe> searchRecipes(String query);
+  List<String> suggest(String prefix, int limit);
 
-  boolean isRecipeFavourite(String token, int recipeId);
+  boolean isRecipeFavourite(CurrentUser currentUser, int recipeId);
 
-  boolean isOwner(int id, String token);
+  boolean isOwner(int id, CurrentUser currentUser);
 
-  Recipe rating(int id, String token, int rating);
+  void rating(int id, CurrentUser currentUser, int rating);
 
-  int getUserRating(int recipeId, String token);
+  int getUserRating(int recipeId, CurrentUser currentUser);
 }
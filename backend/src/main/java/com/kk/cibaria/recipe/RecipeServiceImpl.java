@@ -2,30 +2,51 @@ package com.kk.cibaria.recipe;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.kk.cibaria.dto.RecipeAddDto;
+import com.kk.cibaria.dto.RecipeFacetsDto;
 import com.kk.cibaria.dto.RecipeRequestDto;
+import com.kk.cibaria.dto.RecipeScrollDto;
+import com.kk.cibaria.dto.RecipeSummary;
 import com.kk.cibaria.exception.ImageErrorException;
+import com.kk.cibaria.exception.PageDoesNotExistException;
 import com.kk.cibaria.exception.RecipeErrorException;
 import com.kk.cibaria.exception.UserNotFoundException;
-import com.kk.cibaria.helper.Pagination;
-import com.kk.cibaria.helper.RecipeFilter;
+import com.kk.cibaria.exception.RecipeVersionMismatchException;
+import com.kk.cibaria.helper.RecipeCursor;
+import com.kk.cibaria.helper.RecipeETag;
+import com.kk.cibaria.helper.RecipeSort;
+import com.kk.cibaria.helper.RecipeSpecification;
 import com.kk.cibaria.cloudinary.CloudinaryService;
 import com.kk.cibaria.image.Image;
 import com.kk.cibaria.image.ImageService;
 import com.kk.cibaria.image.ImageType;
 import com.kk.cibaria.ingredient.Ingredient;
-import com.kk.cibaria.ingredient.IngredientService;
 import com.kk.cibaria.rating.Rating;
 import com.kk.cibaria.rating.RatingRepository;
-import com.kk.cibaria.security.jwt.JwtService;
+import com.kk.cibaria.catalog.RecipeCatalog;
+import com.kk.cibaria.search.IngredientIndex;
+import com.kk.cibaria.search.RecipeSearch;
+import com.kk.cibaria.search.RecipeSuggester;
+import com.kk.cibaria.security.CurrentUser;
 import com.kk.cibaria.step.Step;
 import com.kk.cibaria.step.StepRepository;
 import com.kk.cibaria.user.UserEntity;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import com.kk.cibaria.exception.RecipeNotFoundException;
@@ -39,22 +60,43 @@ import org.springframework.web.multipart.MultipartFile;
 @Service
 public class RecipeServiceImpl implements RecipeService {
 
+  private static final int MAX_INGREDIENT_MATCHES = 1000;
+
   private final RatingRepository ratingRepository;
   private final RecipeRepository recipeRepository;
   private final UserRepository userRepository;
-  private final JwtService jwtService;
   private final ImageService imageService;
   private final CloudinaryService cloudinaryService;
-  private final IngredientService ingredientService;
-
-  public RecipeServiceImpl(RecipeRepository recipeRepository, UserRepository userRepository, JwtService jwtService, ImageService imageService, CloudinaryService cloudinaryService, StepRepository stepRepository, RatingRepository ratingRepository, IngredientService ingredientService) {
+  private final RecipeSearch recipeSearch;
+  private final RecipeSuggester recipeSuggester;
+  private final IngredientIndex ingredientIndex;
+  private final RecipeCatalog recipeCatalog;
+  private final RecipeFacetCache facetCache;
+  private final RecipeListingCache listingCache;
+  private final RecipeCatalogVersion catalogVersion;
+  private final RecipeDetailCache detailCache;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public RecipeServiceImpl(RecipeRepository recipeRepository, UserRepository userRepository, ImageService imageService, CloudinaryService cloudinaryService, StepRepository stepRepository, RatingRepository ratingRepository,
+                           RecipeSearch recipeSearch, RecipeSuggester recipeSuggester, IngredientIndex ingredientIndex,
+                           ObjectProvider<RecipeCatalog> recipeCatalog, RecipeFacetCache facetCache,
+                           RecipeListingCache listingCache, RecipeCatalogVersion catalogVersion,
+                           RecipeDetailCache detailCache, ApplicationEventPublisher eventPublisher) {
     this.recipeRepository = recipeRepository;
     this.userRepository = userRepository;
-    this.jwtService = jwtService;
     this.imageService = imageService;
     this.cloudinaryService = cloudinaryService;
     this.ratingRepository = ratingRepository;
-    this.ingredientService = ingredientService;
+    this.recipeSearch = recipeSearch;
+    this.recipeSuggester = recipeSuggester;
+    this.ingredientIndex = ingredientIndex;
+    // only present with cibaria.listing.engine=catalog
+    this.recipeCatalog = recipeCatalog.getIfAvailable();
+    this.facetCache = facetCache;
+    this.listingCache = listingCache;
+    this.catalogVersion = catalogVersion;
+    this.detailCache = detailCache;
+    this.eventPublisher = eventPublisher;
   }
 
   @Override
@@ -62,21 +104,40 @@ public class RecipeServiceImpl implements RecipeService {
     return recipeRepository.findAll();
   }
 
+  @Transactional
   @Override
   public Recipe getById(int id) {
-    return recipeRepository.findById(id).orElseThrow(
+    return recipeRepository.findDetailById(id).orElseThrow(
         () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", id)));
   }
 
   @Override
-  public Recipe saveRecipeWithoutPhoto(RecipeAddDto recipe, String token) throws IOException {
-    Recipe newRecipe = createRecipe(recipe, token);
-    return recipeRepository.save(newRecipe);
+  public RecipeDetailCache.Detail getDetail(int id, String etag) {
+    return detailCache.get(id, etag, () -> getById(id));
+  }
+
+  @Override
+  public String getETag(int id) {
+    return recipeRepository.findETagById(id).map(RecipeETag::value).orElseThrow(
+        () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", id)));
   }
 
   @Override
-  public Recipe saveRecipeWithPhotos(RecipeAddDto recipe, List<MultipartFile> images, String token) {
-      Recipe newRecipe = createRecipe(recipe, token);
+  public String getListingETag() {
+    return catalogVersion.etag();
+  }
+
+  @Transactional
+  @Override
+  public Recipe saveRecipeWithoutPhoto(RecipeAddDto recipe, CurrentUser currentUser) throws IOException {
+    Recipe newRecipe = createRecipe(recipe, currentUser);
+    return saveAndPublish(newRecipe);
+  }
+
+  @Transactional
+  @Override
+  public Recipe saveRecipeWithPhotos(RecipeAddDto recipe, List<MultipartFile> images, CurrentUser currentUser) {
+      Recipe newRecipe = createRecipe(recipe, currentUser);
       List<Image> imagesSaved = new ArrayList<>();
       images.forEach(image->{
         try {
@@ -89,18 +150,30 @@ public class RecipeServiceImpl implements RecipeService {
         image.setRecipe(newRecipe);
       });
       newRecipe.setImages(imagesSaved);
-      return recipeRepository.save(newRecipe);
+      return saveAndPublish(newRecipe);
   }
 
-  private Recipe createRecipe(RecipeAddDto recipe, String token){
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
+  // the edit was based on the version in If-Match. An edit committed after this check still fails the
+  // @Version check on flush
+  private void checkVersion(Recipe recipe, String ifMatch) {
+    if (ifMatch != null && !RecipeETag.matches(ifMatch, recipe.getVersion())) {
+      throw new RecipeVersionMismatchException(String.format(
+          "Recipe with id: %s has changed since it was loaded, reload it and try again", recipe.getId()));
+    }
+  }
+
+  private Recipe saveAndPublish(Recipe recipe) {
+    Recipe saved = recipeRepository.save(recipe);
+    eventPublisher.publishEvent(new RecipeChangedEvent(saved.getId(), false));
+    return saved;
+  }
 
+  private Recipe createRecipe(RecipeAddDto recipe, CurrentUser currentUser){
     Recipe newRecipe = new Recipe();
     newRecipe.setRecipeName(recipe.getRecipeName());
     newRecipe.setDifficulty(recipe.getDifficulty());
-    newRecipe.setUser(user);
+    // the filter checked the user exists, only the foreign key is needed
+    newRecipe.setUser(userRepository.getReferenceById(currentUser.id()));
     newRecipe.setLanguage(recipe.getLanguage());
 
     List<Ingredient> newIngredients = recipe.getIngredients().stream().map(i -> {
@@ -132,21 +205,15 @@ public class RecipeServiceImpl implements RecipeService {
 
   @Transactional
   @Override
-  public Recipe updateRecipeWithPhotos(int id, Recipe recipe, List<MultipartFile> images, String token) {
-    Recipe recipeFound = recipeRepository.findById(id).orElseThrow(
+  public Recipe updateRecipeWithPhotos(int id, Recipe recipe, List<MultipartFile> images, CurrentUser currentUser, String ifMatch) {
+    Recipe recipeFound = recipeRepository.findForUpdateById(id).orElseThrow(
       () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", id)));
    
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity currentUser = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
-   
-    // Check if user is owner or admin
-    boolean isOwner = recipeFound.getUser().getId() == currentUser.getId();
-    boolean isAdmin = jwtService.hasRole(token.substring(7), "ADMIN");
-    
-    if (!isOwner && !isAdmin) {
+    if (!isOwnerOrAdmin(recipeFound, currentUser)) {
        throw new UnauthorizedException("You can edit only your own recipes!");
     }
+    // after the owner check, so only the owner learns whether the version matched
+    checkVersion(recipeFound, ifMatch);
 
     recipeFound.setRecipeName(recipe.getRecipeName());
     recipeFound.setDifficulty(recipe.getDifficulty());
@@ -197,26 +264,19 @@ public class RecipeServiceImpl implements RecipeService {
        recipeFound.getImages().addAll(newImages);
        
     }
-  return recipeRepository.save(recipeFound);
+  return saveAndPublish(recipeFound);
   }
 
   @Transactional
   @Override
-  public Recipe updateRecipeWithoutPhotos(int id, Recipe recipe, String token, boolean keepExistingImages) {
-    Recipe recipeFound = recipeRepository.findById(id).orElseThrow(
+  public Recipe updateRecipeWithoutPhotos(int id, Recipe recipe, CurrentUser currentUser, boolean keepExistingImages, String ifMatch) {
+    Recipe recipeFound = recipeRepository.findForUpdateById(id).orElseThrow(
         () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", id)));
 
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity currentUser = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
-
-    // Check if user is owner or admin
-    boolean isOwner = recipeFound.getUser().getId() == currentUser.getId();
-    boolean isAdmin = jwtService.hasRole(token.substring(7), "ADMIN");
-    
-    if (!isOwner && !isAdmin){
+    if (!isOwnerOrAdmin(recipeFound, currentUser)){
       throw new UnauthorizedException("You can edit only your own recipes!");
     }
+    checkVersion(recipeFound, ifMatch);
     recipeFound.setRecipeName(recipe.getRecipeName());
     recipeFound.setDifficulty(recipe.getDifficulty());
 
@@ -253,59 +313,142 @@ public class RecipeServiceImpl implements RecipeService {
       recipeFound.getImages().clear();
     }
 
-    return recipeRepository.save(recipeFound);
+    return saveAndPublish(recipeFound);
   }
 
-  @Override
-  public boolean isOwner(int id, String token){
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
+  // the owner's id is the recipe's foreign key, reading it does not load the user
+  private static boolean isOwnerOrAdmin(Recipe recipe, CurrentUser currentUser) {
+    return (recipe.getUser() != null && recipe.getUser().getId() == currentUser.id()) || currentUser.isAdmin();
+  }
 
-    Recipe recipe = recipeRepository.findById(id).orElseThrow(
+  @Override
+  public boolean isOwner(int id, CurrentUser currentUser){
+    int ownerId = recipeRepository.findOwnerIdById(id).orElseThrow(
         () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", id)));
-
-    return recipe.getUser().getId() == user.getId();
+    return ownerId == currentUser.id();
   }
 
   @Override
   public RecipeRequestDto getRecipeByPage(int page, int size, List<String> category,
-                                          Integer difficulty, String servings, String prepareTime, Boolean isPublic, String language, List<String> ingredients) {
-    Pagination pagination = new Pagination();
-    RecipeFilter filter = new RecipeFilter(ingredientService);
-    List<Recipe> recipes = recipeRepository.findAll();
-
-    if(isPublic != null && isPublic){
-      recipes = recipes.stream()
-                .filter(recipe -> Boolean.TRUE.equals(recipe.getIsPublic()) == true)
-                .collect(Collectors.toList());
+                                          Integer difficulty, String servings, String prepareTime, Boolean isPublic, String language, List<String> ingredients,
+                                          String sort, String direction) {
+    if (page < 1) {
+      throw new PageDoesNotExistException("Page " + page + " does not exists");
+    }
+    Sort order = RecipeSort.toSort(sort, direction);
+    ListingKey listing = ListingKey.of(category, difficulty, servings, prepareTime, isPublic, language, ingredients);
+    return listingCache.get(listing, page, size, order, () -> {
+      // the catalog keeps recipes in id order, sorted listings are read from the sort indexes
+      if (recipeCatalog != null && order.equals(RecipeSort.DEFAULT)) {
+        return getRecipeByPageFromCatalog(page, size, category, difficulty, servings, prepareTime, isPublic, language,
+            ingredients);
+      }
+      return getRecipeByPageFromDatabase(page, size, order, category, difficulty, servings, prepareTime, isPublic,
+          language, ingredients);
+    });
+  }
+
+  private RecipeRequestDto getRecipeByPageFromDatabase(int page, int size, Sort order, List<String> category,
+                                                       Integer difficulty, String servings, String prepareTime,
+                                                       Boolean isPublic, String language, List<String> ingredients) {
+    Specification<Recipe> filter = listingFilter(category, difficulty, servings, prepareTime, isPublic, language,
+        ingredients);
+    Page<RecipeSummary> recipes = recipeRepository.findSummaries(filter, PageRequest.of(page - 1, size, order));
+    if (recipes.isEmpty()) {
+      throw new PageDoesNotExistException("Page " + page + " does not exists");
+    }
+
+    // the filter sidebar offers the ingredients of the listed recipes
+    recipeRepository.addIngredientNames(recipes.getContent());
+    RecipeRequestDto recipeRequestDto = new RecipeRequestDto();
+    recipeRequestDto.setContent(recipes.getContent());
+    recipeRequestDto.setTotalPages(recipes.getTotalPages());
+    return recipeRequestDto;
+  }
+
+  private RecipeRequestDto getRecipeByPageFromCatalog(int page, int size, List<String> category, Integer difficulty,
+                                                      String servings, String prepareTime, Boolean isPublic,
+                                                      String language, List<String> ingredients) {
+    RecipeCatalog.Page recipes = recipeCatalog.find(category, difficulty, servings, prepareTime, isPublic, language,
+        ingredients, (page - 1) * size, size);
+    if (recipes.ids().isEmpty()) {
+      throw new PageDoesNotExistException("Page " + page + " does not exists");
     }
 
-    List<Recipe> filteredRecipes = filter.filterByParams(category,difficulty,servings,prepareTime,recipes, language, ingredients);
-    List<Recipe> paginatedRecipes = pagination.paginate(page,size,filteredRecipes);
+    List<RecipeSummary> content = findSummariesInOrder(recipes.ids());
+    recipeRepository.addIngredientNames(content);
     RecipeRequestDto recipeRequestDto = new RecipeRequestDto();
-    recipeRequestDto.setContent(paginatedRecipes);
-    recipeRequestDto.setTotalPages(pagination.getTotalPages(size,filteredRecipes));
+    recipeRequestDto.setContent(content);
+    recipeRequestDto.setTotalPages((recipes.total() + size - 1) / size);
     return recipeRequestDto;
   }
 
   @Override
-  public boolean isRecipeFavourite(String token, int recipeId) {
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
+  public RecipeScrollDto getRecipesAfter(String after, int size, List<String> category, Integer difficulty,
+                                         String servings, String prepareTime, Boolean isPublic, String language, List<String> ingredients) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Size has to be greater than 0");
+    }
+    Specification<Recipe> filter = listingFilter(category, difficulty, servings, prepareTime, isPublic, language,
+        ingredients);
+    if (after != null && !after.isEmpty()) {
+      filter = filter.and(RecipeCursor.decode(after).toSpecification());
+    }
 
-    Recipe recipe = recipeRepository.findById(recipeId).orElseThrow(
-        () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", recipeId)));
+    // one extra row tells whether there is a next page, so no COUNT query is needed
+    List<RecipeSummary> recipes = recipeRepository.findSummaries(filter, Sort.by("id"), Limit.of(size + 1));
+    boolean hasNext = recipes.size() > size;
+    List<RecipeSummary> content = hasNext ? recipes.subList(0, size) : recipes;
 
-    return user.getFavouriteRecipes().contains(recipe);
+    RecipeScrollDto recipeScrollDto = new RecipeScrollDto();
+    recipeScrollDto.setContent(content);
+    recipeScrollDto.setHasNext(hasNext);
+    recipeScrollDto.setNext(hasNext ? RecipeCursor.after(content.get(content.size() - 1)).encode() : null);
+    return recipeScrollDto;
   }
 
   @Override
-  public void addRecipeToFavourites(String token, int recipeId) {
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
+  public RecipeFacetsDto getFacets(List<String> category, Integer difficulty, String servings, String prepareTime,
+                                   Boolean isPublic, String language, List<String> ingredients) {
+    ListingKey listing = ListingKey.of(category, difficulty, servings, prepareTime, isPublic, language, ingredients);
+    return facetCache.get(listing, () ->
+        recipeCatalog != null
+            ? recipeCatalog.facets(category, difficulty, servings, prepareTime, isPublic, language, ingredients)
+            : recipeRepository.countFacets(listingFilter(category, difficulty, servings, prepareTime, isPublic,
+                language, ingredients)));
+  }
+
+  // The ingredient filter is answered by the ingredient index and handed to the query as an id list. Ingredients
+  // common enough to match more than MAX_INGREDIENT_MATCHES recipes stay EXISTS subqueries, a long IN list costs more.
+  private Specification<Recipe> listingFilter(List<String> category, Integer difficulty, String servings,
+                                              String prepareTime, Boolean isPublic, String language, List<String> ingredients) {
+    if (ingredients == null || ingredients.isEmpty()) {
+      return RecipeSpecification.filterByParams(category, difficulty, servings, prepareTime, isPublic, language, null);
+    }
+    int[] ids = ingredientIndex.recipesWithAll(ingredients);
+    if (ids.length > MAX_INGREDIENT_MATCHES) {
+      return RecipeSpecification.filterByParams(category, difficulty, servings, prepareTime, isPublic, language,
+          ingredients);
+    }
+    return RecipeSpecification.filterByParams(category, difficulty, servings, prepareTime, isPublic, language, null)
+        .and(RecipeSpecification.idIn(Arrays.stream(ids).boxed().toList()));
+  }
+
+  @Override
+  public boolean isRecipeFavourite(CurrentUser currentUser, int recipeId) {
+    if (recipeRepository.existsByIdAndFavouriteByUsersId(recipeId, currentUser.id())) {
+      return true;
+    }
+    if (!recipeRepository.existsById(recipeId)) {
+      throw new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", recipeId));
+    }
+    return false;
+  }
+
+  @Override
+  public void addRecipeToFavourites(CurrentUser currentUser, int recipeId) {
+    UserEntity user = userRepository.findById(currentUser.id()).orElseThrow(
+      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", currentUser.id())));
     Recipe recipe = recipeRepository.findById(recipeId).orElseThrow(
         () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", recipeId)));
 
@@ -320,10 +463,9 @@ public class RecipeServiceImpl implements RecipeService {
   }
 
   @Override
-  public void deleteRiceFromFavourites(String token, int recipeId) {
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
+  public void deleteRiceFromFavourites(CurrentUser currentUser, int recipeId) {
+    UserEntity user = userRepository.findById(currentUser.id()).orElseThrow(
+      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", currentUser.id())));
     Recipe recipe = recipeRepository.findById(recipeId).orElseThrow(
         () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", recipeId)));
 
@@ -339,18 +481,11 @@ public class RecipeServiceImpl implements RecipeService {
 
   @Transactional
   @Override
-  public void delete(String token, int id) {
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
+  public void delete(CurrentUser currentUser, int id) {
     Recipe recipe = recipeRepository.findById(id).orElseThrow(
         () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", id)));
 
-    // Check if user is owner or admin
-    boolean isOwner = recipe.getUser() != null && recipe.getUser().getId() == user.getId();
-    boolean isAdmin = jwtService.hasRole(token.substring(7), "ADMIN");
-    
-    if (!isOwner && !isAdmin) {
+    if (!isOwnerOrAdmin(recipe, currentUser)) {
        throw new UnauthorizedException("You can delete only your own recipes!");
     }
 
@@ -372,49 +507,61 @@ public class RecipeServiceImpl implements RecipeService {
     
     recipeRepository.save(recipe);
     recipeRepository.delete(recipe);
+    eventPublisher.publishEvent(new RecipeChangedEvent(id, true));
   }
 
   @Override
-  public List<Recipe> searchRecipes(String query) {
-   return recipeRepository.findByRecipeNameQuery(query);
+  public List<RecipeSummary> searchRecipes(String query, int page, int size) {
+    if (page < 1) {
+      throw new PageDoesNotExistException("Page " + page + " does not exists");
+    }
+    if (size < 1) {
+      throw new IllegalArgumentException("Size has to be greater than 0");
+    }
+    if (query == null || query.isBlank()) {
+      return List.of();
+    }
+
+    List<Integer> ids = recipeSearch.search(query.trim(), (page - 1) * size, size);
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    return findSummariesInOrder(ids);
+  }
+
+  // summaries of the given recipes, in the order of the ids
+  private List<RecipeSummary> findSummariesInOrder(List<Integer> ids) {
+    Map<Integer, RecipeSummary> summaries = recipeRepository.findSummaries(RecipeSpecification.idIn(ids), Sort.unsorted(),
+        Limit.unlimited()).stream().collect(Collectors.toMap(RecipeSummary::getId, Function.identity()));
+    return ids.stream().map(summaries::get).filter(Objects::nonNull).toList();
+  }
+
+  @Override
+  public List<String> suggest(String prefix, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("Limit has to be greater than 0");
+    }
+    if (prefix == null || prefix.isBlank()) {
+      return List.of();
+    }
+    return recipeSuggester.suggest(prefix, limit);
   }
   
   @Transactional
   @Override
-  public Recipe rating(int id, String token, int rating){
+  public void rating(int id, CurrentUser currentUser, int rating){
     if (rating < 1 || rating > 5){
       throw new IllegalArgumentException("Rating has to be from 1 to 5");
     }
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
-
-    Recipe recipe = recipeRepository.findById(id).orElseThrow(
-        () -> new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", id)));
-
-    Optional<Rating> existingRating = ratingRepository.findByRecipeIdAndUserId(id, userId);
-    
-    if (existingRating.isPresent()) {
-        Rating rating1 = existingRating.get();
-        rating1.setValue(rating);
-        ratingRepository.save(rating1);
-    } else {
-        Rating newRating = new Rating();
-        newRating.setRecipe(recipe);
-        newRating.setValue(rating);
-        newRating.setUser(user);
-        ratingRepository.save(newRating);
+    if (!ratingRepository.upsert(id, currentUser.id(), rating)) {
+      throw new RecipeNotFoundException(String.format("Recipe with id: %s does not exist in the database", id));
     }
-    return recipe;
+    eventPublisher.publishEvent(new RecipeRatedEvent(id));
   }
 
   @Override
-  public int getUserRating(int recipeId, String token){
-    int userId = jwtService.extractId(token.substring(7));
-    userRepository.findById(userId).orElseThrow(
-      () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", userId)));
-    
-    Optional<Rating> userRating = ratingRepository.findByRecipeIdAndUserId(recipeId, userId);
+  public int getUserRating(int recipeId, CurrentUser currentUser){
+    Optional<Rating> userRating = ratingRepository.findByRecipeIdAndUserId(recipeId, currentUser.id());
 
     return userRating.map(Rating::getValue).orElse(0);
   }
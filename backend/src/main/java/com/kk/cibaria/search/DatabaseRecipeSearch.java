@@ -0,0 +1,46 @@
+package com.kk.cibaria.search;
+
+import java.util.List;
+
+import com.kk.cibaria.helper.DatabasePlatform;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Postgres: ranked full-text search over recipe.search_vector (see RecipeSearchVector).
+// The query is parsed with both configs, so it matches stemmed English recipes as well as the 'simple' ones.
+// Other databases (H2 in tests) fall back to a case-insensitive substring match on the name.
+@Component
+@ConditionalOnProperty(name = "cibaria.search.engine", havingValue = "database", matchIfMissing = true)
+public class DatabaseRecipeSearch implements RecipeSearch {
+
+    private static final String POSTGRES_SEARCH = """
+            SELECT r.id FROM recipe r,
+              (SELECT websearch_to_tsquery('english', :query) || websearch_to_tsquery('simple', :query) AS q) AS t
+            WHERE r.search_vector @@ t.q
+            ORDER BY ts_rank(r.search_vector, t.q) DESC, r.id
+            LIMIT :limit OFFSET :offset""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Integer> search(String query, int offset, int limit) {
+        if (!DatabasePlatform.isPostgres(entityManager)) {
+            return entityManager.createQuery(
+                            "SELECT r.id FROM Recipe r WHERE lower(r.recipeName) LIKE :pattern ORDER BY r.id", Integer.class)
+                    .setParameter("pattern", "%" + query.toLowerCase() + "%")
+                    .setFirstResult(offset)
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        List<Number> ids = entityManager.createNativeQuery(POSTGRES_SEARCH)
+                .setParameter("query", query)
+                .setParameter("limit", limit)
+                .setParameter("offset", offset)
+                .getResultList();
+        return ids.stream().map(Number::intValue).toList();
+    }
+}
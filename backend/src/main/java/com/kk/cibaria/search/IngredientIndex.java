@@ -0,0 +1,136 @@
+package com.kk.cibaria.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import com.kk.cibaria.recipe.RecipeCatalogVersion;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Ingredient name (trimmed, lower case) -> ids of the recipes using it, for the "contains all of" ingredient filter.
+// The shortest posting list is intersected with the others. Built on startup and updated after every committed
+// recipe change, rebuild and updates share one monitor like NgramRecipeSearch.
+@Component
+public class IngredientIndex implements ApplicationRunner {
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Set<String>> recipeIngredients = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // sorted ids of the recipes containing every given ingredient
+    public int[] recipesWithAll(Collection<String> ingredients) {
+        Set<String> keys = ingredients.stream().map(IngredientIndex::normalize).collect(Collectors.toSet());
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (String key : keys) {
+                Postings list = postings.get(key);
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+            if (lists.isEmpty()) {
+                return new int[0];
+            }
+            lists.sort(Comparator.comparingInt(Postings::size));
+            int[] result = lists.get(0).toArray();
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = lists.get(i).retain(result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public synchronized void run(ApplicationArguments args) {
+        Map<Integer, List<String>> all = new HashMap<>();
+        entityManager.createQuery("SELECT i.recipe.id, i.ingredientName FROM Ingredient i WHERE i.recipe IS NOT NULL",
+                        Object[].class)
+                .getResultList()
+                .forEach(row -> all.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((String) row[1]));
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            recipeIngredients.clear();
+            all.forEach(this::putUnlocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Order(RecipeCatalogVersion.INDEXES)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        List<String> ingredients = event.deleted() ? List.of() : entityManager.createQuery(
+                        "SELECT i.ingredientName FROM Ingredient i WHERE i.recipe.id = :id", String.class)
+                .setParameter("id", event.recipeId())
+                .getResultList();
+        put(event.recipeId(), ingredients);
+    }
+
+    void put(int recipeId, List<String> ingredients) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(recipeId);
+            putUnlocked(recipeId, ingredients);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putUnlocked(int recipeId, List<String> ingredients) {
+        Set<String> keys = new HashSet<>();
+        ingredients.stream().filter(Objects::nonNull).map(IngredientIndex::normalize).forEach(keys::add);
+        if (keys.isEmpty()) {
+            return;
+        }
+        recipeIngredients.put(recipeId, keys);
+        keys.forEach(key -> postings.computeIfAbsent(key, k -> new Postings()).add(recipeId));
+    }
+
+    private void removeUnlocked(int recipeId) {
+        Set<String> previous = recipeIngredients.remove(recipeId);
+        if (previous == null) {
+            return;
+        }
+        for (String key : previous) {
+            Postings list = postings.get(key);
+            if (list != null && list.remove(recipeId) && list.size() == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    public static String normalize(String ingredient) {
+        return ingredient.trim().toLowerCase(Locale.ROOT);
+    }
+}
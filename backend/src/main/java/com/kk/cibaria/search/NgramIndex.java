@@ -0,0 +1,186 @@
+package com.kk.cibaria.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+// Trigram inverted index over recipe names and ingredient names. Every trigram maps to the sorted ids of the recipes
+// containing it, a query term is narrowed down by intersecting the lists of its trigrams and then checked against
+// the stored text, so the trigrams only have to prefilter. Terms shorter than a trigram are checked on every recipe.
+class NgramIndex {
+
+    static final int GRAM = 3;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void put(int id, String name, List<String> ingredients) {
+        Document document = Document.of(name, ingredients);
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            documents.put(id, document);
+            for (long gram : document.grams()) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // empties the index before the startup rebuild refills it
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // every whitespace separated term has to be a substring of the name or of one ingredient,
+    // recipes matching all terms in the name come first, then by id
+    List<Integer> search(String query, int offset, int limit) {
+        String[] terms = query.toLowerCase(Locale.ROOT).trim().split("\\s+");
+        lock.readLock().lock();
+        try {
+            List<Integer> matches = new ArrayList<>();
+            for (int id : candidates(terms)) {
+                if (documents.get(id).matches(terms)) {
+                    matches.add(id);
+                }
+            }
+            matches.sort(Comparator.comparing((Integer id) -> !documents.get(id).nameMatches(terms))
+                    .thenComparing(Comparator.naturalOrder()));
+            if (offset >= matches.size()) {
+                return List.of();
+            }
+            return List.copyOf(matches.subList(offset, Math.min(matches.size(), offset + limit)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // rough heap usage: posting arrays, map entries with their boxed keys, and the stored text
+    long estimatedSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (Postings list : postings.values()) {
+                bytes += 48 + 16 + 16 + 16 + 4L * list.capacity();
+            }
+            for (Document document : documents.values()) {
+                bytes += 48 + 16 + 16 + 40 + document.name.length();
+                for (String ingredient : document.ingredients) {
+                    bytes += 40 + ingredient.length() + 8;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeUnlocked(int id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (long gram : previous.grams()) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(id) && list.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private int[] candidates(String[] terms) {
+        int[] result = null;
+        for (String term : terms) {
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                Postings list = postings.get(gram(term, i));
+                if (list == null) {
+                    return new int[0];
+                }
+                result = result == null ? list.toArray() : list.retain(result);
+                if (result.length == 0) {
+                    return result;
+                }
+            }
+        }
+        if (result == null) {
+            return documents.keySet().stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    static long gram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private record Document(String name, List<String> ingredients) {
+
+        static Document of(String name, List<String> ingredients) {
+            return new Document(name == null ? "" : name.toLowerCase(Locale.ROOT),
+                    ingredients.stream()
+                            .filter(Objects::nonNull)
+                            .map(ingredient -> ingredient.toLowerCase(Locale.ROOT))
+                            .toList());
+        }
+
+        long[] grams() {
+            List<String> texts = new ArrayList<>(ingredients);
+            texts.add(name);
+            return texts.stream()
+                    .flatMapToLong(text -> IntStream.rangeClosed(0, text.length() - GRAM)
+                            .mapToLong(i -> gram(text, i)))
+                    .distinct()
+                    .toArray();
+        }
+
+        boolean matches(String[] terms) {
+            for (String term : terms) {
+                if (!name.contains(term) && ingredients.stream().noneMatch(ingredient -> ingredient.contains(term))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean nameMatches(String[] terms) {
+            for (String term : terms) {
+                if (!name.contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
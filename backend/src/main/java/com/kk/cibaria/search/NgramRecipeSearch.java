@@ -0,0 +1,96 @@
+package com.kk.cibaria.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// In-memory search engine (cibaria.search.engine=ngram) for databases without full-text search. The index is built
+// from the database on startup and kept up to date after every committed recipe change, searching never hits the
+// database. Rebuild and updates share one monitor, so a change committed during the rebuild is applied after it.
+@Component
+@ConditionalOnProperty(name = "cibaria.search.engine", havingValue = "ngram")
+public class NgramRecipeSearch implements RecipeSearch, ApplicationRunner, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(NgramRecipeSearch.class);
+
+    private final NgramIndex index = new NgramIndex();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Integer> search(String query, int offset, int limit) {
+        return index.search(query, offset, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public synchronized void run(ApplicationArguments args) {
+        Map<Integer, List<String>> ingredients = new HashMap<>();
+        entityManager.createQuery("SELECT i.recipe.id, i.ingredientName FROM Ingredient i WHERE i.recipe IS NOT NULL",
+                        Object[].class)
+                .getResultList()
+                .forEach(row -> ingredients.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((String) row[1]));
+        List<Object[]> recipes = entityManager.createQuery("SELECT r.id, r.recipeName FROM Recipe r", Object[].class)
+                .getResultList();
+
+        index.clear();
+        for (Object[] recipe : recipes) {
+            int id = (Integer) recipe[0];
+            index.put(id, (String) recipe[1], ingredients.getOrDefault(id, List.of()));
+        }
+        log.info("Indexed {} recipes for search", recipes.size());
+    }
+
+    // reads the committed recipe in its own transaction, the one that published the event is already over
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.deleted()) {
+            index.remove(event.recipeId());
+            return;
+        }
+        List<String> names = entityManager.createQuery("SELECT r.recipeName FROM Recipe r WHERE r.id = :id", String.class)
+                .setParameter("id", event.recipeId())
+                .getResultList();
+        if (names.isEmpty()) {
+            index.remove(event.recipeId());
+            return;
+        }
+        List<String> ingredients = entityManager.createQuery(
+                        "SELECT i.ingredientName FROM Ingredient i WHERE i.recipe.id = :id", String.class)
+                .setParameter("id", event.recipeId())
+                .getResultList();
+        index.put(event.recipeId(), names.get(0), ingredients);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("recipes.search.index.size", index, NgramIndex::estimatedSizeInBytes)
+                .description("Estimated heap used by the in-memory recipe search index")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("recipes.search.index.recipes", index, NgramIndex::size)
+                .description("Recipes in the in-memory recipe search index")
+                .register(registry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.kk.cibaria.search;
+
+import java.util.Arrays;
+
+// Sorted, growable int array of recipe ids, the posting list of the in-memory indexes
+class Postings {
+
+    private int[] ids = new int[2];
+    private int size;
+
+    void add(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+
+    boolean remove(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return ids.length;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    // the ids of the given sorted array that are also in this list. A much shorter array is looked up id by id
+    // with binary search, otherwise both are merged.
+    int[] retain(int[] other) {
+        int[] result = new int[Math.min(size, other.length)];
+        int count = 0;
+        if ((long) other.length * 32 < size) {
+            for (int id : other) {
+                if (Arrays.binarySearch(ids, 0, size, id) >= 0) {
+                    result[count++] = id;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.length) {
+            if (ids[i] < other[j]) {
+                i++;
+            } else if (ids[i] > other[j]) {
+                j++;
+            } else {
+                result[count++] = ids[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,8 @@
+package com.kk.cibaria.search;
+
+import java.util.List;
+
+public interface RecipeSearch {
+    // ids of the matching recipes, best match first
+    List<Integer> search(String query, int offset, int limit);
+}
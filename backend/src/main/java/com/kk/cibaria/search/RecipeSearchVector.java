@@ -0,0 +1,69 @@
+package com.kk.cibaria.search;
+
+import com.kk.cibaria.helper.DatabasePlatform;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Maintains recipe.search_vector, the tsvector behind the Postgres full-text search. Hibernate does not know the
+// column, it is created here on startup together with its GIN index. Name weighs most (A), then ingredients (B),
+// then steps (C). English recipes are stemmed, others use 'simple' since Postgres has no Polish dictionary.
+@Component
+@ConditionalOnProperty(name = "cibaria.search.engine", havingValue = "database", matchIfMissing = true)
+public class RecipeSearchVector implements ApplicationRunner {
+
+    private static final String CONFIG = "(CASE lower(r.language) WHEN 'en' THEN 'english' ELSE 'simple' END)::regconfig";
+
+    private static final String VECTOR = """
+            setweight(to_tsvector(%1$s, coalesce(r.recipe_name, '')), 'A')
+            || setweight(to_tsvector(%1$s, coalesce((SELECT string_agg(i.ingredient_name, ' ') FROM ingredient i
+                                                     WHERE i.recipe_id = r.id), '')), 'B')
+            || setweight(to_tsvector(%1$s, coalesce((SELECT string_agg(s.content, ' ') FROM step s
+                                                     WHERE s.recipe_id = r.id), '')), 'C')""".formatted(CONFIG);
+
+    private static final String REFRESH = "UPDATE recipe r SET search_vector = " + VECTOR + " WHERE r.id = :id";
+
+    private static final String REFRESH_MISSING = "UPDATE recipe r SET search_vector = " + VECTOR
+            + " WHERE r.search_vector IS NULL";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        if (!DatabasePlatform.isPostgres(entityManager)) {
+            return;
+        }
+        entityManager.createNativeQuery("ALTER TABLE recipe ADD COLUMN IF NOT EXISTS search_vector tsvector")
+                .executeUpdate();
+        entityManager.createNativeQuery(
+                        "CREATE INDEX IF NOT EXISTS recipe_search_vector_idx ON recipe USING GIN (search_vector)")
+                .executeUpdate();
+        entityManager.createNativeQuery(REFRESH_MISSING).executeUpdate();
+    }
+
+    // runs inside the writing transaction (the service write paths are all transactional),
+    // so the vector commits together with the recipe. The column is unknown to Hibernate: the pending ingredients
+    // and steps are flushed by hand and the query space names no entity, so no second-level cache region is cleared
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.deleted() || !DatabasePlatform.isPostgres(entityManager)) {
+            return;
+        }
+        entityManager.flush();
+        entityManager.createNativeQuery(REFRESH)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("recipe_search_vector")
+                .setParameter("id", event.recipeId())
+                .executeUpdate();
+    }
+}
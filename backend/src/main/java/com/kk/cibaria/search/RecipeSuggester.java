@@ -0,0 +1,72 @@
+package com.kk.cibaria.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import com.kk.cibaria.search.SuggestionIndex.RecipeTerms;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Typeahead over the names and ingredients of public recipes. A recipe weighs 1 + its number of ratings, so terms
+// of popular recipes come first. Loaded on startup and updated after every committed recipe change, rating changes
+// are picked up with the next change of the recipe.
+@Component
+public class RecipeSuggester implements ApplicationRunner {
+
+    private final SuggestionIndex index = new SuggestionIndex();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public List<String> suggest(String prefix, int limit) {
+        return index.suggest(prefix, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public synchronized void run(ApplicationArguments args) {
+        Map<Integer, List<String>> ingredients = new HashMap<>();
+        entityManager.createQuery("""
+                        SELECT i.recipe.id, i.ingredientName FROM Ingredient i
+                        WHERE i.recipe.isPublic = true""", Object[].class)
+                .getResultList()
+                .forEach(row -> ingredients.computeIfAbsent((Integer) row[0], id -> new ArrayList<>()).add((String) row[1]));
+
+        Map<Integer, RecipeTerms> recipes = new HashMap<>();
+        entityManager.createQuery("SELECT r.id, r.recipeName, r.ratingCount FROM Recipe r WHERE r.isPublic = true",
+                        Object[].class)
+                .getResultList()
+                .forEach(row -> recipes.put((Integer) row[0], new RecipeTerms((String) row[1],
+                        ingredients.getOrDefault((Integer) row[0], List.of()), 1 + (Integer) row[2])));
+        index.replaceAll(recipes);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onRecipeChanged(RecipeChangedEvent event) {
+        List<Object[]> rows = event.deleted() ? List.of() : entityManager.createQuery(
+                        "SELECT r.recipeName, r.ratingCount FROM Recipe r WHERE r.id = :id AND r.isPublic = true",
+                        Object[].class)
+                .setParameter("id", event.recipeId())
+                .getResultList();
+        if (rows.isEmpty()) {
+            index.remove(event.recipeId());
+            return;
+        }
+        List<String> ingredients = entityManager.createQuery(
+                        "SELECT i.ingredientName FROM Ingredient i WHERE i.recipe.id = :id", String.class)
+                .setParameter("id", event.recipeId())
+                .getResultList();
+        index.put(event.recipeId(), new RecipeTerms((String) rows.get(0)[0], ingredients, 1 + (Integer) rows.get(0)[1]));
+    }
+}
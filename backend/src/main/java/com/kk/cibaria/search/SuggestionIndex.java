@@ -0,0 +1,272 @@
+package com.kk.cibaria.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Prefix lookup over recipe names and ingredient names. Every distinct (case-insensitive) term is scored by the
+// recipes it appears in, each recipe adds its weight. Lookups read an immutable snapshot - the terms sorted by key,
+// searched with binary search - and the top terms of all one and two letter prefixes are kept up front, since
+// those are the widest ranges. A recipe change only touches its own terms, so the next snapshot is derived from the
+// current one: the changed terms are merged into copies of the sorted arrays and only their short prefixes are
+// updated, a prefix range is rescanned only when one of its top terms lost score.
+class SuggestionIndex {
+
+    static final int MAX_LIMIT = 20;
+    static final int CACHED_PREFIX_LENGTH = 2;
+
+    record RecipeTerms(String name, List<String> ingredients, int weight) {
+    }
+
+    private final Map<Integer, RecipeTerms> recipes = new HashMap<>();
+    private final Map<String, Term> terms = new HashMap<>();
+    private volatile Snapshot snapshot = Snapshot.build(Map.of());
+
+    List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        return snapshot.suggest(key, Math.min(limit, MAX_LIMIT));
+    }
+
+    synchronized void put(int recipeId, RecipeTerms recipe) {
+        Set<String> changed = new HashSet<>(keys(recipe));
+        RecipeTerms previous = removeUnlocked(recipeId);
+        if (previous != null) {
+            changed.addAll(keys(previous));
+        }
+        addUnlocked(recipeId, recipe);
+        snapshot = snapshot.with(changed, terms);
+    }
+
+    synchronized void remove(int recipeId) {
+        RecipeTerms previous = removeUnlocked(recipeId);
+        if (previous != null) {
+            snapshot = snapshot.with(keys(previous), terms);
+        }
+    }
+
+    synchronized void replaceAll(Map<Integer, RecipeTerms> all) {
+        recipes.clear();
+        terms.clear();
+        all.forEach(this::addUnlocked);
+        snapshot = Snapshot.build(terms);
+    }
+
+    int size() {
+        return snapshot.keys.length;
+    }
+
+    private void addUnlocked(int recipeId, RecipeTerms recipe) {
+        recipes.put(recipeId, recipe);
+        for (String text : texts(recipe)) {
+            terms.computeIfAbsent(normalize(text), key -> new Term(text.trim())).score += recipe.weight();
+        }
+    }
+
+    private RecipeTerms removeUnlocked(int recipeId) {
+        RecipeTerms previous = recipes.remove(recipeId);
+        if (previous == null) {
+            return null;
+        }
+        for (String text : texts(previous)) {
+            String key = normalize(text);
+            Term term = terms.get(key);
+            if (term == null) {
+                continue;
+            }
+            term.score -= previous.weight();
+            if (term.score <= 0) {
+                terms.remove(key);
+            }
+        }
+        return previous;
+    }
+
+    // the name and the ingredients of one recipe, each distinct term counted once
+    private static Set<String> texts(RecipeTerms recipe) {
+        Map<String, String> byKey = new HashMap<>();
+        if (recipe.name() != null) {
+            byKey.putIfAbsent(normalize(recipe.name()), recipe.name());
+        }
+        recipe.ingredients().stream().filter(Objects::nonNull)
+                .forEach(ingredient -> byKey.putIfAbsent(normalize(ingredient), ingredient));
+        byKey.remove("");
+        return new LinkedHashSet<>(byKey.values());
+    }
+
+    private static Set<String> keys(RecipeTerms recipe) {
+        Set<String> keys = new HashSet<>();
+        texts(recipe).forEach(text -> keys.add(normalize(text)));
+        return keys;
+    }
+
+    static String normalize(String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Term {
+
+        private final String display;
+        private int score;
+
+        Term(String display) {
+            this.display = display;
+        }
+    }
+
+    private record Suggestion(String key, String display, int score) {
+    }
+
+    // highest score first, ties in key order
+    private static final Comparator<Suggestion> RANKING =
+            Comparator.comparingInt(Suggestion::score).reversed().thenComparing(Suggestion::key);
+
+    private static final class Snapshot {
+
+        private final String[] keys;
+        private final String[] displays;
+        private final int[] scores;
+        private final Map<String, List<Suggestion>> shortPrefixes;
+
+        private Snapshot(String[] keys, String[] displays, int[] scores, Map<String, List<Suggestion>> shortPrefixes) {
+            this.keys = keys;
+            this.displays = displays;
+            this.scores = scores;
+            this.shortPrefixes = shortPrefixes;
+        }
+
+        static Snapshot build(Map<String, Term> terms) {
+            String[] keys = terms.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            String[] displays = new String[keys.length];
+            int[] scores = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                Term term = terms.get(keys[i]);
+                displays[i] = term.display;
+                scores[i] = term.score;
+            }
+
+            Set<String> prefixes = new HashSet<>();
+            for (String key : keys) {
+                addShortPrefixes(key, prefixes);
+            }
+            Snapshot snapshot = new Snapshot(keys, displays, scores, new HashMap<>());
+            prefixes.forEach(prefix -> snapshot.shortPrefixes.put(prefix, snapshot.top(prefix, MAX_LIMIT)));
+            return snapshot;
+        }
+
+        // the next snapshot, with the changed keys set to their current terms (gone when absent from terms)
+        Snapshot with(Set<String> changed, Map<String, Term> terms) {
+            String[] sorted = changed.toArray(new String[0]);
+            Arrays.sort(sorted);
+            int length = keys.length;
+            for (String key : sorted) {
+                boolean present = Arrays.binarySearch(keys, key) >= 0;
+                boolean kept = terms.containsKey(key);
+                length += present == kept ? 0 : kept ? 1 : -1;
+            }
+
+            String[] nextKeys = new String[length];
+            String[] nextDisplays = new String[length];
+            int[] nextScores = new int[length];
+            int read = 0;
+            int write = 0;
+            for (String key : sorted) {
+                int index = Arrays.binarySearch(keys, key);
+                int at = index >= 0 ? index : -index - 1;
+                System.arraycopy(keys, read, nextKeys, write, at - read);
+                System.arraycopy(displays, read, nextDisplays, write, at - read);
+                System.arraycopy(scores, read, nextScores, write, at - read);
+                write += at - read;
+                read = index >= 0 ? at + 1 : at;
+                Term term = terms.get(key);
+                if (term != null) {
+                    nextKeys[write] = key;
+                    nextDisplays[write] = term.display;
+                    nextScores[write] = term.score;
+                    write++;
+                }
+            }
+            System.arraycopy(keys, read, nextKeys, write, keys.length - read);
+            System.arraycopy(displays, read, nextDisplays, write, keys.length - read);
+            System.arraycopy(scores, read, nextScores, write, keys.length - read);
+
+            Snapshot next = new Snapshot(nextKeys, nextDisplays, nextScores, new HashMap<>(shortPrefixes));
+            Set<String> prefixes = new HashSet<>();
+            for (String key : sorted) {
+                addShortPrefixes(key, prefixes);
+            }
+            for (String prefix : prefixes) {
+                List<Suggestion> top = next.updatedTop(shortPrefixes.getOrDefault(prefix, List.of()), prefix, changed,
+                        terms);
+                if (top.isEmpty()) {
+                    next.shortPrefixes.remove(prefix);
+                } else {
+                    next.shortPrefixes.put(prefix, top);
+                }
+            }
+            return next;
+        }
+
+        // the top terms of a short prefix after a change: the changed terms are re-ranked against the previous top,
+        // which is only incomplete when it was full and one of its terms lost score
+        private List<Suggestion> updatedTop(List<Suggestion> previous, String prefix, Set<String> changed,
+                Map<String, Term> terms) {
+            List<Suggestion> candidates = new ArrayList<>();
+            for (Suggestion suggestion : previous) {
+                if (!changed.contains(suggestion.key())) {
+                    candidates.add(suggestion);
+                    continue;
+                }
+                Term term = terms.get(suggestion.key());
+                if (previous.size() == MAX_LIMIT && (term == null || term.score < suggestion.score())) {
+                    return top(prefix, MAX_LIMIT);
+                }
+            }
+            for (String key : changed) {
+                Term term = terms.get(key);
+                if (term != null && key.startsWith(prefix)) {
+                    candidates.add(new Suggestion(key, term.display, term.score));
+                }
+            }
+            candidates.sort(RANKING);
+            return List.copyOf(candidates.subList(0, Math.min(MAX_LIMIT, candidates.size())));
+        }
+
+        List<String> suggest(String prefix, int limit) {
+            List<Suggestion> top = prefix.length() <= CACHED_PREFIX_LENGTH
+                    ? shortPrefixes.getOrDefault(prefix, List.of())
+                    : top(prefix, limit);
+            return top.stream().limit(limit).map(Suggestion::display).toList();
+        }
+
+        private List<Suggestion> top(String prefix, int limit) {
+            List<Suggestion> matches = new ArrayList<>();
+            for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+                matches.add(new Suggestion(keys[i], displays[i], scores[i]));
+            }
+            return matches.stream().sorted(RANKING).limit(limit).toList();
+        }
+
+        private int lowerBound(String prefix) {
+            int index = Arrays.binarySearch(keys, prefix);
+            return index >= 0 ? index : -index - 1;
+        }
+
+        private static void addShortPrefixes(String key, Set<String> prefixes) {
+            for (int length = 1; length <= Math.min(CACHED_PREFIX_LENGTH, key.length()); length++) {
+                prefixes.add(key.substring(0, length));
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.kk.cibaria.security;
+
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import com.kk.cibaria.user.UserEntity;
+
+// The principal DaoAuthenticationProvider hands back after a login, keeping the entity it was loaded from so the token
+// can be minted without loading the user again
+public class AuthenticatedUser extends User {
+
+  private final transient UserEntity user;
+
+  public AuthenticatedUser(UserEntity user, Collection<? extends GrantedAuthority> authorities) {
+    super(user.getEmail(), user.getPassword(), authorities);
+    this.user = user;
+  }
+
+  public UserEntity getUser() {
+    return user;
+  }
+}
@@ -0,0 +1,17 @@
+package com.kk.cibaria.security;
+
+import java.util.List;
+
+import com.kk.cibaria.security.jwt.JwtPrincipal;
+
+// The caller of a request as the filter verified it, passed by controllers to the services instead of the raw token
+public record CurrentUser(int id, List<String> roles) {
+
+  public static CurrentUser of(JwtPrincipal principal) {
+    return new CurrentUser(principal.id(), principal.roles());
+  }
+
+  public boolean isAdmin() {
+    return roles.contains("ADMIN");
+  }
+}
@@ -0,0 +1,30 @@
+package com.kk.cibaria.security;
+
+import com.kk.cibaria.exception.UnauthorizedException;
+import com.kk.cibaria.security.jwt.JwtPrincipal;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+// Fills CurrentUser handler parameters from the principal JwtAuthenticationFilter put in the security context
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+  @Override
+  public boolean supportsParameter(MethodParameter parameter) {
+    return parameter.getParameterType() == CurrentUser.class;
+  }
+
+  @Override
+  public CurrentUser resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                     NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+      return CurrentUser.of(principal);
+    }
+    throw new UnauthorizedException("Missing or invalid token");
+  }
+}
@@ -0,0 +1,131 @@
+package com.kk.cibaria.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.kk.cibaria.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// BCrypt on a pool of its own, one thread per core, instead of on the request threads: a burst of logins queues here
+// while the rest of the API keeps its workers, and once the queue is full further attempts fail at once with a
+// PasswordHashingBusyException (503) rather than piling up.
+public class PasswordHasher implements PasswordEncoder, MeterBinder, AutoCloseable {
+
+  private static final Pattern BCRYPT = Pattern.compile("^\\$2[abxy]?\\$(\\d\\d)\\$");
+
+  private final int cost;
+  private final BCryptPasswordEncoder bcrypt;
+  private final ThreadPoolExecutor executor;
+
+  // meters work before the application registry is bound and report into it afterwards
+  private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+  private final Timer encodeTimer;
+  private final Timer matchTimer;
+  private final Timer waitTimer;
+  private final Counter rejected;
+
+  public PasswordHasher(int cost, int threads, int queueCapacity) {
+    this.cost = cost;
+    this.bcrypt = new BCryptPasswordEncoder(cost);
+    AtomicInteger count = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), task -> {
+          Thread thread = new Thread(task, "password-hash-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    this.encodeTimer = hashTimer("encode");
+    this.matchTimer = hashTimer("matches");
+    this.waitTimer = Timer.builder("security.password.wait")
+        .description("Time a password waited in the queue before a hashing thread took it")
+        .register(meters);
+    this.rejected = Counter.builder("security.password.rejected")
+        .description("Password checks turned away because the hashing queue was full")
+        .register(meters);
+  }
+
+  private Timer hashTimer(String operation) {
+    return Timer.builder("security.password.hash")
+        .description("Time spent hashing or verifying a password")
+        .tag("operation", operation)
+        .register(meters);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(encodeTimer, () -> bcrypt.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(matchTimer, () -> bcrypt.matches(rawPassword, encodedPassword));
+  }
+
+  // any BCrypt hash made with another cost than the configured one, in either direction, is rehashed by
+  // DaoAuthenticationProvider on the next successful login
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    if (encodedPassword == null) {
+      return false;
+    }
+    Matcher matcher = BCRYPT.matcher(encodedPassword);
+    return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+  }
+
+  private <T> T run(Timer timer, Callable<T> hashing) {
+    long queuedAt = System.nanoTime();
+    Future<T> result;
+    try {
+      result = executor.submit(() -> {
+        waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        return timer.recordCallable(hashing);
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new PasswordHashingBusyException("Too many password checks right now, try again in a moment");
+    }
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      result.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing a password", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    meters.add(registry);
+    Gauge.builder("security.password.queue", executor, pool -> pool.getQueue().size())
+        .description("Passwords waiting for a hashing thread")
+        .register(registry);
+    Gauge.builder("security.password.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Hashing threads busy with a password")
+        .register(registry);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
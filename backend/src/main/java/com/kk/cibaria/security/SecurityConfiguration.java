@@ -1,6 +1,10 @@
 package com.kk.cibaria.security;
 
 import com.kk.cibaria.security.jwt.JwtAuthenticationFilter;
+import com.kk.cibaria.security.ratelimit.RateLimitFilter;
+import com.kk.cibaria.security.ratelimit.RateLimitProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,7 +15,6 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -24,22 +27,27 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfiguration {
 
   private UserDetailService userDetailService;
 
   private JwtAuthenticationFilter authenticationFilter;
 
-  public SecurityConfiguration(UserDetailService userDetailService, JwtAuthenticationFilter authenticationFilter) {
+  private RateLimitFilter rateLimitFilter;
+
+  public SecurityConfiguration(UserDetailService userDetailService, JwtAuthenticationFilter authenticationFilter,
+      RateLimitFilter rateLimitFilter) {
     this.userDetailService = userDetailService;
     this.authenticationFilter = authenticationFilter;
+    this.rateLimitFilter = rateLimitFilter;
   }
 
   @Bean
   public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
     http.authorizeHttpRequests(req -> {
-      req.requestMatchers("/api/authenticate", "/api/register").permitAll();
-      req.requestMatchers("/authenticate", "/register").permitAll();
+      req.requestMatchers("/api/authenticate", "/api/register", "/api/register/available").permitAll();
+      req.requestMatchers("/authenticate", "/register", "/register/available").permitAll();
       req.requestMatchers(HttpMethod.GET, "/recipes/**").permitAll();
       req.requestMatchers(HttpMethod.POST, "/recipes").authenticated();
       req.requestMatchers(HttpMethod.PUT, "/recipes/**").authenticated(); 
@@ -47,6 +55,7 @@ public class SecurityConfiguration {
       req.requestMatchers("/image/**").permitAll();
       req.requestMatchers("/api/recipes/**", "/api/image/**").permitAll();
       req.requestMatchers("/admin/**").hasRole("ADMIN");
+      req.requestMatchers("/actuator/**").hasRole("ADMIN");
       req.requestMatchers("/users/**").authenticated();
       req.anyRequest().authenticated();
     });
@@ -55,26 +64,33 @@ public class SecurityConfiguration {
     http.cors(Customizer.withDefaults());
     http.httpBasic(Customizer.withDefaults());
     http.addFilterBefore(authenticationFilter, UsernamePasswordAuthenticationFilter.class);
+    // same slot as the JWT filter and added after it, so it runs second and sees the authenticated user
+    http.addFilterBefore(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);
 
     return http.build();
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordHasher passwordEncoder(@Value("${cibaria.password.cost:10}") int cost,
+      @Value("${cibaria.password.threads:0}") int threads,
+      @Value("${cibaria.password.queue-capacity:32}") int queueCapacity) {
+    return new PasswordHasher(cost, threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+        queueCapacity);
   }
 
   @Bean
-  public AuthenticationProvider authenticationProvider() {
+  public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
     DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-    provider.setPasswordEncoder(passwordEncoder());
+    provider.setPasswordEncoder(passwordEncoder);
     provider.setUserDetailsService(userDetailService);
+    // rehashes the stored password on login when it was hashed with another cost
+    provider.setUserDetailsPasswordService(userDetailService);
     return provider;
   }
 
   @Bean
-  public AuthenticationManager authenticationManager() {
-    return new ProviderManager(authenticationProvider());
+  public AuthenticationManager authenticationManager(AuthenticationProvider authenticationProvider) {
+    return new ProviderManager(authenticationProvider);
   }
 
   @Bean
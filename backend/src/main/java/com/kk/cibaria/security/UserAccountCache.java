@@ -0,0 +1,62 @@
+package com.kk.cibaria.security;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kk.cibaria.security.jwt.JwtPrincipal;
+import com.kk.cibaria.user.UserChangedEvent;
+import com.kk.cibaria.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Email and roles of the users presenting tokens, so a token is only accepted while its user still exists with the
+// email and roles it was issued for. Changes made here drop the entry on commit; the expiry bounds how long a change
+// made by another instance goes unnoticed.
+@Component
+public class UserAccountCache implements MeterBinder {
+
+  static final int MAX_ENTRIES = 10_000;
+  static final Duration EXPIRY = Duration.ofMinutes(5);
+
+  private record Account(String email, List<String> roles) {
+  }
+
+  private final UserRepository userRepository;
+  private final Cache<Integer, Optional<Account>> accounts = Caffeine.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .expireAfterWrite(EXPIRY)
+      .recordStats()
+      .build();
+
+  public UserAccountCache(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  public boolean isCurrent(JwtPrincipal principal) {
+    return accounts.get(principal.id(), this::load)
+        .filter(account -> account.email().equals(principal.email()) && account.roles().equals(principal.roles()))
+        .isPresent();
+  }
+
+  private Optional<Account> load(int id) {
+    return userRepository.findById(id)
+        .map(user -> new Account(user.getEmail(), List.of(user.getRole().split(","))));
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserChanged(UserChangedEvent event) {
+    accounts.invalidate(event.userId());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, accounts, "security.accounts");
+  }
+}
@@ -4,6 +4,7 @@ import java.util.Optional;
 
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -12,7 +13,7 @@ import com.kk.cibaria.user.UserEntity;
 import com.kk.cibaria.user.UserRepository;
 
 @Service
-public class UserDetailService implements UserDetailsService {
+public class UserDetailService implements UserDetailsService, UserDetailsPasswordService {
 
   private final UserRepository userRepository;
 
@@ -25,11 +26,12 @@ public class UserDetailService implements UserDetailsService {
     Optional<UserEntity> user = userRepository.findByEmail(email);
     if (user.isPresent()) {
       var userObj = user.get();
-      return User.builder()
+      UserDetails details = User.builder()
           .username(userObj.getEmail())
           .password(userObj.getPassword())
           .roles(getRoles(userObj))
           .build();
+      return new AuthenticatedUser(userObj, details.getAuthorities());
 
     } else {
       throw new UsernameNotFoundException(email);
@@ -37,6 +39,16 @@ public class UserDetailService implements UserDetailsService {
 
   }
 
+  // called after a successful login with the password hashed again at the configured cost
+  @Override
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    UserEntity entity = user instanceof AuthenticatedUser authenticated
+        ? authenticated.getUser()
+        : userRepository.findByEmail(user.getUsername()).orElseThrow(() -> new UsernameNotFoundException(user.getUsername()));
+    entity.setPassword(newPassword);
+    return new AuthenticatedUser(userRepository.save(entity), user.getAuthorities());
+  }
+
   private String[] getRoles(UserEntity userObj) {
     if (userObj.getRole().isEmpty()) {
       return new String[] { "USER" };
@@ -1,15 +1,19 @@
 package com.kk.cibaria.security.jwt;
 
 import java.io.IOException;
+import java.util.function.Supplier;
 
-import com.kk.cibaria.security.UserDetailService;
+import com.kk.cibaria.security.UserAccountCache;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,13 +24,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
   private JwtService jwtService;
 
-  private UserDetailService userDetailService;
+  private UserAccountCache userAccountCache;
 
-  public JwtAuthenticationFilter(JwtService jwtService, UserDetailService userDetailService) {
+  public JwtAuthenticationFilter(JwtService jwtService, UserAccountCache userAccountCache) {
     this.jwtService = jwtService;
-    this.userDetailService = userDetailService;
+    this.userAccountCache = userAccountCache;
   }
 
+  // The token is only checked once something asks for the authentication: the authorization rules of a protected
+  // route, a CurrentUser handler argument or a per-user rate limit. Public reads such as GET /recipes/** never do, so
+  // browsers sending their token with every request cost no signature check and no account lookup there.
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
@@ -37,18 +44,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
       return;
     }
 
-    String jwt = authHeader.substring(7);
-    String username = jwtService.extractUsername(jwt);
-    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      UserDetails userDetails = userDetailService.loadUserByUsername(username);
-      if (userDetails != null && jwtService.isTokenValid(jwt)) {
-        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username,
-            userDetails.getPassword(), userDetails.getAuthorities());
-        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    SecurityContextHolderStrategy strategy = SecurityContextHolder.getContextHolderStrategy();
+    Supplier<SecurityContext> deferred = strategy.getDeferredContext();
+    strategy.setDeferredContext(SingletonSupplier.of(() -> {
+      SecurityContext context = deferred.get();
+      if (context.getAuthentication() == null) {
+        authenticate(authHeader.substring(7), request, context);
       }
-    }
+      return context;
+    }));
     filterChain.doFilter(request, response);
   }
 
+  private void authenticate(String token, HttpServletRequest request, SecurityContext context) {
+    JwtPrincipal principal;
+    try {
+      principal = jwtService.parse(token);
+    } catch (JwtException | IllegalArgumentException e) {
+      // expired, forged or malformed, the request goes on unauthenticated
+      return;
+    }
+
+    if (userAccountCache.isCurrent(principal)) {
+      UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(principal,
+          null, principal.authorities());
+      authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+      context.setAuthentication(authenticationToken);
+    }
+  }
+
 }
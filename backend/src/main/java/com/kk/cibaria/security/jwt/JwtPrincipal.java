@@ -0,0 +1,26 @@
+package com.kk.cibaria.security.jwt;
+
+import java.security.Principal;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+// The authenticated user as read from a verified token, so a request needs neither the users table nor a second parse
+public record JwtPrincipal(int id, String email, List<String> roles) implements Principal {
+
+  @Override
+  public String getName() {
+    return email;
+  }
+
+  public boolean hasRole(String role) {
+    return roles.contains(role);
+  }
+
+  public List<GrantedAuthority> authorities() {
+    return roles.stream()
+        .<GrantedAuthority>map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+        .toList();
+  }
+}
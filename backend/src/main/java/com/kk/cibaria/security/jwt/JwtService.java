@@ -1,41 +1,81 @@
 package com.kk.cibaria.security.jwt;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.kk.cibaria.user.UserEntity;
-import com.kk.cibaria.user.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
 @Service
-public class JwtService {
+public class JwtService implements MeterBinder {
 
   @Value("${SECRET_KEY}")
   private String secretKey;
   private static final long EXPIRATIONTIME = TimeUnit.HOURS.toMillis(72);
 
-  private final UserRepository userRepository;
+  // built on first use, the secret is injected after construction
+  private volatile SecretKey key;
+  private volatile JwtParser parser;
 
-  public JwtService(UserRepository userRepository) {
-        this.userRepository = userRepository;
-    }
+  // SHA-256 of a token, so the cache does not keep the tokens themselves
+  private record TokenHash(long a, long b, long c, long d) {
+  }
+
+  private record Verified(JwtPrincipal principal, long expiresAt) {
+  }
+
+  // tokens that passed verification, each kept until its own expiry so an expired token is never served from here
+  private final Cache<TokenHash, Verified> verified;
+
+  public JwtService(@Value("${cibaria.jwt.cache.max-size:10000}") long cacheMaxSize) {
+    this.verified = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfter(new Expiry<TokenHash, Verified>() {
+          @Override
+          public long expireAfterCreate(TokenHash hash, Verified entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt() - System.currentTimeMillis()));
+          }
+
+          @Override
+          public long expireAfterUpdate(TokenHash hash, Verified entry, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+
+          @Override
+          public long expireAfterRead(TokenHash hash, Verified entry, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+  }
 
-    public String generateToken(UserDetails userDetails) {
-    UserEntity user =
-            userRepository.findByEmail(userDetails.getUsername()).orElseThrow(()->new UsernameNotFoundException("User not found"));
+  // mints from the entity the caller already loaded or saved, without going back to the database
+  public String generateToken(UserEntity user) {
     Map<String, Object> claims = new HashMap<>();
     claims.put("provider", "kkBackend");
     claims.put("id", String.valueOf(user.getId()));
@@ -43,7 +83,7 @@ public class JwtService {
 
     return Jwts.builder()
         .claims(claims)
-        .subject(userDetails.getUsername())
+        .subject(user.getEmail())
         .issuedAt(Date.from(Instant.now()))
         .expiration(Date.from(Instant.now().plusMillis(EXPIRATIONTIME)))
         .signWith(generateKey())
@@ -51,8 +91,12 @@ public class JwtService {
   }
 
   public SecretKey generateKey() {
-    byte[] key = Base64.getDecoder().decode(secretKey);
-    return Keys.hmacShaKeyFor(key);
+    SecretKey current = key;
+    if (current == null) {
+      current = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secretKey));
+      key = current;
+    }
+    return current;
   }
 
   public String extractUsername(String jwt) {
@@ -65,13 +109,53 @@ public class JwtService {
     return Integer.parseInt(claims.get("id").toString());
   }
 
+  // verifies the signature and the expiry, throws a JwtException for any token that should not be trusted. A token
+  // seen before is answered from the cache without the HMAC and the JSON decoding
+  public JwtPrincipal parse(String jwt) {
+    TokenHash hash = hash(jwt);
+    Verified entry = verified.getIfPresent(hash);
+    if (entry != null) {
+      return entry.principal();
+    }
+    Claims claims = getClaims(jwt);
+    JwtPrincipal principal = principal(claims);
+    verified.put(hash, new Verified(principal, claims.getExpiration().getTime()));
+    return principal;
+  }
+
+  // parse without the cache
+  JwtPrincipal verify(String jwt) {
+    return principal(getClaims(jwt));
+  }
+
+  private static JwtPrincipal principal(Claims claims) {
+    @SuppressWarnings("unchecked")
+    List<String> roles = claims.get("roles", List.class);
+    return new JwtPrincipal(Integer.parseInt(claims.get("id").toString()), claims.getSubject(),
+        roles != null ? List.copyOf(roles) : List.of());
+  }
+
+  private static TokenHash hash(String jwt) {
+    try {
+      ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+          .digest(jwt.getBytes(StandardCharsets.US_ASCII)));
+      return new TokenHash(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   private Claims getClaims(String jwt) {
-    Claims claims = Jwts.parser()
-        .verifyWith(generateKey())
-        .build()
-        .parseSignedClaims(jwt)
-        .getPayload();
-    return claims;
+    return parser().parseSignedClaims(jwt).getPayload();
+  }
+
+  private JwtParser parser() {
+    JwtParser current = parser;
+    if (current == null) {
+      current = Jwts.parser().verifyWith(generateKey()).build();
+      parser = current;
+    }
+    return current;
   }
 
   public boolean isTokenValid(String jwt) {
@@ -82,11 +166,18 @@ public class JwtService {
   public boolean hasRole(String jwt, String role) {
     Claims claims = getClaims(jwt);
     @SuppressWarnings("unchecked")
-    java.util.List<String> roles = (java.util.List<String>) claims.get("roles");
+    List<String> roles = (List<String>) claims.get("roles");
     if (roles != null) {
       return roles.contains(role);
     }
     return false;
   }
 
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, verified, "security.tokens");
+    Gauge.builder("security.tokens.cache.hit.ratio", verified, cache -> cache.stats().hitRate())
+        .description("Share of bearer tokens answered without verifying them again")
+        .register(registry);
+  }
 }
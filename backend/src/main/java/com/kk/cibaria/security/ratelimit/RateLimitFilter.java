@@ -0,0 +1,99 @@
+package com.kk.cibaria.security.ratelimit;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.cibaria.exception.ErrorObject;
+import com.kk.cibaria.security.jwt.JwtPrincipal;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Applies the cibaria.rate-limit policies. Runs after JwtAuthenticationFilter so USER policies can count per user; a
+// request over any policy it matches is answered 429 with Retry-After and goes no further.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+  private final List<RateLimiter> limiters;
+  private final ObjectMapper objectMapper;
+
+  public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper) {
+    this.limiters = properties.enabled()
+        ? properties.policies().stream().map(RateLimiter::new).toList()
+        : List.of();
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (limiters.isEmpty()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    String method = request.getMethod();
+    String uri = request.getRequestURI();
+    int from = request.getContextPath().length();
+    for (RateLimiter limiter : limiters) {
+      if (!limiter.matchesMethod(method) || !limiter.matchesPath(uri, from)) {
+        continue;
+      }
+      long wait = limiter.acquire(client(limiter.key(), request), System.nanoTime());
+      if (wait > 0) {
+        reject(response, wait);
+        return;
+      }
+    }
+    filterChain.doFilter(request, response);
+  }
+
+  private static Object client(RateLimitProperties.Key key, HttpServletRequest request) {
+    if (key == RateLimitProperties.Key.USER) {
+      Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+      if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+        return principal.id();
+      }
+    }
+    return request.getRemoteAddr();
+  }
+
+  private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+    ErrorObject errorObject = new ErrorObject();
+    errorObject.setStatusCode(HttpStatus.TOO_MANY_REQUESTS.value());
+    errorObject.setMessage("Too many requests, try again later");
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER,
+        String.valueOf(Math.max(1, Math.ceilDiv(waitNanos, TimeUnit.SECONDS.toNanos(1)))));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), errorObject);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    for (RateLimiter limiter : limiters) {
+      FunctionCounter.builder("security.ratelimit.rejected", limiter, RateLimiter::rejected)
+          .description("Requests answered 429 by this rate limit policy")
+          .tag("policy", limiter.name())
+          .register(registry);
+      Gauge.builder("security.ratelimit.buckets", limiter, RateLimiter::buckets)
+          .description("Clients with a bucket under this rate limit policy")
+          .tag("policy", limiter.name())
+          .register(registry);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.kk.cibaria.security.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// cibaria.rate-limit in application.yml: a list of routes, each allowing `capacity` requests per `period` to one
+// client, the client being the caller's IP or, for USER policies, the authenticated user (the IP when anonymous)
+@ConfigurationProperties(prefix = "cibaria.rate-limit")
+public record RateLimitProperties(boolean enabled, List<Policy> policies) {
+
+  public enum Key {
+    IP, USER
+  }
+
+  // method is optional, path is a Spring path pattern relative to the context path
+  public record Policy(String name, String method, String path, Key key, int capacity, Duration period) {
+  }
+
+  public RateLimitProperties {
+    policies = policies != null ? List.copyOf(policies) : List.of();
+  }
+}
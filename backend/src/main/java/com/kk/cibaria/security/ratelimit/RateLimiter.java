@@ -0,0 +1,92 @@
+package com.kk.cibaria.security.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+// One policy's token buckets. A bucket is a single AtomicLong holding the time its next token becomes free (the
+// generic cell rate form of a token bucket): taking a token is one compare-and-set, without locks, and a bucket that
+// was idle for a whole period is as good as a new one, so idle buckets are simply evicted.
+public class RateLimiter {
+
+  static final int MAX_BUCKETS = 100_000;
+
+  private final RateLimitProperties.Policy policy;
+  private final PathPattern path;
+  // the policy path when it has no wildcards or variables, compared as a string instead of parsing each request
+  private final String literalPath;
+  // time one token takes to come back, and how far ahead of now a bucket may be booked before it is empty
+  private final long intervalNanos;
+  private final long burstNanos;
+  private final Cache<Object, AtomicLong> buckets;
+  private final LongAdder rejected = new LongAdder();
+
+  public RateLimiter(RateLimitProperties.Policy policy) {
+    if (policy.capacity() <= 0 || policy.period() == null || policy.period().toNanos() / policy.capacity() <= 0) {
+      throw new IllegalArgumentException("Rate limit " + policy.name() + " needs a positive capacity and period");
+    }
+    this.policy = policy;
+    this.path = PathPatternParser.defaultInstance.parse(policy.path());
+    this.literalPath = path.hasPatternSyntax() ? null : policy.path();
+    this.intervalNanos = policy.period().toNanos() / policy.capacity();
+    this.burstNanos = intervalNanos * policy.capacity();
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(MAX_BUCKETS)
+        .expireAfterAccess(Duration.ofNanos(burstNanos))
+        .build();
+  }
+
+  public String name() {
+    return policy.name();
+  }
+
+  public RateLimitProperties.Key key() {
+    return policy.key();
+  }
+
+  public boolean matchesMethod(String method) {
+    return policy.method() == null || policy.method().equalsIgnoreCase(method);
+  }
+
+  // uri is the raw request URI and from the length of its context path; encoded or matrix-parameter URIs always go
+  // through the pattern, which compares decoded segments
+  public boolean matchesPath(String uri, int from) {
+    if (literalPath != null && uri.indexOf('%', from) < 0 && uri.indexOf(';', from) < 0) {
+      return uri.length() - from == literalPath.length() && uri.startsWith(literalPath, from);
+    }
+    return path.matches(PathContainer.parsePath(uri.substring(from)));
+  }
+
+  // takes a token from the client's bucket; 0 when one was free, otherwise how long until the next one is
+  public long acquire(Object client, long now) {
+    AtomicLong bucket = buckets.getIfPresent(client);
+    if (bucket == null) {
+      bucket = buckets.get(client, ignored -> new AtomicLong(now - burstNanos));
+    }
+    while (true) {
+      long freeAt = bucket.get();
+      long next = Math.max(freeAt, now - burstNanos) + intervalNanos;
+      if (next > now) {
+        rejected.increment();
+        return next - now;
+      }
+      if (bucket.compareAndSet(freeAt, next)) {
+        return 0;
+      }
+    }
+  }
+
+  long rejected() {
+    return rejected.sum();
+  }
+
+  long buckets() {
+    return buckets.estimatedSize();
+  }
+}
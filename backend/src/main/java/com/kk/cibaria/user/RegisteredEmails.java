@@ -0,0 +1,112 @@
+package com.kk.cibaria.user;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Bloom filter of the registered emails, trimmed and lower-cased, so registrations and email changes only query the
+// users table for emails that may be taken. Loaded on startup and updated after every committed change; a Bloom
+// filter cannot forget, so released emails stay in it as false positives until there are enough of them to reload
+// it. The unique index on users.email stays the authority, it also catches what another instance registered since
+// this one loaded.
+@Component
+public class RegisteredEmails implements ApplicationRunner, MeterBinder {
+
+  static final double FALSE_POSITIVE_RATE = 0.01;
+  static final int MIN_CAPACITY = 1024;
+
+  private static final Logger log = LoggerFactory.getLogger(RegisteredEmails.class);
+
+  private final UserRepository userRepository;
+  // null until loaded, every email may be taken until then
+  private volatile ScalableBloomFilter filter;
+  private long released;
+  private final LongAdder absent = new LongAdder();
+  private final LongAdder maybePresent = new LongAdder();
+
+  public RegisteredEmails(UserRepository userRepository) {
+    this.userRepository = userRepository;
+  }
+
+  // false only when no user has the email; true means the database has to be asked
+  public boolean mightBeRegistered(String email) {
+    ScalableBloomFilter current = filter;
+    if (current != null && !current.mightContain(normalize(email))) {
+      absent.increment();
+      return false;
+    }
+    maybePresent.increment();
+    return true;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public synchronized void run(ApplicationArguments args) {
+    load();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+  public synchronized void onEmailChanged(UserEmailChangedEvent event) {
+    // changes committed before the load are read with it
+    if (filter == null) {
+      return;
+    }
+    if (event.taken() != null) {
+      filter.put(normalize(event.taken()));
+    }
+    if (event.released() != null && ++released > Math.max(MIN_CAPACITY, filter.size() / 2)) {
+      load();
+    }
+  }
+
+  private void load() {
+    long start = System.nanoTime();
+    ScalableBloomFilter loaded = new ScalableBloomFilter(
+        (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_CAPACITY, userRepository.count())), FALSE_POSITIVE_RATE);
+    try (Stream<String> emails = userRepository.streamEmails()) {
+      emails.forEach(email -> loaded.put(normalize(email)));
+    }
+    filter = loaded;
+    released = 0;
+    log.info("Loaded {} registered emails in {} ms", loaded.size(), (System.nanoTime() - start) / 1_000_000);
+  }
+
+  static String normalize(String email) {
+    return email.trim().toLowerCase(Locale.ROOT);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("users.emails.lookups", absent, LongAdder::sum)
+        .tag("result", "absent")
+        .description("Email checks answered by the filter without a query")
+        .register(registry);
+    FunctionCounter.builder("users.emails.lookups", maybePresent, LongAdder::sum)
+        .tag("result", "maybe-present")
+        .description("Email checks passed on to the database")
+        .register(registry);
+    Gauge.builder("users.emails.filter.size", this, emails -> emails.filter == null ? 0 : emails.filter.sizeInBytes())
+        .description("Heap used by the registered email filter")
+        .baseUnit(BaseUnits.BYTES)
+        .register(registry);
+    Gauge.builder("users.emails.filter.emails", this, emails -> emails.filter == null ? 0 : emails.filter.size())
+        .description("Emails in the registered email filter, released ones included until it is reloaded")
+        .register(registry);
+  }
+}
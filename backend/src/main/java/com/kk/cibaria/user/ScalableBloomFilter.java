@@ -0,0 +1,136 @@
+package com.kk.cibaria.user;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Set membership with false positives but no false negatives, that keeps its false-positive rate however many keys
+// go in: once a stage holds the keys it was sized for, a stage twice as large with half the rate is added, so the
+// rates of all stages sum to at most the one asked for. Lookups may run on any thread, puts one at a time.
+class ScalableBloomFilter {
+
+  private static final int GROWTH = 2;
+  private static final double TIGHTENING = 0.5;
+
+  private final double falsePositiveRate;
+  private volatile Stage[] stages;
+  private volatile long size;
+
+  ScalableBloomFilter(int expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Bloom filter needs a positive capacity and a rate between 0 and 1");
+    }
+    this.falsePositiveRate = falsePositiveRate;
+    this.stages = new Stage[] { new Stage(expectedInsertions, falsePositiveRate * (1 - TIGHTENING)) };
+  }
+
+  boolean mightContain(String key) {
+    long hash = hash(key);
+    long step = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+    for (Stage stage : stages) {
+      if (stage.mightContain(hash, step)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // false when the key may already have been put, which then is not counted towards the stage's capacity
+  boolean put(String key) {
+    long hash = hash(key);
+    long step = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+    Stage[] current = stages;
+    for (Stage stage : current) {
+      if (stage.mightContain(hash, step)) {
+        return false;
+      }
+    }
+    Stage last = current[current.length - 1];
+    if (last.count >= last.capacity) {
+      int capacity = (int) Math.min(Integer.MAX_VALUE, (long) last.capacity * GROWTH);
+      last = new Stage(capacity, last.falsePositiveRate * TIGHTENING);
+      Stage[] grown = Arrays.copyOf(current, current.length + 1);
+      grown[current.length] = last;
+      stages = grown;
+    }
+    last.put(hash, step);
+    size++;
+    return true;
+  }
+
+  long size() {
+    return size;
+  }
+
+  int stages() {
+    return stages.length;
+  }
+
+  long sizeInBytes() {
+    long bytes = 0;
+    for (Stage stage : stages) {
+      bytes += stage.words.length() * (long) Long.BYTES;
+    }
+    return bytes;
+  }
+
+  double falsePositiveRate() {
+    return falsePositiveRate;
+  }
+
+  // FNV-1a over the chars, finished with the murmur3 mixer so every bit of the result depends on every char
+  static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  // a plain Bloom filter of a power of two bits; the probes are hash + i * step (double hashing)
+  private static final class Stage {
+    final AtomicLongArray words;
+    final long mask;
+    final int hashes;
+    final int capacity;
+    final double falsePositiveRate;
+    int count;
+
+    Stage(int capacity, double falsePositiveRate) {
+      double bits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+      long words = Math.max(1, Long.highestOneBit((long) Math.ceil(bits / Long.SIZE) - 1) << 1);
+      this.words = new AtomicLongArray((int) Math.min(words, 1 << 30));
+      this.mask = this.words.length() * (long) Long.SIZE - 1;
+      this.hashes = (int) Math.max(1, Math.ceil(-Math.log(falsePositiveRate) / Math.log(2)));
+      this.capacity = capacity;
+      this.falsePositiveRate = falsePositiveRate;
+    }
+
+    boolean mightContain(long hash, long step) {
+      for (int i = 0; i < hashes; i++) {
+        long bit = (hash + i * step) & mask;
+        if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    void put(long hash, long step) {
+      for (int i = 0; i < hashes; i++) {
+        long bit = (hash + i * step) & mask;
+        words.getAndAccumulate((int) (bit >>> 6), 1L << bit, (word, set) -> word | set);
+      }
+      count++;
+    }
+  }
+}
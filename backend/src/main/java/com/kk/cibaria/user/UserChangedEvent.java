@@ -0,0 +1,5 @@
+package com.kk.cibaria.user;
+
+// Published by UserServiceImpl when a user's email or role changes or the user is deleted, so issued tokens are rechecked
+public record UserChangedEvent(int userId) {
+}
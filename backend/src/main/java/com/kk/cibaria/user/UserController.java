@@ -7,7 +7,7 @@ import com.kk.cibaria.dto.myProfile.MyProfileDto;
 import com.kk.cibaria.dto.myProfile.UpdateEmailDto;
 import com.kk.cibaria.dto.myProfile.UpdatePasswordDto;
 import com.kk.cibaria.exception.UnauthorizedException;
-import com.kk.cibaria.security.jwt.JwtService;
+import com.kk.cibaria.security.CurrentUser;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -18,11 +18,9 @@ import org.springframework.web.multipart.MultipartFile;
 public class UserController {
 
   private final UserService userService;
-  private final JwtService jwtService;
 
-  public UserController(UserService userService, JwtService jwtService) {
+  public UserController(UserService userService) {
     this.userService = userService;
-    this.jwtService = jwtService;
   }
 
   @GetMapping
@@ -36,74 +34,62 @@ public class UserController {
   }
 
   @PutMapping("/{id}") 
-  public UserEntity update(@PathVariable int id, @RequestBody UserEntity user, @RequestHeader("Authorization") String token) {
+  public UserEntity update(@PathVariable int id, @RequestBody UserEntity user, CurrentUser currentUser) {
     return userService.update(id, user);
   }
 
   @PutMapping("/{id}/profile")
-  public UserEntity updateProfile(@PathVariable int id, @RequestBody MyProfileDto profileDto, @RequestHeader("Authorization") String token) {
-    return userService.updateProfile(id, profileDto, token);
+  public UserEntity updateProfile(@PathVariable int id, @RequestBody MyProfileDto profileDto, CurrentUser currentUser) {
+    return userService.updateProfile(id, profileDto, currentUser);
   }
 
   @PutMapping("/{id}/email")
-  public UserEntity updateEmail(@PathVariable int id, @RequestBody UpdateEmailDto updateEmailDto, @RequestHeader("Authorization") String token) {
-    return userService.updateEmail(id, updateEmailDto, token);
+  public UserEntity updateEmail(@PathVariable int id, @RequestBody UpdateEmailDto updateEmailDto, CurrentUser currentUser) {
+    return userService.updateEmail(id, updateEmailDto, currentUser);
   } 
 
   @PutMapping("/{id}/password")
-  public UserEntity updatePassword(@PathVariable int id, @RequestBody UpdatePasswordDto updatePasswordDto, @RequestHeader("Authorization") String token) {
-    return userService.updatePassword(id, updatePasswordDto, token);
+  public UserEntity updatePassword(@PathVariable int id, @RequestBody UpdatePasswordDto updatePasswordDto, CurrentUser currentUser) {
+    return userService.updatePassword(id, updatePasswordDto, currentUser);
   }
 
   @GetMapping("/aboutme")
-  public MyProfileDto getMyProfile(@RequestHeader("Authorization") String token){
-    return userService.getMyProfile(token);
+  public MyProfileDto getMyProfile(CurrentUser currentUser){
+    return userService.getMyProfile(currentUser);
   }
 
   @GetMapping("/recipes")
-  public MyProfileDto getUserRecipes(@RequestHeader("Authorization") String token){
-    return userService.getUserRecipes(token);
+  public MyProfileDto getUserRecipes(CurrentUser currentUser){
+    return userService.getUserRecipes(currentUser);
   }
 
   @GetMapping("/favourites")
-  public MyProfileDto getFavouriteRecipes(@RequestHeader("Authorization") String token){
-    return userService.getFavouriteRecipes(token);
+  public MyProfileDto getFavouriteRecipes(CurrentUser currentUser){
+    return userService.getFavouriteRecipes(currentUser);
   }
   
 
   @PutMapping("/{id}/profile-picture")
   public ResponseEntity<String> updateProfilePicture(
           @PathVariable int id,
-          @RequestParam("file") MultipartFile file, @RequestHeader("Authorization") String token) throws IOException {
+          @RequestParam("file") MultipartFile file, CurrentUser currentUser) throws IOException {
         
-      String imageUrl = userService.updateProfilePicture(id, file, token);
+      String imageUrl = userService.updateProfilePicture(id, file, currentUser);
       return ResponseEntity.ok(imageUrl);
   }
 
   @PutMapping("/{id}/background-picture")
   public ResponseEntity<String> updateBackgroundPicture(
           @PathVariable int id,
-          @RequestParam("file") MultipartFile file, @RequestHeader("Authorization") String token) throws IOException {
+          @RequestParam("file") MultipartFile file, CurrentUser currentUser) throws IOException {
         
-      String imageUrl = userService.updateBackgroundPicture(id, file, token);
+      String imageUrl = userService.updateBackgroundPicture(id, file, currentUser);
       return ResponseEntity.ok(imageUrl);
   }
 
   @DeleteMapping("/{id}")
-  public ResponseEntity<?> delete(@PathVariable int id, @RequestHeader("Authorization") String authHeader) {
-      if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-          throw new UnauthorizedException("Invalid authorization header");
-      }
-      String token = authHeader.substring(7);
-
-      if (!jwtService.isTokenValid(token)) {
-          throw new UnauthorizedException("Invalid or expired token");
-      }
-
-      int currentUserId = jwtService.extractId(token);
-      boolean isAdmin = jwtService.hasRole(token, "ADMIN");
-        
-      if (currentUserId == id || isAdmin) {
+  public ResponseEntity<?> delete(@PathVariable int id, CurrentUser currentUser) {
+      if (currentUser.id() == id || currentUser.isAdmin()) {
           userService.delete(id);
           return ResponseEntity.noContent().build();
       } else {
@@ -0,0 +1,6 @@
+package com.kk.cibaria.user;
+
+// Published by UserServiceImpl when an email is taken (registration, email change) or released (email change,
+// deletion), either may be null
+public record UserEmailChangedEvent(String taken, String released) {
+}
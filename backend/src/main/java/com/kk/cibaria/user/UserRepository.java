@@ -1,10 +1,21 @@
 package com.kk.cibaria.user;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
 
 public interface UserRepository extends JpaRepository<UserEntity, Integer> {
   Optional<UserEntity> findByUsername(String username);
   Optional<UserEntity> findByEmail(String email);
+  boolean existsByEmail(String email);
+
+  @Query("SELECT u.email FROM UserEntity u WHERE u.email IS NOT NULL")
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  Stream<String> streamEmails();
 }
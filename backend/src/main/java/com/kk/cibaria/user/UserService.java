@@ -10,6 +10,7 @@ import com.kk.cibaria.dto.auth.TokenResponseDto;
 import com.kk.cibaria.dto.myProfile.MyProfileDto;
 import com.kk.cibaria.dto.myProfile.UpdateEmailDto;
 import com.kk.cibaria.dto.myProfile.UpdatePasswordDto;
+import com.kk.cibaria.security.CurrentUser;
 
 public interface UserService {
    List<UserEntity> getAll();
@@ -22,21 +23,23 @@ public interface UserService {
 
    void delete(int id);
 
-   MyProfileDto getMyProfile(String token);
+   MyProfileDto getMyProfile(CurrentUser currentUser);
 
-   String updateProfilePicture(int id, MultipartFile file, String token) throws IOException;
+   String updateProfilePicture(int id, MultipartFile file, CurrentUser currentUser) throws IOException;
    
-   String updateBackgroundPicture(int id, MultipartFile file, String token) throws IOException;
+   String updateBackgroundPicture(int id, MultipartFile file, CurrentUser currentUser) throws IOException;
 
-   UserEntity updateProfile(int id, MyProfileDto profileDto, String token);
+   UserEntity updateProfile(int id, MyProfileDto profileDto, CurrentUser currentUser);
 
-   UserEntity updateEmail(int id, UpdateEmailDto updateEmailDto, String token);
+   UserEntity updateEmail(int id, UpdateEmailDto updateEmailDto, CurrentUser currentUser);
 
-   UserEntity updatePassword(int id, UpdatePasswordDto updatePasswordDto, String token);
+   UserEntity updatePassword(int id, UpdatePasswordDto updatePasswordDto, CurrentUser currentUser);
 
-   MyProfileDto getUserRecipes (String token);
-   MyProfileDto getFavouriteRecipes (String token);
+   MyProfileDto getUserRecipes (CurrentUser currentUser);
+   MyProfileDto getFavouriteRecipes (CurrentUser currentUser);
 
    UserEntity updateUser(int id, String role, String email, String username);
 
+   boolean isEmailAvailable(String email);
+
 }
@@ -1,26 +1,32 @@
 package com.kk.cibaria.user;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.helper.RecipeSpecification;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import com.kk.cibaria.recipe.RecipeRatedEvent;
+import com.kk.cibaria.recipe.RecipeRepository;
+import com.kk.cibaria.dto.RecipeSummary;
 import com.kk.cibaria.dto.auth.RegisterDto;
 import com.kk.cibaria.dto.auth.TokenResponseDto;
 import com.kk.cibaria.dto.myProfile.MyProfileDto;
-import com.kk.cibaria.dto.myProfile.MyProfileRecipeDto;
 import com.kk.cibaria.dto.myProfile.UpdateEmailDto;
 import com.kk.cibaria.dto.myProfile.UpdatePasswordDto;
 import com.kk.cibaria.exception.InvalidEmailFormatException;
 import com.kk.cibaria.exception.InvalidPasswordException;
 import com.kk.cibaria.exception.UnauthorizedException;
 import com.kk.cibaria.exception.UserEmailAlreadyExistException;
-import com.kk.cibaria.security.UserDetailService;
+import com.kk.cibaria.security.CurrentUser;
 import com.kk.cibaria.security.jwt.JwtService;
 import com.kk.cibaria.cloudinary.CloudinaryService;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -41,28 +47,34 @@ public class UserServiceImpl implements UserService {
   private final UserRepository userRepository;
   private final PasswordEncoder passwordEncoder;
   private final JwtService jwtService;
-  private final UserDetailService userDetailService;
   private final ImageService imageService;
   private final CloudinaryService cloudinaryService;
   private final ImageRepository imageRepository;
   private final RatingRepository ratingRepository;
+  private final RecipeRepository recipeRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final RegisteredEmails registeredEmails;
 
   public UserServiceImpl(UserRepository userRepository, 
                         PasswordEncoder passwordEncoder, 
                         JwtService jwtService, 
-                        UserDetailService userDetailService, 
                         ImageService imageService,
                         CloudinaryService cloudinaryService,
                         ImageRepository imageRepository,
-                        RatingRepository ratingRepository) {
+                        RatingRepository ratingRepository,
+                        RecipeRepository recipeRepository,
+                        ApplicationEventPublisher eventPublisher,
+                        RegisteredEmails registeredEmails) {
     this.userRepository = userRepository;
     this.passwordEncoder = passwordEncoder;
     this.jwtService = jwtService;
-    this.userDetailService = userDetailService;
     this.imageService = imageService;
     this.cloudinaryService = cloudinaryService;
     this.imageRepository = imageRepository;
     this.ratingRepository = ratingRepository;
+    this.recipeRepository = recipeRepository;
+    this.eventPublisher = eventPublisher;
+    this.registeredEmails = registeredEmails;
   }
 
   @Override
@@ -78,8 +90,7 @@ public class UserServiceImpl implements UserService {
 
   @Override
   public TokenResponseDto save(RegisterDto dto) {
-    Optional<UserEntity> isUser = userRepository.findByEmail(dto.getEmail());
-    if(isUser.isPresent()){
+    if(registeredEmails.mightBeRegistered(dto.getEmail()) && userRepository.existsByEmail(dto.getEmail())){
       throw new UserEmailAlreadyExistException("User with given email: " + dto.getEmail() + " already exist in database");
     }
     UserEntity newUser = new UserEntity();
@@ -87,18 +98,27 @@ public class UserServiceImpl implements UserService {
     newUser.setPassword(passwordEncoder.encode(dto.getPassword()));
     newUser.setUsername(dto.getUsername());
 
-    UserEntity userDb = userRepository.save(newUser);
+    UserEntity userDb;
+    try {
+      userDb = userRepository.save(newUser);
+    } catch (DataIntegrityViolationException e) {
+      // registered in the meantime, or by another instance since this one loaded its filter
+      throw new UserEmailAlreadyExistException("User with given email: " + dto.getEmail() + " already exist in database");
+    }
+    eventPublisher.publishEvent(new UserEmailChangedEvent(userDb.getEmail(), null));
     TokenResponseDto token = new TokenResponseDto();
-    token.setToken(jwtService.generateToken(userDetailService.loadUserByUsername(userDb.getEmail())));
+    token.setToken(jwtService.generateToken(userDb));
     return token;
   }
 
   @Override
+  @Transactional
   public UserEntity update(int id, UserEntity user) {
     UserEntity userFound = userRepository.findById(id)
         .orElseThrow(
             () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", id)));
 
+    String previousEmail = userFound.getEmail();
     userFound.setId(id); // probably unnecessary, but keeping for now
     userFound.setUsername(user.getUsername());
     userFound.setDescription(user.getDescription());
@@ -111,13 +131,15 @@ public class UserServiceImpl implements UserService {
       userFound.getRating().add(rating);
     }
 
-    return userRepository.save(userFound);
+    UserEntity saved = userRepository.save(userFound);
+    eventPublisher.publishEvent(new UserChangedEvent(id));
+    publishEmailChange(previousEmail, saved.getEmail());
+    return saved;
   }
 
   @Override
-  public UserEntity updateProfile(int id, MyProfileDto profileDto, String token) {
-    MyProfileDto currentUser = getMyProfile(token);
-    if (currentUser.getId() != id) {
+  public UserEntity updateProfile(int id, MyProfileDto profileDto, CurrentUser currentUser) {
+    if (currentUser.id() != id) {
         throw new UnauthorizedException("You can only update your own profile");
     }
 
@@ -136,10 +158,8 @@ public class UserServiceImpl implements UserService {
 
   @Override
   @Transactional
-  public String updateProfilePicture(int userId, MultipartFile file, String token) throws IOException {
-
-    MyProfileDto currentUser = getMyProfile(token);
-    if (currentUser.getId() != userId) {
+  public String updateProfilePicture(int userId, MultipartFile file, CurrentUser currentUser) throws IOException {
+    if (currentUser.id() != userId) {
         throw new UnauthorizedException("You can only update your own profile picture");
     }
 
@@ -154,9 +174,8 @@ public class UserServiceImpl implements UserService {
 
   @Override
   @Transactional
-  public String updateBackgroundPicture(int userId, MultipartFile file, String token) throws IOException {
-    MyProfileDto currentUser = getMyProfile(token);
-    if (currentUser.getId() != userId) {
+  public String updateBackgroundPicture(int userId, MultipartFile file, CurrentUser currentUser) throws IOException {
+    if (currentUser.id() != userId) {
         throw new UnauthorizedException("You can only update your own profile picture");
     }
 
@@ -170,6 +189,7 @@ public class UserServiceImpl implements UserService {
   }
 
   @Override
+  @Transactional
   public void delete(int id) {
     UserEntity user = userRepository.findById(id).orElseThrow(
         () -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", id)));
@@ -195,18 +215,29 @@ public class UserServiceImpl implements UserService {
 
     // remove user ratings
     if(user.getRating() != null && !user.getRating().isEmpty()){
+      user.getRating().forEach(rating -> {
+        recipeRepository.addToRatingAggregates(rating.getRecipe().getId(), -1, -rating.getValue());
+        eventPublisher.publishEvent(new RecipeRatedEvent(rating.getRecipe().getId()));
+      });
       ratingRepository.deleteAll(user.getRating());
       user.getRating().clear();
     }
+
+    // own recipes are removed by the cascade
+    if(user.getUserRecipes() != null){
+      user.getUserRecipes().forEach(recipe ->
+          eventPublisher.publishEvent(new RecipeChangedEvent(recipe.getId(), true)));
+    }
     
     userRepository.delete(user);
+    eventPublisher.publishEvent(new UserChangedEvent(id));
+    eventPublisher.publishEvent(new UserEmailChangedEvent(null, user.getEmail()));
   }
 
   @Override
   @Transactional
-  public UserEntity updateEmail(int userId, UpdateEmailDto dto, String token) {
-      MyProfileDto currentUser = getMyProfile(token);
-      if (currentUser.getId() != userId) {
+  public UserEntity updateEmail(int userId, UpdateEmailDto dto, CurrentUser currentUser) {
+      if (currentUser.id() != userId) {
           throw new UnauthorizedException("You can only update your own email");
       }
 
@@ -222,20 +253,24 @@ public class UserServiceImpl implements UserService {
           throw new InvalidPasswordException("Password is incorrect");
       }
 
-      Optional<UserEntity> existingUser = userRepository.findByEmail(newEmail);
-      if (existingUser.isPresent() && existingUser.get().getId() != userId) {
-          throw new UserEmailAlreadyExistException("Email already exists");
+      if (registeredEmails.mightBeRegistered(newEmail)) {
+          Optional<UserEntity> existingUser = userRepository.findByEmail(newEmail);
+          if (existingUser.isPresent() && existingUser.get().getId() != userId) {
+              throw new UserEmailAlreadyExistException("Email already exists");
+          }
       }
 
+      String previousEmail = user.getEmail();
       user.setEmail(newEmail);
+      eventPublisher.publishEvent(new UserChangedEvent(userId));
+      publishEmailChange(previousEmail, newEmail);
       return userRepository.save(user);
   }
 
   @Override
   @Transactional
-  public UserEntity updatePassword(int userId, UpdatePasswordDto updatePasswordDto, String token) {
-    MyProfileDto currentUser = getMyProfile(token);
-    if (currentUser.getId() != userId) {
+  public UserEntity updatePassword(int userId, UpdatePasswordDto updatePasswordDto, CurrentUser currentUser) {
+    if (currentUser.id() != userId) {
         throw new UnauthorizedException("You can only update your own password");
     }
 
@@ -308,10 +343,9 @@ public class UserServiceImpl implements UserService {
   }
 
   @Override
-  public MyProfileDto getMyProfile(String token) {
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId)
-    .orElseThrow(()->new UserNotFoundException("User with id: %s does not exist in the database " + userId));
+  public MyProfileDto getMyProfile(CurrentUser currentUser) {
+    UserEntity user = userRepository.findById(currentUser.id())
+    .orElseThrow(()->new UserNotFoundException("User with id: %s does not exist in the database " + currentUser.id()));
 
     MyProfileDto myProfileDto = new MyProfileDto();
     myProfileDto.setId(user.getId());
@@ -325,75 +359,42 @@ public class UserServiceImpl implements UserService {
   }
 
   @Override 
-  public MyProfileDto getFavouriteRecipes(String token){
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId)
-    .orElseThrow(()->new UserNotFoundException("User with id: %s does not exist in the database "+ userId));
+  public MyProfileDto getFavouriteRecipes(CurrentUser currentUser){
 
     MyProfileDto myProfileDto = new MyProfileDto();
-    myProfileDto.setFavourites(mapToRecipeDtos(user.getFavouriteRecipes()));
+    List<RecipeSummary> favourites = recipeRepository.findSummaries(RecipeSpecification.favouriteOf(currentUser.id()), Sort.by("id"), Limit.unlimited());
+    // the profile page filters its lists by ingredient
+    recipeRepository.addIngredientNames(favourites);
+    myProfileDto.setFavourites(favourites);
 
     return myProfileDto;
   }
 
   @Override 
-  public MyProfileDto getUserRecipes(String token){
-    int userId = jwtService.extractId(token.substring(7));
-    UserEntity user = userRepository.findById(userId)
-    .orElseThrow(()->new UserNotFoundException("User with id: %s does not exist in the database "+ userId));
+  public MyProfileDto getUserRecipes(CurrentUser currentUser){
 
     MyProfileDto myProfileDto = new MyProfileDto();
-    myProfileDto.setUserRecipes(mapToRecipeDtos(user.getUserRecipes()));
+    List<RecipeSummary> userRecipes = recipeRepository.findSummaries(RecipeSpecification.ownedBy(currentUser.id()), Sort.by("id"), Limit.unlimited());
+    recipeRepository.addIngredientNames(userRecipes);
+    myProfileDto.setUserRecipes(userRecipes);
 
     return myProfileDto;
   }
 
-  private List<MyProfileRecipeDto> mapToRecipeDtos(List<Recipe> recipes) {
-    if (recipes == null || recipes.isEmpty()) {
-      return new ArrayList<>(); // Better to return empty list than null ig
-    }
-    
-    return recipes.stream()
-      .map(this::mapToRecipeDto)
-      .toList();
-  }
-
-  private MyProfileRecipeDto mapToRecipeDto(Recipe recipe) {
-    MyProfileRecipeDto dto = new MyProfileRecipeDto();
-    dto.setId(recipe.getId());
-    dto.setImageUrl(recipe.getImages());
-    dto.setRecipeName(recipe.getRecipeName());
-    dto.setCategory(recipe.getCategory());
-    dto.setServings(recipe.getServings());
-    dto.setDifficulty(recipe.getDifficulty());
-    dto.setPrepareTime(recipe.getPrepareTime());
-    dto.setLanguage(recipe.getLanguage());
-    dto.setIngredients(recipe.getIngredients());
-    
-    List<Rating> ratings = recipe.getRatings();
-    if (ratings != null && !ratings.isEmpty()) {
-        double averageRating = ratings.stream()
-            .mapToInt(Rating::getValue)
-            .average()
-            .orElse(0.0);
-        dto.setAvgRating(Math.round(averageRating));
-    } else {
-        dto.setAvgRating(0L);
-    }
-    
-    return dto;
-  }
-
   @Override
+  @Transactional
   public UserEntity updateUser(int id, String role, String email, String username) {
     UserEntity user = userRepository.findById(id)
         .orElseThrow(() -> new UserNotFoundException(String.format("User with id: %s does not exist in the database", id)));
     
     // Check if email already exists for a different user
+    String previousEmail = user.getEmail();
     if (email != null && !email.trim().isEmpty()) {
-      Optional<UserEntity> existingUser = userRepository.findByEmail(email.trim().toLowerCase());
-      if (existingUser.isPresent() && existingUser.get().getId() != id) {
-        throw new UserEmailAlreadyExistException("Email already exists");
+      if (registeredEmails.mightBeRegistered(email)) {
+        Optional<UserEntity> existingUser = userRepository.findByEmail(email.trim().toLowerCase());
+        if (existingUser.isPresent() && existingUser.get().getId() != id) {
+          throw new UserEmailAlreadyExistException("Email already exists");
+        }
       }
       user.setEmail(email.trim().toLowerCase());
     }
@@ -408,6 +409,24 @@ public class UserServiceImpl implements UserService {
       user.setRole(role);
     }
     
-    return userRepository.save(user);
+    UserEntity saved = userRepository.save(user);
+    eventPublisher.publishEvent(new UserChangedEvent(id));
+    publishEmailChange(previousEmail, saved.getEmail());
+    return saved;
+  }
+
+  @Override
+  public boolean isEmailAvailable(String email) {
+    if (email == null || !email.trim().matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
+      throw new InvalidEmailFormatException("Invalid email format");
+    }
+    // the same check registration makes, most unused emails are answered without a query
+    return !registeredEmails.mightBeRegistered(email) || !userRepository.existsByEmail(email);
+  }
+
+  private void publishEmailChange(String previousEmail, String email) {
+    if (previousEmail == null ? email != null : !previousEmail.equals(email)) {
+      eventPublisher.publishEvent(new UserEmailChangedEvent(email, previousEmail));
+    }
   }
 }
\ No newline at end of file
@@ -7,8 +7,6 @@ import com.kk.cibaria.recipe.RecipeRepository;
 import com.kk.cibaria.security.jwt.JwtService;
 import com.kk.cibaria.user.UserEntity;
 import com.kk.cibaria.user.UserRepository;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -80,15 +78,9 @@ class AdminControllerIntegrationTest {
         testRecipe = recipeRepository.save(testRecipe);
         recipeRepository.flush();
 
-        // Generate JWT tokens for testing using UserDetails
-        User adminUserDetails = new User(adminUser.getEmail(), adminUser.getPassword(), 
-            java.util.Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN")));
-        
-        User regularUserDetails = new User(regularUser.getEmail(), regularUser.getPassword(), 
-            java.util.Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
-        
-        adminToken = "Bearer " + jwtService.generateToken(adminUserDetails);
-        userToken = "Bearer " + jwtService.generateToken(regularUserDetails);
+        // Generate JWT tokens for testing from the saved users
+        adminToken = "Bearer " + jwtService.generateToken(adminUser);
+        userToken = "Bearer " + jwtService.generateToken(regularUser);
     }
 
     // Test admin can access user management endpoints
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kk.cibaria.dto.admin.UpdateUserDto;
 import com.kk.cibaria.recipe.Recipe;
 import com.kk.cibaria.recipe.RecipeService;
+import com.kk.cibaria.security.CurrentUser;
 import com.kk.cibaria.user.UserEntity;
 import com.kk.cibaria.user.UserService;
 import org.junit.jupiter.api.BeforeEach;
@@ -149,13 +150,14 @@ class AdminControllerTest {
 
     @Test
     void deleteRecipe_ShouldDeleteRecipe() {
-        doNothing().when(recipeService).delete("Bearer token", 1);
+        CurrentUser admin = new CurrentUser(1, List.of("ADMIN"));
+        doNothing().when(recipeService).delete(admin, 1);
         
-        ResponseEntity<Void> result = adminController.deleteRecipe(1, "Bearer token");
+        ResponseEntity<Void> result = adminController.deleteRecipe(1, admin);
         
         assertNotNull(result);
         assertEquals(200, result.getStatusCode().value());
-        verify(recipeService).delete("Bearer token", 1);
+        verify(recipeService).delete(admin, 1);
     }
 
     private Recipe createTestRecipe(int id) {
@@ -185,25 +187,25 @@ class AdminControllerTest {
     @Test
     void updateRecipe_WithoutImages_KeepExisting() throws Exception {
         int recipeId = 1;
-        String authToken = "Bearer token";
+        CurrentUser admin = new CurrentUser(1, List.of("ADMIN"));
         Recipe testRecipe = createTestRecipe(0);
         Recipe resultRecipe = createTestRecipe(recipeId);
         String recipeJson = serializeRecipe(testRecipe);
         
-        when(recipeService.updateRecipeWithoutPhotos(eq(recipeId), any(Recipe.class), eq(authToken), eq(true)))
+        when(recipeService.updateRecipeWithoutPhotos(eq(recipeId), any(Recipe.class), eq(admin), eq(true), isNull()))
                 .thenReturn(resultRecipe);
         
-        Recipe result = adminController.updateRecipe(recipeId, recipeJson, authToken, null, "true");
+        Recipe result = adminController.updateRecipe(recipeId, recipeJson, admin, null, "true", null);
         
         assertRecipeEquals(resultRecipe, result);
-        verify(recipeService).updateRecipeWithoutPhotos(eq(recipeId), any(Recipe.class), eq(authToken), eq(true));
-        verify(recipeService, never()).updateRecipeWithPhotos(anyInt(), any(Recipe.class), any(), anyString());
+        verify(recipeService).updateRecipeWithoutPhotos(eq(recipeId), any(Recipe.class), eq(admin), eq(true), isNull());
+        verify(recipeService, never()).updateRecipeWithPhotos(anyInt(), any(Recipe.class), any(), any(), any());
     }
 
     @Test
     void updateRecipe_WithImages() throws Exception {
         int recipeId = 1;
-        String authToken = "Bearer token";
+        CurrentUser admin = new CurrentUser(1, List.of("ADMIN"));
         Recipe testRecipe = createTestRecipe(0);
         Recipe resultRecipe = createTestRecipe(recipeId);
         String recipeJson = serializeRecipe(testRecipe);
@@ -212,31 +214,31 @@ class AdminControllerTest {
         MockMultipartFile image2 = new MockMultipartFile("image2", "test2.jpg", "image/jpeg", "content2".getBytes());
         List<MultipartFile> images = Arrays.asList(image1, image2);
         
-        when(recipeService.updateRecipeWithPhotos(eq(recipeId), any(Recipe.class), eq(images), eq(authToken)))
+        when(recipeService.updateRecipeWithPhotos(eq(recipeId), any(Recipe.class), eq(images), eq(admin), isNull()))
                 .thenReturn(resultRecipe);
         
-        Recipe result = adminController.updateRecipe(recipeId, recipeJson, authToken, images, null);
+        Recipe result = adminController.updateRecipe(recipeId, recipeJson, admin, images, null, null);
         
         assertRecipeEquals(resultRecipe, result);
-        verify(recipeService).updateRecipeWithPhotos(eq(recipeId), any(Recipe.class), eq(images), eq(authToken));
-        verify(recipeService, never()).updateRecipeWithoutPhotos(anyInt(), any(Recipe.class), anyString(), anyBoolean());
+        verify(recipeService).updateRecipeWithPhotos(eq(recipeId), any(Recipe.class), eq(images), eq(admin), isNull());
+        verify(recipeService, never()).updateRecipeWithoutPhotos(anyInt(), any(Recipe.class), any(), anyBoolean(), any());
     }
 
     @Test
     void updateRecipe_WithoutImages_DontKeepExisting() throws Exception {
         int recipeId = 1;
-        String authToken = "Bearer token";
+        CurrentUser admin = new CurrentUser(1, List.of("ADMIN"));
         Recipe testRecipe = createTestRecipe(0);
         Recipe resultRecipe = createTestRecipe(recipeId);
         String recipeJson = serializeRecipe(testRecipe);
         
-        when(recipeService.updateRecipeWithoutPhotos(eq(recipeId), any(Recipe.class), eq(authToken), eq(false)))
+        when(recipeService.updateRecipeWithoutPhotos(eq(recipeId), any(Recipe.class), eq(admin), eq(false), isNull()))
                 .thenReturn(resultRecipe);
         
-        Recipe result = adminController.updateRecipe(recipeId, recipeJson, authToken, null, "false");
+        Recipe result = adminController.updateRecipe(recipeId, recipeJson, admin, null, "false", null);
         
         assertRecipeEquals(resultRecipe, result);
-        verify(recipeService).updateRecipeWithoutPhotos(eq(recipeId), any(Recipe.class), eq(authToken), eq(false));
+        verify(recipeService).updateRecipeWithoutPhotos(eq(recipeId), any(Recipe.class), eq(admin), eq(false), isNull());
     }
 
     @Test
@@ -114,18 +114,18 @@ class AdminSecurityTest {
         // Test JWT token generation contains correct roles for admin
         String mockToken = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.admin.token";
         
-        when(jwtService.generateToken(adminUserDetails)).thenReturn(mockToken);
+        when(jwtService.generateToken(adminEntity)).thenReturn(mockToken);
         when(jwtService.extractUsername(mockToken)).thenReturn("admin@test.com");
         when(jwtService.isTokenValid(mockToken)).thenReturn(true);
 
-        String token = jwtService.generateToken(adminUserDetails);
+        String token = jwtService.generateToken(adminEntity);
         String extractedUsername = jwtService.extractUsername(token);
         boolean isValid = jwtService.isTokenValid(token);
 
         assertEquals(mockToken, token);
         assertEquals("admin@test.com", extractedUsername);
         assertTrue(isValid);
-        verify(jwtService).generateToken(adminUserDetails);
+        verify(jwtService).generateToken(adminEntity);
         verify(jwtService).extractUsername(mockToken);
         verify(jwtService).isTokenValid(mockToken);
     }
@@ -135,11 +135,11 @@ class AdminSecurityTest {
         // Test JWT token generation contains correct roles for regular user
         String mockToken = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.user.token";
         
-        when(jwtService.generateToken(regularUserDetails)).thenReturn(mockToken);
+        when(jwtService.generateToken(userEntity)).thenReturn(mockToken);
         when(jwtService.extractUsername(mockToken)).thenReturn("user@test.com");
         when(jwtService.isTokenValid(mockToken)).thenReturn(true);
 
-        String token = jwtService.generateToken(regularUserDetails);
+        String token = jwtService.generateToken(userEntity);
         String extractedUsername = jwtService.extractUsername(token);
         boolean isValid = jwtService.isTokenValid(token);
 
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
@@ -75,6 +76,21 @@ class AuthControllerIntegrationTest {
         assertEquals("Bearer", response.getType());
     }
 
+    @Test
+    void authenticate_RehashesPasswordsOfAnotherCost() throws Exception {
+        testUser.setPassword(new BCryptPasswordEncoder(4).encode("password123"));
+        userRepository.save(testUser);
+
+        mockMvc.perform(post("/authenticate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginFormDto("test@test.com", "password123"))))
+                .andExpect(status().isOk());
+
+        String rehashed = userRepository.findById(testUser.getId()).orElseThrow().getPassword();
+        assertTrue(rehashed.startsWith("$2a$10$"));
+        assertTrue(passwordEncoder.matches("password123", rehashed));
+    }
+
     @Test
     void authenticate_InvalidEmail_ReturnsNotFound() throws Exception {
         LoginFormDto loginDto = new LoginFormDto("nonexistent@example.com", "password123");
@@ -3,8 +3,9 @@ package com.kk.cibaria.auth;
 import com.kk.cibaria.dto.auth.LoginFormDto;
 import com.kk.cibaria.dto.auth.TokenResponseDto;
 import com.kk.cibaria.exception.UserNotFoundException;
-import com.kk.cibaria.security.UserDetailService;
+import com.kk.cibaria.security.AuthenticatedUser;
 import com.kk.cibaria.security.jwt.JwtService;
+import com.kk.cibaria.user.UserEntity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,11 +15,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,20 +32,22 @@ class LoginControllerTest {
     @Mock
     private JwtService jwtService;
 
-    @Mock
-    private UserDetailService userDetailService;
-
-    @Mock
-    private UserDetails userDetails;
-
     @InjectMocks
     private LoginController loginController;
 
     private LoginFormDto loginFormDto;
+    private UserEntity user;
+    private UsernamePasswordAuthenticationToken authenticated;
 
     @BeforeEach
     void setup() {
         loginFormDto = new LoginFormDto("test@test.com", "password123");
+        user = new UserEntity();
+        user.setId(1);
+        user.setEmail("test@test.com");
+        user.setPassword("encodedPassword");
+        AuthenticatedUser principal = new AuthenticatedUser(user, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        authenticated = UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
     }
 
     @Test
@@ -51,10 +55,8 @@ class LoginControllerTest {
         String expectedToken = "jwt.token.here";
         
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(null);
-        when(userDetailService.loadUserByUsername("test@test.com"))
-                .thenReturn(userDetails);
-        when(jwtService.generateToken(userDetails))
+                .thenReturn(authenticated);
+        when(jwtService.generateToken(user))
                 .thenReturn(expectedToken);
 
         TokenResponseDto response = loginController.authenticate(loginFormDto);
@@ -64,8 +66,7 @@ class LoginControllerTest {
         assertEquals("Bearer", response.getType());
         
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userDetailService).loadUserByUsername("test@test.com");
-        verify(jwtService).generateToken(userDetails);
+        verify(jwtService).generateToken(user);
     }
 
     @Test
@@ -79,7 +80,6 @@ class LoginControllerTest {
         assertEquals("Invalid credentials", exception.getMessage());
         
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userDetailService, never()).loadUserByUsername(anyString());
         verify(jwtService, never()).generateToken(any());
     }
 
@@ -92,16 +92,13 @@ class LoginControllerTest {
                 () -> loginController.authenticate(loginFormDto));
         
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userDetailService, never()).loadUserByUsername(anyString());
         verify(jwtService, never()).generateToken(any());
     }
 
     @Test
     void authenticate_VerifiesCorrectAuthenticationToken() {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(null);
-        when(userDetailService.loadUserByUsername(anyString()))
-                .thenReturn(userDetails);
+                .thenReturn(authenticated);
         when(jwtService.generateToken(any()))
                 .thenReturn("token");
 
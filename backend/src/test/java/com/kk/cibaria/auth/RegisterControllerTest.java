@@ -1,5 +1,6 @@
 package com.kk.cibaria.auth;
 
+import com.kk.cibaria.dto.auth.EmailAvailabilityDto;
 import com.kk.cibaria.dto.auth.RegisterDto;
 import com.kk.cibaria.dto.auth.TokenResponseDto;
 import com.kk.cibaria.user.UserService;
@@ -101,4 +102,14 @@ class RegisterControllerTest {
         assertNotNull(response);
         verify(userService).save(emptyDto);
     }
-}
\ No newline at end of file
+
+    @Test
+    void isEmailAvailable_ReturnsTheServiceAnswer() {
+        when(userService.isEmailAvailable("new@test.com")).thenReturn(true);
+
+        EmailAvailabilityDto response = registerController.isEmailAvailable("new@test.com");
+
+        assertEquals("new@test.com", response.getEmail());
+        assertTrue(response.isAvailable());
+    }
+}
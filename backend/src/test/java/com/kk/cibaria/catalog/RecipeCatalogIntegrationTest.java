@@ -0,0 +1,155 @@
+package com.kk.cibaria.catalog;
+
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import com.kk.cibaria.recipe.RecipeRatedEvent;
+import com.kk.cibaria.recipe.RecipeRepository;
+import com.kk.cibaria.search.IngredientIndex;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "cibaria.listing.engine=catalog")
+@Import({ RecipeCatalog.class, IngredientIndex.class })
+class RecipeCatalogIntegrationTest {
+
+    @Autowired
+    private RecipeCatalog recipeCatalog;
+
+    @Autowired
+    private IngredientIndex ingredientIndex;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserEntity testUser;
+
+    @BeforeEach
+    void setup() {
+        testUser = new UserEntity();
+        testUser.setUsername("testuser");
+        testUser.setEmail("test@test.com");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void cleanup() {
+        recipeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void run_LoadsRecipesAndFilters() {
+        Recipe soup = saveRecipe("Soup", "Dinner", 2, true, "Tomato");
+        Recipe cake = saveRecipe("Cake", "Dessert", 3, true, "Flour");
+        saveRecipe("Secret", "Dinner", 2, false, "Tomato");
+        recipeCatalog.run(null);
+        ingredientIndex.run(null);
+
+        assertEquals(List.of(soup.getId(), cake.getId()),
+                recipeCatalog.find(null, null, null, null, true, null, null, 0, 10).ids());
+        assertEquals(3, recipeCatalog.find(null, null, null, null, false, null, null, 0, 10).total());
+        assertEquals(List.of(soup.getId()),
+                recipeCatalog.find(List.of("Dinner"), 2, "1-4", "0-60", true, "EN", List.of("tomato"), 0, 10).ids());
+    }
+
+    @Test
+    void facets_AppliesTheListingFilters() {
+        saveRecipe("Soup", "Dinner", 2, true, "Tomato");
+        saveRecipe("Cake", "Dessert", 3, true, "Flour");
+        saveRecipe("Stew", "Dinner", 3, true, "Tomato");
+        recipeCatalog.run(null);
+        ingredientIndex.run(null);
+
+        RecipeFacetsDto facets = recipeCatalog.facets(null, null, null, null, true, null, List.of("tomato"));
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(Map.of("Dinner", 2L), facets.getCategory());
+        assertEquals(Map.of(2, 1L, 3, 1L), facets.getDifficulty());
+    }
+
+    @Test
+    void onRecipeChanged_UpdatesAfterCommit() {
+        Recipe soup = saveRecipe("Soup", "Dinner", 2, true, "Tomato");
+        recipeCatalog.run(null);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Recipe loaded = recipeRepository.findById(soup.getId()).orElseThrow();
+            loaded.setCategory("Lunch");
+            eventPublisher.publishEvent(new RecipeChangedEvent(loaded.getId(), false));
+        });
+        assertEquals(List.of(soup.getId()),
+                recipeCatalog.find(List.of("Lunch"), null, null, null, true, null, null, 0, 10).ids());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            recipeRepository.deleteById(soup.getId());
+            eventPublisher.publishEvent(new RecipeChangedEvent(soup.getId(), true));
+        });
+        assertEquals(0, recipeCatalog.find(null, null, null, null, false, null, null, 0, 10).total());
+    }
+
+    @Test
+    void onRecipeRated_AndMetrics() {
+        Recipe soup = saveRecipe("Soup", "Dinner", 2, true, "Tomato");
+        recipeCatalog.run(null);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            recipeRepository.addToRatingAggregates(soup.getId(), 1, 4);
+            eventPublisher.publishEvent(new RecipeRatedEvent(soup.getId()));
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        recipeCatalog.bindTo(registry);
+
+        assertEquals(1, registry.get("recipes.catalog.recipes").gauge().value());
+        assertTrue(registry.get("recipes.catalog.size").gauge().value() > 0);
+    }
+
+    private Recipe saveRecipe(String name, String category, int difficulty, boolean isPublic, String ingredientName) {
+        Recipe recipe = new Recipe();
+        recipe.setRecipeName(name);
+        recipe.setCategory(category);
+        recipe.setDifficulty(difficulty);
+        recipe.setServings(4);
+        recipe.setPrepareTime(30);
+        recipe.setLanguage("en");
+        recipe.setIsPublic(isPublic);
+        recipe.setUser(testUser);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setIngredientName(ingredientName);
+        ingredient.setRecipe(recipe);
+        recipe.setIngredients(new ArrayList<>(List.of(ingredient)));
+        return recipeRepository.save(recipe);
+    }
+}
@@ -0,0 +1,158 @@
+package com.kk.cibaria.catalog;
+
+import com.kk.cibaria.catalog.RecipeColumns.Query;
+import com.kk.cibaria.catalog.RecipeColumns.Result;
+import com.kk.cibaria.catalog.RecipeColumns.Row;
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeColumnsTest {
+
+    private static final List<String> CATEGORIES = List.of("Breakfast", "Dinner", "Dessert", "Soup");
+    private static final List<String> LANGUAGES = List.of("en", "pl");
+
+    private RecipeColumns columns;
+
+    @BeforeEach
+    void setup() {
+        columns = new RecipeColumns();
+        columns.put(new Row(1, 1, 2, 15, "Breakfast", "en", true, 4.5f));
+        columns.put(new Row(2, 3, 4, 60, "Dinner", "EN", true, 0f));
+        columns.put(new Row(3, 3, 4, 45, "Dinner", "pl", false, 3f));
+        columns.put(new Row(5, 2, 6, 30, null, null, true, 0f));
+    }
+
+    @Test
+    void find_EqualityFilters() {
+        assertEquals(List.of(2), find(new Query(List.of("Dinner"), 3, null, null, true, null, null)));
+        assertEquals(List.of(2, 3), find(new Query(List.of("Dinner"), null, null, null, false, null, null)));
+        assertEquals(List.of(1, 2), find(new Query(null, null, null, null, true, "en", null)));
+        assertEquals(List.of(1, 2), find(new Query(List.of("Breakfast", "Dinner"), null, null, null, true, null, null)));
+        assertEquals(List.of(), find(new Query(List.of(), null, null, null, true, null, null)));
+    }
+
+    @Test
+    void find_RangesAndIds() {
+        assertEquals(List.of(2, 5), find(new Query(null, null, new int[] { 4, 6 }, null, true, null, null)));
+        assertEquals(List.of(3, 5), find(new Query(null, null, null, new int[] { 30, 45 }, false, null, null)));
+        assertEquals(List.of(1, 5), find(new Query(null, null, null, null, true, null, new int[] { 1, 3, 5, 9 })));
+    }
+
+    @Test
+    void find_Paginates() {
+        Result result = columns.find(new Query(null, null, null, null, false, null, null), 1, 2);
+
+        assertEquals(List.of(2, 3), result.ids());
+        assertEquals(4, result.total());
+        assertEquals(List.of(), columns.find(new Query(null, null, null, null, false, null, null), 4, 2).ids());
+    }
+
+    @Test
+    void put_UpdatesIndexedValues() {
+        columns.put(new Row(3, 1, 4, 45, "Breakfast", "pl", true, 3f));
+
+        assertEquals(List.of(1, 3), find(new Query(List.of("Breakfast"), null, null, null, true, null, null)));
+        assertEquals(List.of(2), find(new Query(List.of("Dinner"), null, null, null, false, null, null)));
+    }
+
+    @Test
+    void put_OutOfOrderIdKeepsListingOrder() {
+        columns.put(new Row(4, 2, 2, 10, "Soup", "en", true, 0f));
+
+        assertEquals(List.of(1, 2, 4, 5), find(new Query(null, null, null, null, true, null, null)));
+        assertEquals(5, columns.size());
+    }
+
+    @Test
+    void remove_DropsRow() {
+        columns.remove(2);
+        columns.remove(42);
+
+        assertEquals(List.of(1, 5), find(new Query(null, null, null, null, true, null, null)));
+        assertEquals(3, columns.size());
+    }
+
+    @Test
+    void facets_CountsMatchingRows() {
+        RecipeFacetsDto facets = columns.facets(new Query(null, null, null, null, true, null, null));
+
+        assertEquals(3, facets.getTotal());
+        assertEquals(Map.of("Breakfast", 1L, "Dinner", 1L), facets.getCategory());
+        assertEquals(Map.of(1, 1L, 2, 1L, 3, 1L), facets.getDifficulty());
+        assertEquals(Map.of("en", 2L), facets.getLanguage());
+        assertEquals(List.of(1L, 1L, 1L, 0L), List.copyOf(facets.getServings().values()));
+        assertEquals(List.of(1L, 1L, 1L, 0L, 0L), List.copyOf(facets.getPrepareTime().values()));
+        assertEquals(1, columns.facets(new Query(List.of("Dinner"), null, null, null, false, "pl", null)).getTotal());
+    }
+
+    @Test
+    void find_MatchesBruteForceAfterRandomChanges() {
+        Random random = new Random(7);
+        RecipeColumns large = new RecipeColumns();
+        List<Row> rows = new ArrayList<>();
+        for (int id = 1; id <= 5000; id++) {
+            Row row = randomRow(random, id);
+            rows.add(row);
+            large.put(row);
+        }
+        for (int i = 0; i < 2000; i++) {
+            int index = random.nextInt(rows.size());
+            if (random.nextBoolean()) {
+                large.remove(rows.remove(index).id());
+            } else {
+                Row row = randomRow(random, rows.get(index).id());
+                rows.set(index, row);
+                large.put(row);
+            }
+        }
+
+        for (int i = 0; i < 200; i++) {
+            Query query = randomQuery(random);
+            Predicate<Row> matches = row -> (!query.publicOnly() || row.isPublic())
+                    && (query.categories() == null || query.categories().contains(row.category()))
+                    && (query.difficulty() == null || query.difficulty() == row.difficulty())
+                    && (query.language() == null || query.language().equalsIgnoreCase(row.language()))
+                    && (query.servings() == null
+                        || (row.servings() >= query.servings()[0] && row.servings() <= query.servings()[1]))
+                    && (query.prepareTime() == null
+                        || (row.prepareTime() >= query.prepareTime()[0] && row.prepareTime() <= query.prepareTime()[1]));
+            List<Integer> expected = rows.stream().filter(matches).map(Row::id).sorted().toList();
+
+            Result result = large.find(query, 20, 10);
+
+            assertEquals(expected.size(), result.total());
+            assertEquals(expected.subList(Math.min(20, expected.size()), Math.min(30, expected.size())), result.ids());
+        }
+    }
+
+    private List<Integer> find(Query query) {
+        return columns.find(query, 0, 100).ids();
+    }
+
+    private static Row randomRow(Random random, int id) {
+        return new Row(id, 1 + random.nextInt(5), 1 + random.nextInt(8), 5 * (1 + random.nextInt(24)),
+                CATEGORIES.get(random.nextInt(CATEGORIES.size())), LANGUAGES.get(random.nextInt(LANGUAGES.size())),
+                random.nextInt(4) > 0, random.nextFloat() * 5);
+    }
+
+    private static Query randomQuery(Random random) {
+        return new Query(
+                random.nextBoolean() ? null : Arrays.asList(CATEGORIES.get(random.nextInt(4)), CATEGORIES.get(random.nextInt(4))),
+                random.nextBoolean() ? null : 1 + random.nextInt(5),
+                random.nextBoolean() ? null : new int[] { 2, 5 },
+                random.nextBoolean() ? null : new int[] { 10, 60 },
+                random.nextBoolean(),
+                random.nextBoolean() ? null : LANGUAGES.get(random.nextInt(2)),
+                null);
+    }
+}
@@ -0,0 +1,147 @@
+package com.kk.cibaria.helper;
+
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.recipe.RecipeRepository;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RecipeSpecificationIntegrationTest {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private UserEntity testUser;
+
+    @BeforeEach
+    void setup() {
+        testUser = new UserEntity();
+        testUser.setUsername("testuser");
+        testUser.setEmail("test@test.com");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+
+        saveRecipe("Pancakes", "Breakfast", 1, 20, 2, true, "en", "Flour", "Milk", "Eggs");
+        saveRecipe("Omelette", "Breakfast", 2, 10, 1, true, "en", "Eggs", "Milk");
+        saveRecipe("Lasagne", "Dinner", 4, 90, 6, true, "en", "Pasta", "Tomato");
+        saveRecipe("Pierogi", "Dinner", 3, 60, 4, true, "pl", "Mąka", "Ziemniaki");
+        saveRecipe("Secret Soup", "Dinner", 2, 30, 4, false, "en", "Tomato", "Water");
+    }
+
+    private void saveRecipe(String name, String category, int difficulty, int prepareTime, int servings,
+                            boolean isPublic, String language, String... ingredientNames) {
+        Recipe recipe = new Recipe();
+        recipe.setRecipeName(name);
+        recipe.setCategory(category);
+        recipe.setDifficulty(difficulty);
+        recipe.setPrepareTime(prepareTime);
+        recipe.setServings(servings);
+        recipe.setIsPublic(isPublic);
+        recipe.setLanguage(language);
+        recipe.setUser(testUser);
+
+        List<Ingredient> ingredients = new ArrayList<>();
+        for (String ingredientName : ingredientNames) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setIngredientName(ingredientName);
+            ingredient.setLanguage(language);
+            ingredient.setRecipe(recipe);
+            ingredients.add(ingredient);
+        }
+        recipe.setIngredients(ingredients);
+        recipeRepository.save(recipe);
+    }
+
+    private List<String> findNames(List<String> category, Integer difficulty, String servings, String prepareTime,
+                                   Boolean isPublic, String language, List<String> ingredients) {
+        return recipeRepository.findAll(
+                        RecipeSpecification.filterByParams(category, difficulty, servings, prepareTime, isPublic,
+                                language, ingredients),
+                        Sort.by("id"))
+                .stream()
+                .map(Recipe::getRecipeName)
+                .toList();
+    }
+
+    @Test
+    void testNoFilters_ReturnsAllRecipes() {
+        assertEquals(5, findNames(null, null, null, null, null, null, null).size());
+    }
+
+    @Test
+    void testIsPublic_ExcludesPrivateRecipes() {
+        List<String> names = findNames(null, null, null, null, true, null, null);
+
+        assertEquals(4, names.size());
+        assertFalse(names.contains("Secret Soup"));
+    }
+
+    @Test
+    void testIsPublicFalse_DoesNotRestrict() {
+        assertEquals(5, findNames(null, null, null, null, false, null, null).size());
+    }
+
+    @Test
+    void testCategory() {
+        assertEquals(List.of("Pancakes", "Omelette"), findNames(List.of("Breakfast"), null, null, null, true, null, null));
+        assertEquals(4, findNames(List.of("Breakfast", "Dinner"), null, null, null, true, null, null).size());
+    }
+
+    @Test
+    void testDifficulty() {
+        assertEquals(List.of("Omelette", "Secret Soup"), findNames(null, 2, null, null, null, null, null));
+    }
+
+    @Test
+    void testServingsAndPrepareTimeRanges_AreInclusive() {
+        assertEquals(List.of("Pierogi", "Secret Soup"), findNames(null, null, "4-4", null, null, null, null));
+        assertEquals(List.of("Pancakes", "Omelette", "Secret Soup"), findNames(null, null, null, "10-30", null, null, null));
+    }
+
+    @Test
+    void testLanguage_IsCaseInsensitive() {
+        assertEquals(List.of("Pierogi"), findNames(null, null, null, null, true, "PL", null));
+    }
+
+    @Test
+    void testIngredients_AllHaveToMatch() {
+        assertEquals(List.of("Pancakes", "Omelette"), findNames(null, null, null, null, true, null, List.of("milk", "EGGS")));
+        assertEquals(List.of("Pancakes"), findNames(null, null, null, null, true, null, List.of("milk", "flour")));
+        assertTrue(findNames(null, null, null, null, true, null, List.of("milk", "tomato")).isEmpty());
+    }
+
+    @Test
+    void testCombinedFilters() {
+        assertEquals(List.of("Lasagne"), findNames(List.of("Dinner"), null, "5-8", null, true, "en", List.of("Tomato")));
+    }
+
+    @Test
+    void testPagination_LimitsAndCounts() {
+        Page<Recipe> page = recipeRepository.findAll(
+                RecipeSpecification.filterByParams(null, null, null, null, true, null, null),
+                PageRequest.of(1, 3, Sort.by("id")));
+
+        assertEquals(1, page.getContent().size());
+        assertEquals("Pierogi", page.getContent().get(0).getRecipeName());
+        assertEquals(4, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+    }
+}
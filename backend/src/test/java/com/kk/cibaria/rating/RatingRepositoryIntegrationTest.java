@@ -2,6 +2,7 @@ package com.kk.cibaria.rating;
 
 import com.kk.cibaria.recipe.Recipe;
 import com.kk.cibaria.user.UserEntity;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -146,4 +147,39 @@ class RatingRepositoryIntegrationTest {
         assertEquals(5, foundRating1.get().getValue());
         assertEquals(4, foundRating2.get().getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUpsert_InsertsThenReplacesRating() {
+        assertTrue(ratingRepository.upsert(testRecipe.getId(), testUser.getId(), 4));
+        assertTrue(ratingRepository.upsert(testRecipe.getId(), testUser.getId(), 2));
+        entityManager.clear();
+
+        Optional<Rating> rating = ratingRepository.findByRecipeIdAndUserId(testRecipe.getId(), testUser.getId());
+        assertTrue(rating.isPresent());
+        assertEquals(2, rating.get().getValue());
+        assertEquals(1, ratingRepository.count());
+
+        Recipe recipe = entityManager.find(Recipe.class, testRecipe.getId());
+        assertEquals(1, recipe.getRatingCount());
+        assertEquals(2, recipe.getRatingSum());
+        assertEquals(2.0, recipe.getRatingAverage());
+    }
+
+    @Test
+    void testUpsert_RecipeNotFound() {
+        assertFalse(ratingRepository.upsert(999, testUser.getId(), 4));
+        assertEquals(0, ratingRepository.count());
+    }
+
+    @Test
+    void testUniqueRecipeAndUser() {
+        entityManager.persistAndFlush(testRating);
+
+        Rating duplicate = new Rating();
+        duplicate.setUser(testUser);
+        duplicate.setRecipe(testRecipe);
+        duplicate.setValue(1);
+
+        assertThrows(ConstraintViolationException.class, () -> entityManager.persistAndFlush(duplicate));
+    }
+}
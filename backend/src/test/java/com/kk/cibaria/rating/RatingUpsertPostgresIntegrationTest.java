@@ -0,0 +1,129 @@
+package com.kk.cibaria.rating;
+
+import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.recipe.RecipeRepository;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the ON CONFLICT write path against a real Postgres, skipped when Docker is not available
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RatingUpsertPostgresIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Recipe testRecipe;
+    private List<UserEntity> users;
+
+    @BeforeEach
+    void setup() {
+        users = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            UserEntity user = new UserEntity();
+            user.setUsername("user" + i);
+            user.setEmail("user" + i + "@test.com");
+            user.setPassword("password");
+            users.add(userRepository.save(user));
+        }
+
+        testRecipe = new Recipe();
+        testRecipe.setRecipeName("Test Recipe");
+        testRecipe.setUser(users.get(0));
+        testRecipe = recipeRepository.save(testRecipe);
+    }
+
+    @AfterEach
+    void cleanup() {
+        ratingRepository.deleteAll();
+        recipeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private boolean upsert(int recipeId, int userId, int value) {
+        return new TransactionTemplate(transactionManager)
+                .execute(status -> ratingRepository.upsert(recipeId, userId, value));
+    }
+
+    @Test
+    void testUpsert_InsertsThenReplacesRating() {
+        assertTrue(upsert(testRecipe.getId(), users.get(0).getId(), 4));
+        assertTrue(upsert(testRecipe.getId(), users.get(0).getId(), 2));
+        assertTrue(upsert(testRecipe.getId(), users.get(1).getId(), 5));
+
+        Recipe recipe = recipeRepository.findById(testRecipe.getId()).orElseThrow();
+        assertEquals(2, ratingRepository.count());
+        assertEquals(2, recipe.getRatingCount());
+        assertEquals(7, recipe.getRatingSum());
+        assertEquals(3.5, recipe.getRatingAverage());
+    }
+
+    @Test
+    void testUpsert_RecipeNotFound() {
+        assertFalse(upsert(-1, users.get(0).getId(), 4));
+        assertEquals(0, ratingRepository.count());
+    }
+
+    @Test
+    void testUpsert_ConcurrentClicksKeepOneRatingPerUser() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int click = 0; click < 4; click++) {
+            for (UserEntity user : users) {
+                int value = click + 1;
+                tasks.add(() -> upsert(testRecipe.getId(), user.getId(), value));
+            }
+        }
+        try {
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Rating> ratings = ratingRepository.findAll();
+        Recipe recipe = recipeRepository.findById(testRecipe.getId()).orElseThrow();
+        assertEquals(users.size(), ratings.size());
+        assertEquals(ratings.size(), recipe.getRatingCount());
+        assertEquals(ratings.stream().mapToLong(Rating::getValue).sum(), recipe.getRatingSum());
+    }
+}
@@ -0,0 +1,91 @@
+package com.kk.cibaria.recipe;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RecipeCatalogVersion.class, RecipeCatalogVersionIntegrationTest.Index.class})
+class RecipeCatalogVersionIntegrationTest {
+
+    @Autowired
+    private RecipeCatalogVersion catalogVersion;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Index index;
+
+    @Test
+    void version_MovesOnlyWhenTheChangeCommits() {
+        long start = catalogVersion.current();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new RecipeChangedEvent(1, false));
+            assertEquals(start, catalogVersion.current());
+        });
+        assertEquals(start + 1, catalogVersion.current());
+
+        transaction.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new RecipeRatedEvent(1));
+            status.setRollbackOnly();
+        });
+        assertEquals(start + 1, catalogVersion.current());
+    }
+
+    @Test
+    void version_MovesAfterTheIndexesApplyTheChange() {
+        index.versionsSeen.clear();
+        long start = catalogVersion.current();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> eventPublisher.publishEvent(new RecipeChangedEvent(1, false)));
+        transaction.executeWithoutResult(status -> eventPublisher.publishEvent(new RecipeRatedEvent(1)));
+
+        assertEquals(List.of(start, start + 1), index.versionsSeen);
+        assertEquals(start + 2, catalogVersion.current());
+    }
+
+    // stands in for RecipeCatalog and IngredientIndex, records the version it sees while applying a change
+    static class Index {
+
+        private final RecipeCatalogVersion catalogVersion;
+        private final List<Long> versionsSeen = new ArrayList<>();
+
+        Index(RecipeCatalogVersion catalogVersion) {
+            this.catalogVersion = catalogVersion;
+        }
+
+        @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+        @Order(RecipeCatalogVersion.INDEXES)
+        public void onRecipeChanged(RecipeChangedEvent event) {
+            versionsSeen.add(catalogVersion.current());
+        }
+
+        @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+        @Order(RecipeCatalogVersion.INDEXES)
+        public void onRecipeRated(RecipeRatedEvent event) {
+            versionsSeen.add(catalogVersion.current());
+        }
+    }
+}
@@ -10,13 +10,19 @@ import com.kk.cibaria.image.ImageService;
 import com.kk.cibaria.image.ImageType;
 import com.kk.cibaria.ingredient.Ingredient;
 import com.kk.cibaria.ingredient.IngredientService;
+import com.kk.cibaria.search.IngredientIndex;
+import com.kk.cibaria.search.RecipeSuggester;
 import com.kk.cibaria.step.Step;
 import com.kk.cibaria.user.UserEntity;
 import com.kk.cibaria.user.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcBuilderCustomizer;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
@@ -29,10 +35,13 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.hasItem;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -74,6 +83,12 @@ class RecipeControllerIntegrationTest {
             when(mockIngredientService.filterByLanguage(any(), any())).thenReturn(new ArrayList<>());
             return mockIngredientService;
         }
+
+        // MockMvc builds its own DispatcherServlet, which does not read spring.mvc.publish-request-handled-events
+        @Bean
+        public MockMvcBuilderCustomizer noRequestHandledEvents() {
+            return builder -> builder.addDispatcherServletCustomizer(servlet -> servlet.setPublishEvents(false));
+        }
     }
 
     @Autowired
@@ -91,6 +106,18 @@ class RecipeControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private RecipeSuggester recipeSuggester;
+
+    @Autowired
+    private IngredientIndex ingredientIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private UserEntity testUser;
     private String authToken;
     private Recipe testRecipe;
@@ -159,6 +186,44 @@ class RecipeControllerIntegrationTest {
                 .andExpect(jsonPath("$.content").isArray());
     }
 
+    @Test
+    void testScrollRecipes() throws Exception {
+        for (String name : List.of("Second Recipe", "Third Recipe")) {
+            Recipe recipe = new Recipe();
+            recipe.setRecipeName(name);
+            recipe.setCategory("Dinner");
+            recipe.setIsPublic(true);
+            recipe.setLanguage("en");
+            recipe.setUser(testUser);
+            recipeRepository.save(recipe);
+        }
+
+        MvcResult firstPage = mockMvc.perform(get("/recipes/scroll")
+                .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].recipeName").value("Test Recipe"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+
+        String next = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("next").asText();
+
+        mockMvc.perform(get("/recipes/scroll")
+                .param("size", "2")
+                .param("after", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].recipeName").value("Third Recipe"))
+                .andExpect(jsonPath("$.hasNext").value(false));
+    }
+
+    @Test
+    void testScrollRecipes_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/recipes/scroll")
+                .param("after", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetRecipeById() throws Exception {
         mockMvc.perform(get("/recipes/{id}", testRecipe.getId()))
@@ -168,6 +233,55 @@ class RecipeControllerIntegrationTest {
                 .andExpect(jsonPath("$.difficulty").value(3));
     }
 
+    @Test
+    void testGetRecipeById_ConditionalGet() throws Exception {
+        String etag = mockMvc.perform(get("/recipes/{id}", testRecipe.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/recipes/{id}", testRecipe.getId())
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        recipeRepository.addToRatingAggregates(testRecipe.getId(), 1, 4);
+        // the native update leaves the recipe of the test transaction stale, a request loads it afresh
+        entityManager.clear();
+
+        String rated = mockMvc.perform(get("/recipes/{id}", testRecipe.getId())
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ratingCount").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, rated);
+    }
+
+    @Test
+    void testGetRecipesByPage_ConditionalGet() throws Exception {
+        String etag = mockMvc.perform(get("/recipes"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertTrue(etag.startsWith("W/"));
+
+        mockMvc.perform(get("/recipes")
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testGetRecipeById_Gzip() throws Exception {
+        byte[] body = mockMvc.perform(get("/recipes/{id}", testRecipe.getId())
+                .header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        byte[] json = new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes();
+        assertEquals("Test Recipe", objectMapper.readTree(json).get("recipeName").asText());
+    }
+
     @Test
     void testGetRecipeById_NotFound() throws Exception {
         mockMvc.perform(get("/recipes/{id}", 99999))
@@ -373,6 +487,26 @@ class RecipeControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void testRateRecipe_UpdatesAverageRating() throws Exception {
+        mockMvc.perform(post("/recipes/{id}", testRecipe.getId())
+                .header("Authorization", authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("4"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/recipes/{id}", testRecipe.getId())
+                .header("Authorization", authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("2"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/recipes/search")
+                .param("query", "Test"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].avgRating").value(2.0));
+    }
+
     @Test
     void testGetUserRating() throws Exception {
         mockMvc.perform(post("/recipes/{id}", testRecipe.getId())
@@ -404,6 +538,32 @@ class RecipeControllerIntegrationTest {
                 .andExpect(content().string("true"));
     }
 
+    @Test
+    void testPublicReadsDoNotVerifyTheToken() throws Exception {
+        double before = tokenLookups();
+
+        mockMvc.perform(get("/recipes/{id}", testRecipe.getId())
+                .header("Authorization", authToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/recipes/facets")
+                .header("Authorization", authToken))
+                .andExpect(status().isOk());
+        assertEquals(before, tokenLookups());
+
+        // a handler taking the current user still gets it
+        mockMvc.perform(get("/recipes/{id}/isOwner", testRecipe.getId())
+                .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(content().string("true"));
+        assertEquals(before + 1, tokenLookups());
+    }
+
+    private double tokenLookups() {
+        return meterRegistry.find("cache.gets").tag("cache", "security.tokens").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count)
+                .sum();
+    }
+
     @Test
     void testAddAndRemoveFromFavourites() throws Exception {
         FavouriteRequest request = new FavouriteRequest();
@@ -442,4 +602,76 @@ class RecipeControllerIntegrationTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$[0].recipeName").value("Test Recipe"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSuggest() throws Exception {
+        recipeSuggester.run(null);
+
+        mockMvc.perform(get("/recipes/suggest")
+                .param("prefix", "tes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("Test Recipe"));
+    }
+
+    @Test
+    void testGetRecipesByPage_Sorted() throws Exception {
+        Recipe quick = new Recipe();
+        quick.setRecipeName("Quick Recipe");
+        quick.setDifficulty(1);
+        quick.setPrepareTime(5);
+        quick.setServings(1);
+        quick.setCategory("Dinner");
+        quick.setIsPublic(true);
+        quick.setLanguage("en");
+        quick.setUser(testUser);
+        recipeRepository.save(quick);
+
+        mockMvc.perform(get("/recipes")
+                .param("sort", "prepareTime"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].recipeName").value("Quick Recipe"));
+
+        mockMvc.perform(get("/recipes")
+                .param("sort", "difficulty")
+                .param("direction", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].recipeName").value("Test Recipe"));
+
+        mockMvc.perform(get("/recipes")
+                .param("sort", "name"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetFacets() throws Exception {
+        mockMvc.perform(get("/recipes/facets")
+                .param("category", "Dinner")
+                .param("language", "EN"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.category.Dinner").value(1))
+                .andExpect(jsonPath("$.difficulty.3").value(1))
+                .andExpect(jsonPath("$.servings['3-4']").value(1))
+                .andExpect(jsonPath("$.prepareTime['16-30']").value(1));
+    }
+
+    @Test
+    void testGetRecipesByPage_IngredientFilter() throws Exception {
+        Ingredient tomato = new Ingredient();
+        tomato.setIngredientName("Tomato");
+        tomato.setRecipe(testRecipe);
+        testRecipe.getIngredients().add(tomato);
+        recipeRepository.saveAndFlush(testRecipe);
+        ingredientIndex.run(null);
+
+        mockMvc.perform(get("/recipes")
+                .param("ingredients", "tomato"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].recipeName").value("Test Recipe"));
+
+        mockMvc.perform(get("/recipes/scroll")
+                .param("ingredients", "tomato", "garlic"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").isEmpty());
+    }
+}
@@ -3,16 +3,25 @@ package com.kk.cibaria.recipe;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kk.cibaria.dto.FavouriteRequest;
 import com.kk.cibaria.dto.RecipeAddDto;
+import com.kk.cibaria.dto.RecipeFacetsDto;
 import com.kk.cibaria.dto.RecipeRequestDto;
+import com.kk.cibaria.dto.RecipeScrollDto;
+import com.kk.cibaria.dto.RecipeSummary;
 import com.kk.cibaria.image.ImageService;
+import com.kk.cibaria.security.CurrentUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -37,9 +46,10 @@ class RecipeControllerTest {
     private RecipeController recipeController;
 
     private Recipe testRecipe;
+    private RecipeSummary testSummary;
     private RecipeAddDto testRecipeAddDto;
     private RecipeRequestDto testRecipeRequestDto;
-    private String testToken;
+    private CurrentUser currentUser;
     private ObjectMapper objectMapper;
 
     @BeforeEach
@@ -65,27 +75,29 @@ class RecipeControllerTest {
         testRecipeAddDto.setIngredients(new ArrayList<>());
         testRecipeAddDto.setSteps(new ArrayList<>());
 
+        testSummary = new RecipeSummary(1, "Test Recipe", "Dinner", 3, 30, 4, "en", null, null);
+
         testRecipeRequestDto = new RecipeRequestDto();
-        testRecipeRequestDto.setContent(List.of(testRecipe));
+        testRecipeRequestDto.setContent(List.of(testSummary));
         testRecipeRequestDto.setTotalPages(1);
 
-        testToken = "Bearer testtoken123";
+        currentUser = new CurrentUser(1, List.of("USER"));
         objectMapper = new ObjectMapper();
     }
 
     @Test
     void testGetRecipesByPage() {
-        when(recipeService.getRecipeByPage(1, 10, null, null, null, null, true, null, null))
+        when(recipeService.getRecipeByPage(1, 10, null, null, null, null, true, null, null, null, null))
             .thenReturn(testRecipeRequestDto);
 
         RecipeRequestDto result = recipeController.getRecipesByPage(1, 10, null, null, 
-            null, null, true, null, null);
+            null, null, true, null, null, null, null, webRequest());
 
         assertNotNull(result);
         assertEquals(1, result.getContent().size());
-        assertEquals(testRecipe, result.getContent().get(0));
+        assertEquals(testSummary, result.getContent().get(0));
         assertEquals(1, result.getTotalPages());
-        verify(recipeService).getRecipeByPage(1, 10, null, null, null, null, true, null, null);
+        verify(recipeService).getRecipeByPage(1, 10, null, null, null, null, true, null, null, null, null);
     }
 
     @Test
@@ -93,37 +105,132 @@ class RecipeControllerTest {
         List<String> categories = List.of("Breakfast");
         List<String> ingredients = List.of("tomato");
         
-        when(recipeService.getRecipeByPage(1, 5, categories, 2, "4", "30", false, "en", ingredients))
+        when(recipeService.getRecipeByPage(1, 5, categories, 2, "4", "30", false, "en", ingredients, "rating", "asc"))
             .thenReturn(testRecipeRequestDto);
 
         RecipeRequestDto result = recipeController.getRecipesByPage(1, 5, categories, 2, 
-            "4", "30", false, "en", ingredients);
+            "4", "30", false, "en", ingredients, "rating", "asc", webRequest());
 
         assertNotNull(result);
-        verify(recipeService).getRecipeByPage(1, 5, categories, 2, "4", "30", false, "en", ingredients);
+        verify(recipeService).getRecipeByPage(1, 5, categories, 2, "4", "30", false, "en", ingredients, "rating", "asc");
+    }
+
+    @Test
+    void testGetRecipesAfter() {
+        RecipeScrollDto scrollDto = new RecipeScrollDto();
+        scrollDto.setContent(List.of(testSummary));
+        scrollDto.setHasNext(false);
+        when(recipeService.getRecipesAfter("abc", 10, null, null, null, null, true, null, null))
+            .thenReturn(scrollDto);
+
+        RecipeScrollDto result = recipeController.getRecipesAfter("abc", 10, null, null,
+            null, null, true, null, null);
+
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isHasNext());
+        verify(recipeService).getRecipesAfter("abc", 10, null, null, null, null, true, null, null);
+    }
+
+    @Test
+    void testGetRecipesByPage_NotModified() {
+        when(recipeService.getListingETag()).thenReturn("W/\"abc-7\"");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/recipes");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"abc-7\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        RecipeRequestDto result = recipeController.getRecipesByPage(1, 10, null, null,
+            null, null, true, null, null, null, null, new ServletWebRequest(request, response));
+
+        assertNull(result);
+        assertEquals(304, response.getStatus());
+        verify(recipeService, never()).getRecipeByPage(anyInt(), anyInt(), any(), any(), any(), any(), any(), any(),
+            any(), any(), any());
     }
 
     @Test
     void testGetById() {
-        when(recipeService.getById(1)).thenReturn(testRecipe);
+        RecipeDetailCache.Detail detail = new RecipeDetailCache.Detail("\"2-0-0\"", new byte[] { 1 }, new byte[] { 2 });
+        when(recipeService.getETag(1)).thenReturn("\"2-0-0\"");
+        when(recipeService.getDetail(1, "\"2-0-0\"")).thenReturn(detail);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<byte[]> result = recipeController.getById(1,
+            new ServletWebRequest(new MockHttpServletRequest("GET", "/recipes"), response), response);
+
+        assertSame(detail.json(), result.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, result.getHeaders().getContentType());
+        assertNull(result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"2-0-0\"", response.getHeader(HttpHeaders.ETAG));
+        verify(recipeService, never()).getById(anyInt());
+    }
 
-        Recipe result = recipeController.getById(1);
+    @Test
+    void testGetById_ChangedSinceTheETagWasRead() {
+        RecipeDetailCache.Detail detail = new RecipeDetailCache.Detail("\"3-0-0\"", new byte[] { 1 }, new byte[] { 2 });
+        when(recipeService.getETag(1)).thenReturn("\"2-0-0\"");
+        when(recipeService.getDetail(1, "\"2-0-0\"")).thenReturn(detail);
+        MockHttpServletResponse response = new MockHttpServletResponse();
 
-        assertEquals(testRecipe, result);
-        verify(recipeService).getById(1);
+        ResponseEntity<byte[]> result = recipeController.getById(1,
+            new ServletWebRequest(new MockHttpServletRequest("GET", "/recipes"), response), response);
+
+        assertSame(detail.json(), result.getBody());
+        assertEquals(List.of("\"3-0-0\""), response.getHeaders(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testGetById_Gzip() {
+        RecipeDetailCache.Detail detail = new RecipeDetailCache.Detail("\"2-0-0\"", new byte[] { 1 }, new byte[] { 2 });
+        when(recipeService.getETag(1)).thenReturn("\"2-0-0\"");
+        when(recipeService.getDetail(1, "\"2-0-0\"")).thenReturn(detail);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/recipes");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<byte[]> result = recipeController.getById(1, new ServletWebRequest(request, response), response);
+
+        assertSame(detail.gzip(), result.getBody());
+        assertEquals("gzip", result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING), result.getHeaders().getVary());
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(RecipeController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(RecipeController.acceptsGzip("*"));
+        assertTrue(RecipeController.acceptsGzip("X-GZIP ; q=0.5"));
+        assertFalse(RecipeController.acceptsGzip(null));
+        assertFalse(RecipeController.acceptsGzip("identity"));
+        assertFalse(RecipeController.acceptsGzip("gzip;q=0, *"));
+        assertFalse(RecipeController.acceptsGzip("*;q=0"));
+    }
+
+    @Test
+    void testGetById_NotModified() {
+        when(recipeService.getETag(1)).thenReturn("\"2-0-0\"");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/recipes");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"2-0-0\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        ResponseEntity<byte[]> result = recipeController.getById(1, new ServletWebRequest(request, response), response);
+
+        assertNull(result);
+        assertEquals(304, response.getStatus());
+        verify(recipeService, never()).getDetail(anyInt(), any());
     }
 
     @Test
     void testSave_WithoutImages() throws IOException {
         String recipeJson = objectMapper.writeValueAsString(testRecipeAddDto);
         
-        when(recipeService.saveRecipeWithoutPhoto(any(RecipeAddDto.class), eq(testToken)))
+        when(recipeService.saveRecipeWithoutPhoto(any(RecipeAddDto.class), eq(currentUser)))
             .thenReturn(testRecipe);
 
-        Recipe result = recipeController.save(recipeJson, testToken, Optional.empty());
+        Recipe result = recipeController.save(recipeJson, currentUser, Optional.empty());
 
         assertEquals(testRecipe, result);
-        verify(recipeService).saveRecipeWithoutPhoto(any(RecipeAddDto.class), eq(testToken));
+        verify(recipeService).saveRecipeWithoutPhoto(any(RecipeAddDto.class), eq(currentUser));
         verify(recipeService, never()).saveRecipeWithPhotos(any(), any(), any());
     }
 
@@ -133,13 +240,13 @@ class RecipeControllerTest {
         List<MultipartFile> images = List.of(new MockMultipartFile("image", "test.jpg", 
             "image/jpeg", "test data".getBytes()));
         
-        when(recipeService.saveRecipeWithPhotos(any(RecipeAddDto.class), eq(images), eq(testToken)))
+        when(recipeService.saveRecipeWithPhotos(any(RecipeAddDto.class), eq(images), eq(currentUser)))
             .thenReturn(testRecipe);
 
-        Recipe result = recipeController.save(recipeJson, testToken, Optional.of(images));
+        Recipe result = recipeController.save(recipeJson, currentUser, Optional.of(images));
 
         assertEquals(testRecipe, result);
-        verify(recipeService).saveRecipeWithPhotos(any(RecipeAddDto.class), eq(images), eq(testToken));
+        verify(recipeService).saveRecipeWithPhotos(any(RecipeAddDto.class), eq(images), eq(currentUser));
         verify(recipeService, never()).saveRecipeWithoutPhoto(any(), any());
     }
 
@@ -149,99 +256,99 @@ class RecipeControllerTest {
         List<MultipartFile> images = List.of(new MockMultipartFile("image", "test.jpg", 
             "image/jpeg", "test data".getBytes()));
         
-        when(recipeService.updateRecipeWithPhotos(eq(1), any(Recipe.class), eq(images), eq(testToken)))
+        when(recipeService.updateRecipeWithPhotos(eq(1), any(Recipe.class), eq(images), eq(currentUser), isNull()))
             .thenReturn(testRecipe);
 
-        Recipe result = recipeController.update(1, recipeJson, testToken, images, null);
+        Recipe result = recipeController.update(1, recipeJson, currentUser, images, null, null);
 
         assertEquals(testRecipe, result);
-        verify(recipeService).updateRecipeWithPhotos(eq(1), any(Recipe.class), eq(images), eq(testToken));
-        verify(recipeService, never()).updateRecipeWithoutPhotos(anyInt(), any(), any(), anyBoolean());
+        verify(recipeService).updateRecipeWithPhotos(eq(1), any(Recipe.class), eq(images), eq(currentUser), isNull());
+        verify(recipeService, never()).updateRecipeWithoutPhotos(anyInt(), any(), any(), anyBoolean(), any());
     }
 
     @Test
     void testUpdate_WithoutImages_KeepExisting() throws IOException {
         String recipeJson = objectMapper.writeValueAsString(testRecipe);
         
-        when(recipeService.updateRecipeWithoutPhotos(eq(1), any(Recipe.class), eq(testToken), eq(true)))
+        when(recipeService.updateRecipeWithoutPhotos(eq(1), any(Recipe.class), eq(currentUser), eq(true), isNull()))
             .thenReturn(testRecipe);
 
-        Recipe result = recipeController.update(1, recipeJson, testToken, null, "true");
+        Recipe result = recipeController.update(1, recipeJson, currentUser, null, "true", null);
 
         assertEquals(testRecipe, result);
-        verify(recipeService).updateRecipeWithoutPhotos(eq(1), any(Recipe.class), eq(testToken), eq(true));
-        verify(recipeService, never()).updateRecipeWithPhotos(anyInt(), any(), any(), any());
+        verify(recipeService).updateRecipeWithoutPhotos(eq(1), any(Recipe.class), eq(currentUser), eq(true), isNull());
+        verify(recipeService, never()).updateRecipeWithPhotos(anyInt(), any(), any(), any(), any());
     }
 
     @Test
     void testUpdate_WithoutImages_DontKeepExisting() throws IOException {
         String recipeJson = objectMapper.writeValueAsString(testRecipe);
         
-        when(recipeService.updateRecipeWithoutPhotos(eq(1), any(Recipe.class), eq(testToken), eq(false)))
+        when(recipeService.updateRecipeWithoutPhotos(eq(1), any(Recipe.class), eq(currentUser), eq(false), isNull()))
             .thenReturn(testRecipe);
 
-        Recipe result = recipeController.update(1, recipeJson, testToken, null, "false");
+        Recipe result = recipeController.update(1, recipeJson, currentUser, null, "false", null);
 
         assertEquals(testRecipe, result);
-        verify(recipeService).updateRecipeWithoutPhotos(eq(1), any(Recipe.class), eq(testToken), eq(false));
+        verify(recipeService).updateRecipeWithoutPhotos(eq(1), any(Recipe.class), eq(currentUser), eq(false), isNull());
     }
 
     @Test
     void testDelete() {
-        doNothing().when(recipeService).delete(testToken, 1);
+        doNothing().when(recipeService).delete(currentUser, 1);
 
-        assertDoesNotThrow(() -> recipeController.delete(1, testToken));
-        verify(recipeService).delete(testToken, 1);
+        assertDoesNotThrow(() -> recipeController.delete(1, currentUser));
+        verify(recipeService).delete(currentUser, 1);
     }
 
     @Test
     void testRecipeRating() {
-        when(recipeService.rating(1, testToken, 4)).thenReturn(testRecipe);
+        doNothing().when(recipeService).rating(1, currentUser, 4);
 
-        assertDoesNotThrow(() -> recipeController.recipeRating(1, testToken, 4));
-        verify(recipeService).rating(1, testToken, 4);
+        assertDoesNotThrow(() -> recipeController.recipeRating(1, currentUser, 4));
+        verify(recipeService).rating(1, currentUser, 4);
     }
 
     @Test
     void testGetUserRating_Success() {
-        when(recipeService.getUserRating(1, testToken)).thenReturn(4);
+        when(recipeService.getUserRating(1, currentUser)).thenReturn(4);
 
-        ResponseEntity<Integer> result = recipeController.getUserRating(1, testToken);
+        ResponseEntity<Integer> result = recipeController.getUserRating(1, currentUser);
 
         assertEquals(200, result.getStatusCode().value());
         assertEquals(4, result.getBody());
-        verify(recipeService).getUserRating(1, testToken);
+        verify(recipeService).getUserRating(1, currentUser);
     }
 
     @Test
     void testGetUserRating_Exception() {
-        when(recipeService.getUserRating(1, testToken)).thenThrow(new RuntimeException("Test error"));
+        when(recipeService.getUserRating(1, currentUser)).thenThrow(new RuntimeException("Test error"));
 
-        ResponseEntity<Integer> result = recipeController.getUserRating(1, testToken);
+        ResponseEntity<Integer> result = recipeController.getUserRating(1, currentUser);
 
         assertEquals(200, result.getStatusCode().value());
         assertEquals(0, result.getBody());
-        verify(recipeService).getUserRating(1, testToken);
+        verify(recipeService).getUserRating(1, currentUser);
     }
 
     @Test
     void testIsRecipeFavourite() {
-        when(recipeService.isRecipeFavourite(testToken, 1)).thenReturn(true);
+        when(recipeService.isRecipeFavourite(currentUser, 1)).thenReturn(true);
 
-        boolean result = recipeController.isRecipeFavourite(testToken, 1);
+        boolean result = recipeController.isRecipeFavourite(currentUser, 1);
 
         assertTrue(result);
-        verify(recipeService).isRecipeFavourite(testToken, 1);
+        verify(recipeService).isRecipeFavourite(currentUser, 1);
     }
 
     @Test
     void testIsOwner() {
-        when(recipeService.isOwner(1, testToken)).thenReturn(true);
+        when(recipeService.isOwner(1, currentUser)).thenReturn(true);
 
-        boolean result = recipeController.isOwner(1, testToken);
+        boolean result = recipeController.isOwner(1, currentUser);
 
         assertTrue(result);
-        verify(recipeService).isOwner(1, testToken);
+        verify(recipeService).isOwner(1, currentUser);
     }
 
     @Test
@@ -249,10 +356,10 @@ class RecipeControllerTest {
         FavouriteRequest request = new FavouriteRequest();
         request.setRecipeId(1);
         
-        doNothing().when(recipeService).addRecipeToFavourites(testToken, 1);
+        doNothing().when(recipeService).addRecipeToFavourites(currentUser, 1);
 
-        assertDoesNotThrow(() -> recipeController.addRecipeToFavourites(testToken, request));
-        verify(recipeService).addRecipeToFavourites(testToken, 1);
+        assertDoesNotThrow(() -> recipeController.addRecipeToFavourites(currentUser, request));
+        verify(recipeService).addRecipeToFavourites(currentUser, 1);
     }
 
     @Test
@@ -260,21 +367,45 @@ class RecipeControllerTest {
         FavouriteRequest request = new FavouriteRequest();
         request.setRecipeId(1);
         
-        doNothing().when(recipeService).deleteRiceFromFavourites(testToken, 1);
+        doNothing().when(recipeService).deleteRiceFromFavourites(currentUser, 1);
 
-        assertDoesNotThrow(() -> recipeController.deleteRecipeFromFavourites(testToken, request));
-        verify(recipeService).deleteRiceFromFavourites(testToken, 1);
+        assertDoesNotThrow(() -> recipeController.deleteRecipeFromFavourites(currentUser, request));
+        verify(recipeService).deleteRiceFromFavourites(currentUser, 1);
     }
 
     @Test
     void testSearchRecipes() {
-        List<Recipe> recipes = List.of(testRecipe);
-        when(recipeService.searchRecipes("test")).thenReturn(recipes);
+        List<RecipeSummary> recipes = List.of(testSummary);
+        when(recipeService.searchRecipes("test", 1, 20)).thenReturn(recipes);
 
-        List<Recipe> result = recipeController.search("test");
+        List<RecipeSummary> result = recipeController.search("test", 1, 20);
 
         assertEquals(1, result.size());
-        assertEquals(testRecipe, result.get(0));
-        verify(recipeService).searchRecipes("test");
+        assertEquals(testSummary, result.get(0));
+        verify(recipeService).searchRecipes("test", 1, 20);
+    }
+
+    @Test
+    void testSuggest() {
+        when(recipeService.suggest("tom", 10)).thenReturn(List.of("Tomato"));
+
+        List<String> result = recipeController.suggest("tom", 10);
+
+        assertEquals(List.of("Tomato"), result);
+        verify(recipeService).suggest("tom", 10);
+    }
+
+    @Test
+    void testGetFacets() {
+        RecipeFacetsDto facets = new RecipeFacetsDto();
+        when(recipeService.getFacets(List.of("Dinner"), null, null, null, true, "en", null)).thenReturn(facets);
+
+        RecipeFacetsDto result = recipeController.getFacets(List.of("Dinner"), null, null, null, true, "en", null);
+
+        assertSame(facets, result);
+    }
+
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/recipes"), new MockHttpServletResponse());
     }
-}
\ No newline at end of file
+}
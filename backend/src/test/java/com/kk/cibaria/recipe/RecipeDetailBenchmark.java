@@ -0,0 +1,128 @@
+package com.kk.cibaria.recipe;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.cibaria.helper.RecipeETag;
+import com.kk.cibaria.image.Image;
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.step.Step;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// What a GET /recipes/{id} body costs per request: Jackson (and gzip for clients accepting it) as every request paid
+// before RecipeDetailCache, against a cache hit. Not part of the test run, start it with
+//   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+//     -Dexec.args="-cp %classpath com.kk.cibaria.recipe.RecipeDetailBenchmark"
+// gc.alloc.rate.norm in the output is the bytes allocated per request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecipeDetailBenchmark {
+
+    private ObjectMapper objectMapper;
+    private RecipeDetailCache cache;
+    private Supplier<Recipe> loader;
+    private String etag;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        cache = new RecipeDetailCache(objectMapper, 1 << 20);
+        Recipe recipe = recipe();
+        loader = () -> recipe;
+        etag = new RecipeETag(recipe.getVersion(), recipe.getRatingCount(), recipe.getRatingSum()).value();
+        cache.get(recipe.getId(), etag, loader);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(loader.get());
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzip() throws IOException {
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(objectMapper.writeValueAsBytes(loader.get()));
+        }
+        return gzip.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return cache.get(1, etag, loader).json();
+    }
+
+    @Benchmark
+    public byte[] cachedGzip() {
+        return cache.get(1, etag, loader).gzip();
+    }
+
+    // a typical detail page: a dozen ingredients, eight steps, three photos
+    private static Recipe recipe() {
+        Recipe recipe = new Recipe();
+        recipe.setId(1);
+        recipe.setRecipeName("Tomato soup with basil and roasted garlic");
+        recipe.setDifficulty(2);
+        recipe.setPrepareTime(45);
+        recipe.setServings(4);
+        recipe.setCategory("Dinner");
+        recipe.setIsPublic(true);
+        recipe.setLanguage("en");
+        recipe.setIngredients(new ArrayList<>());
+        recipe.setSteps(new ArrayList<>());
+        for (int i = 0; i < 12; i++) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setId(i);
+            ingredient.setIngredientName("Ingredient number " + i);
+            ingredient.setQuantity(i * 50f);
+            ingredient.setUnit("g");
+            ingredient.setIsOptional(i % 4 == 0);
+            ingredient.setLanguage("en");
+            ingredient.setRecipe(recipe);
+            recipe.getIngredients().add(ingredient);
+        }
+        for (int i = 0; i < 8; i++) {
+            Step step = new Step("Step " + i + ": stir the pot gently and let it simmer for a few more minutes", recipe);
+            step.setId((long) i);
+            recipe.getSteps().add(step);
+        }
+        for (int i = 0; i < 3; i++) {
+            Image image = new Image();
+            image.setId((long) i);
+            image.setImageUrl("https://res.cloudinary.com/demo/image/upload/v1/recipes/photo-" + i + ".jpg");
+            image.setPublicId("recipes/photo-" + i);
+            image.setRecipe(recipe);
+            recipe.getImages().add(image);
+        }
+        return recipe;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecipeDetailBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
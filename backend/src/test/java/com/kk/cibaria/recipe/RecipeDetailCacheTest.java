@@ -0,0 +1,86 @@
+package com.kk.cibaria.recipe;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeDetailCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final RecipeDetailCache cache = new RecipeDetailCache(objectMapper, 1 << 20);
+
+    @Test
+    void get_SerializesOncePerETag() throws IOException {
+        AtomicInteger loaded = new AtomicInteger();
+
+        RecipeDetailCache.Detail first = cache.get(1, "\"0-0-0\"", () -> recipe(loaded, 0));
+        RecipeDetailCache.Detail second = cache.get(1, "\"0-0-0\"", () -> recipe(loaded, 0));
+
+        assertSame(first, second);
+        assertEquals(1, loaded.get());
+        assertEquals("\"0-0-0\"", first.etag());
+        assertEquals("Soup", objectMapper.readTree(first.json()).get("recipeName").asText());
+        assertArrayEquals(first.json(), new GZIPInputStream(new ByteArrayInputStream(first.gzip())).readAllBytes());
+    }
+
+    @Test
+    void get_ReserializesForANewerETag() {
+        AtomicInteger loaded = new AtomicInteger();
+        cache.get(1, "\"0-0-0\"", () -> recipe(loaded, 0));
+
+        RecipeDetailCache.Detail edited = cache.get(1, "\"1-0-0\"", () -> recipe(loaded, 1));
+        cache.get(1, "\"1-0-0\"", () -> recipe(loaded, 1));
+
+        assertEquals("\"1-0-0\"", edited.etag());
+        assertEquals(2, loaded.get());
+    }
+
+    @Test
+    void get_CarriesTheETagOfTheSerializedSnapshot() throws IOException {
+        AtomicInteger loaded = new AtomicInteger();
+        cache.get(1, "\"0-0-0\"", () -> recipe(loaded, 0));
+
+        // edited again between reading the ETag and loading the recipe
+        RecipeDetailCache.Detail detail = cache.get(1, "\"1-0-0\"", () -> recipe(loaded, 2));
+
+        assertEquals("\"2-0-0\"", detail.etag());
+        assertEquals(2, objectMapper.readTree(detail.json()).get("version").asLong());
+    }
+
+    @Test
+    void get_DropsEntriesOfChangedRecipes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        AtomicInteger loaded = new AtomicInteger();
+        cache.get(1, "\"0-0-0\"", () -> recipe(loaded, 0));
+
+        cache.onRecipeRated(new RecipeRatedEvent(1));
+        cache.get(1, "\"0-0-0\"", () -> recipe(loaded, 0));
+        cache.onRecipeChanged(new RecipeChangedEvent(1, false));
+        cache.get(1, "\"0-0-0\"", () -> recipe(loaded, 0));
+        cache.get(1, "\"0-0-0\"", () -> recipe(loaded, 0));
+
+        assertEquals(3, loaded.get());
+        assertEquals(1, registry.get("cache.gets").tag("cache", "recipes.detail").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    private static Recipe recipe(AtomicInteger loaded, long version) {
+        loaded.incrementAndGet();
+        Recipe recipe = new Recipe();
+        recipe.setId(1);
+        recipe.setRecipeName("Soup");
+        recipe.setIngredients(new ArrayList<>());
+        recipe.setSteps(new ArrayList<>());
+        recipe.setVersion(version);
+        return recipe;
+    }
+}
@@ -0,0 +1,57 @@
+package com.kk.cibaria.recipe;
+
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeFacetCacheTest {
+
+    private final RecipeCatalogVersion catalogVersion = new RecipeCatalogVersion();
+    private final RecipeFacetCache cache = new RecipeFacetCache(catalogVersion);
+
+    @Test
+    void get_ReusesCountsOfTheSameFilter() {
+        AtomicInteger counted = new AtomicInteger();
+
+        RecipeFacetsDto first = cache.get(ListingKey.of(List.of("Soup", "Dinner"), 2, null, null, true, "EN",
+                List.of("Tomato")), () -> count(counted));
+        RecipeFacetsDto second = cache.get(ListingKey.of(List.of("Dinner", "Soup"), 2, null, null, true, "en",
+                List.of("tomato")), () -> count(counted));
+        cache.get(ListingKey.of(List.of("Dinner"), 2, null, null, true, "en", List.of("tomato")),
+                () -> count(counted));
+
+        assertSame(first, second);
+        assertEquals(2, counted.get());
+    }
+
+    @Test
+    void get_RecountsAfterACatalogChange() {
+        AtomicInteger counted = new AtomicInteger();
+        ListingKey listing = ListingKey.of(null, null, null, null, true, null, null);
+        cache.get(listing, () -> count(counted));
+
+        catalogVersion.onRecipeChanged(new RecipeChangedEvent(1, false));
+        cache.get(listing, () -> count(counted));
+        cache.get(listing, () -> count(counted));
+
+        assertEquals(2, counted.get());
+    }
+
+    @Test
+    void get_EvictsBeyondTheLimit() {
+        for (int difficulty = 0; difficulty < 2 * RecipeFacetCache.MAX_ENTRIES; difficulty++) {
+            cache.get(ListingKey.of(null, difficulty, null, null, true, null, null), RecipeFacetsDto::new);
+        }
+
+        assertTrue(cache.size() <= RecipeFacetCache.MAX_ENTRIES);
+    }
+
+    private static RecipeFacetsDto count(AtomicInteger counted) {
+        counted.incrementAndGet();
+        return new RecipeFacetsDto();
+    }
+}
@@ -0,0 +1,75 @@
+package com.kk.cibaria.recipe;
+
+import com.kk.cibaria.dto.RecipeRequestDto;
+import com.kk.cibaria.dto.RecipeSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeListingCacheTest {
+
+    private static final ListingKey PUBLIC = ListingKey.of(null, null, null, null, true, null, null);
+
+    private final RecipeCatalogVersion catalogVersion = new RecipeCatalogVersion();
+    private final RecipeListingCache cache = new RecipeListingCache(catalogVersion, 100);
+
+    @Test
+    void get_ServesRepeatedPagesFromCache() {
+        AtomicInteger loaded = new AtomicInteger();
+
+        RecipeRequestDto first = cache.get(PUBLIC, 1, 10, Sort.by("id"), () -> page(loaded, 10));
+        RecipeRequestDto second = cache.get(PUBLIC, 1, 10, Sort.by("id"), () -> page(loaded, 10));
+        cache.get(PUBLIC, 2, 10, Sort.by("id"), () -> page(loaded, 10));
+        cache.get(PUBLIC, 1, 10, Sort.by(Sort.Direction.DESC, "createdAt", "id"), () -> page(loaded, 10));
+
+        assertSame(first, second);
+        assertEquals(3, loaded.get());
+    }
+
+    @Test
+    void get_ReloadsAfterACatalogChange() {
+        AtomicInteger loaded = new AtomicInteger();
+        cache.get(PUBLIC, 1, 10, Sort.by("id"), () -> page(loaded, 10));
+
+        catalogVersion.onRecipeRated(new RecipeRatedEvent(1));
+        cache.get(PUBLIC, 1, 10, Sort.by("id"), () -> page(loaded, 10));
+        catalogVersion.onRecipeChanged(new RecipeChangedEvent(1, true));
+        cache.get(PUBLIC, 1, 10, Sort.by("id"), () -> page(loaded, 10));
+
+        assertEquals(3, loaded.get());
+        assertEquals(2, catalogVersion.current());
+    }
+
+    @Test
+    void get_EvictsByWeightAndRecordsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        // the hit comes first, which entries survive once the cache is full is up to the admission policy
+        cache.get(PUBLIC, 1, 10, Sort.by("id"), () -> page(new AtomicInteger(), 10));
+        cache.get(PUBLIC, 1, 10, Sort.by("id"), () -> page(new AtomicInteger(), 10));
+        for (int page = 2; page <= 20; page++) {
+            cache.get(PUBLIC, page, 10, Sort.by("id"), () -> page(new AtomicInteger(), 10));
+        }
+
+        assertTrue(cache.size() <= 9);
+        assertEquals(1, registry.get("cache.gets").tag("cache", "recipes.listing").tag("result", "hit")
+                .functionCounter().count());
+        assertTrue(registry.get("cache.evictions").tag("cache", "recipes.listing").functionCounter().count() > 0);
+        assertEquals(1.0 / 21, registry.get("recipes.listing.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    private static RecipeRequestDto page(AtomicInteger loaded, int size) {
+        loaded.incrementAndGet();
+        RecipeRequestDto page = new RecipeRequestDto();
+        page.setContent(Collections.nCopies(size, new RecipeSummary(1, "Soup", "Dinner", 1, 10, 2, "en", null, null)));
+        page.setTotalPages(1);
+        return page;
+    }
+}
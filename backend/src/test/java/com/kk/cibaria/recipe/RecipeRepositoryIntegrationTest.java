@@ -1,14 +1,38 @@
 package com.kk.cibaria.recipe;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.cibaria.dto.RecipeFacetsDto;
+import com.kk.cibaria.dto.RecipeSummary;
+import com.kk.cibaria.helper.RecipeSort;
+import com.kk.cibaria.helper.RecipeSpecification;
+import com.kk.cibaria.image.Image;
+import com.kk.cibaria.image.ImageType;
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.rating.Rating;
+import com.kk.cibaria.step.Step;
 import com.kk.cibaria.user.UserEntity;
 import com.kk.cibaria.user.UserRepository;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +47,12 @@ class RecipeRepositoryIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
     private UserEntity testUser;
     private Recipe testRecipe1;
     private Recipe testRecipe2;
@@ -78,30 +108,6 @@ class RecipeRepositoryIntegrationTest {
         assertEquals(testUser.getId(), foundRecipe.get().getUser().getId());
     }
 
-    @Test
-    void testFindByRecipeNameQuery_CaseInsensitive() {
-        List<Recipe> results = recipeRepository.findByRecipeNameQuery("chocolate");
-        
-        assertEquals(1, results.size());
-        assertEquals("Chocolate Cake", results.get(0).getRecipeName());
-    }
-
-    @Test
-    void testFindByRecipeNameQuery_PartialMatch() {
-        List<Recipe> results = recipeRepository.findByRecipeNameQuery("cake");
-        
-        assertEquals(2, results.size());
-        assertTrue(results.stream().anyMatch(r -> r.getRecipeName().equals("Chocolate Cake")));
-        assertTrue(results.stream().anyMatch(r -> r.getRecipeName().equals("Vanilla Cake")));
-    }
-
-    @Test
-    void testFindByRecipeNameQuery_NoResults() {
-        List<Recipe> results = recipeRepository.findByRecipeNameQuery("nonexistent");
-        
-        assertTrue(results.isEmpty());
-    }
-
     @Test
     void testFindByUser() {
         List<Recipe> userRecipes = recipeRepository.findByUser(testUser);
@@ -178,4 +184,246 @@ class RecipeRepositoryIntegrationTest {
         assertNotNull(recipe.getUser());
         assertEquals(testUser.getId(), (Integer) recipe.getUser().getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFindById_OwnerIdWithoutLoadingTheUser() {
+        int recipeId = recipeRepository.saveAndFlush(testRecipe1).getId();
+        entityManager.clear();
+
+        Recipe recipe = recipeRepository.findById(recipeId).orElseThrow();
+
+        assertEquals(testUser.getId(), recipe.getUser().getId());
+        assertFalse(Hibernate.isInitialized(recipe.getUser()));
+    }
+
+    @Test
+    void testFindSummaries_AverageRatingAndFirstImage() {
+        Rating low = new Rating();
+        low.setValue(2);
+        low.setRecipe(testRecipe1);
+        low.setUser(testUser);
+        UserEntity anotherUser = new UserEntity();
+        anotherUser.setUsername("another");
+        anotherUser.setEmail("another@test.com");
+        anotherUser.setPassword("password");
+        userRepository.save(anotherUser);
+        Rating high = new Rating();
+        high.setValue(5);
+        high.setRecipe(testRecipe1);
+        high.setUser(anotherUser);
+        testRecipe1.getRatings().addAll(List.of(low, high));
+
+        for (String url : List.of("http://first.jpg", "http://second.jpg")) {
+            Image image = new Image();
+            image.setImageUrl(url);
+            image.setImageType(ImageType.RECIPE);
+            image.setRecipe(testRecipe1);
+            testRecipe1.getImages().add(image);
+        }
+        recipeRepository.saveAndFlush(testRecipe1);
+        recipeRepository.recountRatingAggregates();
+
+        List<RecipeSummary> summaries = recipeRepository.findSummaries(
+                RecipeSpecification.ownedBy(testUser.getId()), Sort.by("id"), Limit.unlimited());
+
+        assertEquals(2, summaries.size());
+        RecipeSummary chocolate = summaries.get(0);
+        assertEquals("Chocolate Cake", chocolate.getRecipeName());
+        assertEquals(3.5, chocolate.getAvgRating());
+        assertEquals("http://first.jpg", chocolate.getImageUrl());
+        assertNull(summaries.get(1).getAvgRating());
+        assertNull(summaries.get(1).getImageUrl());
+    }
+
+    @Test
+    void testFindSummaries_PageAndLimit() {
+        Page<RecipeSummary> page = recipeRepository.findSummaries(
+                RecipeSpecification.ownedBy(testUser.getId()), PageRequest.of(1, 1, Sort.by("id")));
+
+        assertEquals(1, page.getContent().size());
+        assertEquals("Vanilla Cake", page.getContent().get(0).getRecipeName());
+        assertEquals(2, page.getTotalElements());
+
+        List<RecipeSummary> limited = recipeRepository.findSummaries(
+                RecipeSpecification.ownedBy(testUser.getId()), Sort.by("id"), Limit.of(1));
+        assertEquals(1, limited.size());
+    }
+
+    @Test
+    void testFindSummaries_Sorted() {
+        recipeRepository.addToRatingAggregates(testRecipe2.getId(), 2, 9);
+        recipeRepository.addToRatingAggregates(testRecipe1.getId(), 1, 4);
+        entityManager.clear();
+        Specification<Recipe> all = RecipeSpecification.ownedBy(testUser.getId());
+
+        assertEquals(List.of("Vanilla Cake", "Chocolate Cake"), names(recipeRepository.findSummaries(all,
+                RecipeSort.toSort("rating", null), Limit.unlimited())));
+        assertEquals(List.of("Chocolate Cake", "Vanilla Cake"), names(recipeRepository.findSummaries(all,
+                RecipeSort.toSort("rating", "asc"), Limit.unlimited())));
+        assertEquals(List.of("Vanilla Cake", "Chocolate Cake"), names(recipeRepository.findSummaries(all,
+                RecipeSort.toSort("newest", null), Limit.unlimited())));
+        assertEquals(List.of("Vanilla Cake", "Chocolate Cake"), names(recipeRepository.findSummaries(all,
+                RecipeSort.toSort("prepareTime", null), Limit.unlimited())));
+        assertEquals(List.of("Chocolate Cake", "Vanilla Cake"), names(recipeRepository.findSummaries(all,
+                RecipeSort.toSort("difficulty", "DESC"), Limit.unlimited())));
+        assertEquals(List.of("Vanilla Cake", "Chocolate Cake"), names(recipeRepository.findSummaries(all,
+                RecipeSort.toSort("popularity", null), Limit.unlimited())));
+        assertThrows(IllegalArgumentException.class, () -> RecipeSort.toSort("rating", "sideways"));
+    }
+
+    @Test
+    void testFindSummaries_Favourites() {
+        testUser.getFavouriteRecipes().add(testRecipe2);
+        userRepository.saveAndFlush(testUser);
+
+        List<RecipeSummary> favourites = recipeRepository.findSummaries(
+                RecipeSpecification.favouriteOf(testUser.getId()), Sort.by("id"), Limit.unlimited());
+
+        assertEquals(1, favourites.size());
+        assertEquals("Vanilla Cake", favourites.get(0).getRecipeName());
+    }
+
+    @Test
+    void testAddIngredientNames_OneListPerSummary() {
+        for (String name : List.of("Flour", "Cocoa")) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setIngredientName(name);
+            ingredient.setRecipe(testRecipe1);
+            entityManager.persist(ingredient);
+        }
+        entityManager.flush();
+        List<RecipeSummary> summaries = recipeRepository.findSummaries(
+                RecipeSpecification.ownedBy(testUser.getId()), Sort.by("id"), Limit.unlimited());
+
+        recipeRepository.addIngredientNames(summaries);
+
+        assertEquals(Set.of("Flour", "Cocoa"), Set.copyOf(summaries.get(0).getIngredients()));
+        assertEquals(List.of(), summaries.get(1).getIngredients());
+    }
+
+    @Test
+    void testRatingAggregates_IncrementAndRecount() {
+        recipeRepository.addToRatingAggregates(testRecipe1.getId(), 1, 4);
+        recipeRepository.addToRatingAggregates(testRecipe1.getId(), 1, 5);
+        recipeRepository.addToRatingAggregates(testRecipe1.getId(), 0, -3);
+        entityManager.clear();
+
+        Recipe recipe = recipeRepository.findById(testRecipe1.getId()).orElseThrow();
+        assertEquals(2, recipe.getRatingCount());
+        assertEquals(6, recipe.getRatingSum());
+        assertEquals(3.0, recipe.getRatingAverage());
+
+        // no rating rows exist, so the recount resets the drifted totals
+        recipeRepository.recountRatingAggregates();
+        entityManager.clear();
+
+        recipe = recipeRepository.findById(testRecipe1.getId()).orElseThrow();
+        assertEquals(0, recipe.getRatingCount());
+        assertEquals(0, recipe.getRatingSum());
+        assertEquals(0.0, recipe.getRatingAverage());
+    }
+
+    @Test
+    void testFindDetailById_LoadsWholeRecipeInTwoStatements() throws Exception {
+        testRecipe1.setIngredients(new ArrayList<>());
+        testRecipe1.setSteps(new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setIngredientName("Ingredient " + i);
+            ingredient.setRecipe(testRecipe1);
+            testRecipe1.getIngredients().add(ingredient);
+
+            testRecipe1.getSteps().add(new Step("Step " + i, testRecipe1));
+        }
+        for (String url : List.of("http://first.jpg", "http://second.jpg")) {
+            Image image = new Image();
+            image.setImageUrl(url);
+            image.setImageType(ImageType.RECIPE);
+            image.setRecipe(testRecipe1);
+            testRecipe1.getImages().add(image);
+        }
+        Rating rating = new Rating();
+        rating.setValue(4);
+        rating.setRecipe(testRecipe1);
+        testRecipe1.getRatings().add(rating);
+        recipeRepository.saveAndFlush(testRecipe1);
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        Recipe recipe = recipeRepository.findDetailById(testRecipe1.getId()).orElseThrow();
+        String json = new ObjectMapper().findAndRegisterModules().writeValueAsString(recipe);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertFalse(Hibernate.isInitialized(recipe.getUser()));
+        assertEquals(testUser.getId(), recipe.getUser().getId());
+        assertEquals(3, recipe.getIngredients().size());
+        assertEquals(3, recipe.getSteps().size());
+        assertEquals("Step 2", recipe.getSteps().get(2).getContent());
+        assertEquals("http://first.jpg", recipe.getImages().get(0).getImageUrl());
+        assertEquals("http://second.jpg", recipe.getImages().get(1).getImageUrl());
+        assertFalse(json.contains("ratings"));
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void testCountFacets_GroupsFilteredRecipes() {
+        Recipe soup = new Recipe();
+        soup.setRecipeName("Soup");
+        soup.setDifficulty(1);
+        soup.setPrepareTime(15);
+        soup.setServings(2);
+        soup.setCategory("Dinner");
+        soup.setIsPublic(true);
+        soup.setLanguage("PL");
+        soup.setUser(testUser);
+        recipeRepository.save(soup);
+
+        RecipeFacetsDto all = recipeRepository.countFacets(
+                RecipeSpecification.filterByParams(null, null, null, null, false, null, null));
+        RecipeFacetsDto publicOnly = recipeRepository.countFacets(
+                RecipeSpecification.filterByParams(null, null, null, null, true, null, null));
+
+        assertEquals(3, all.getTotal());
+        assertEquals(List.of("Dessert", "Dinner"), List.copyOf(all.getCategory().keySet()));
+        assertEquals(2L, all.getCategory().get("Dessert"));
+        assertEquals(Map.of(1, 1L, 2, 1L, 3, 1L), all.getDifficulty());
+        assertEquals(Map.of("en", 2L, "pl", 1L), all.getLanguage());
+        assertEquals(List.of(1L, 0L, 2L, 0L), List.copyOf(all.getServings().values()));
+        assertEquals(List.of(1L, 0L, 2L, 0L, 0L), List.copyOf(all.getPrepareTime().values()));
+        assertEquals(2, publicOnly.getTotal());
+        assertEquals(Map.of(1, 1L, 3, 1L), publicOnly.getDifficulty());
+    }
+
+    @Test
+    void testFindDetailById_NotFound() {
+        assertTrue(recipeRepository.findDetailById(-1).isEmpty());
+    }
+
+    @Test
+    void testOrderColumnBackfill_NumbersRowsWithoutOrder() {
+        testRecipe1.setSteps(new ArrayList<>(List.of(new Step("First", testRecipe1), new Step("Second", testRecipe1))));
+        for (String url : List.of("http://first.jpg", "http://second.jpg")) {
+            Image image = new Image();
+            image.setImageUrl(url);
+            image.setRecipe(testRecipe1);
+            testRecipe1.getImages().add(image);
+        }
+        recipeRepository.saveAndFlush(testRecipe1);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("UPDATE image SET image_order = NULL");
+        jdbcTemplate.update("UPDATE step SET step_order = NULL");
+
+        new RecipeOrderColumnBackfill(jdbcTemplate).run(null);
+
+        assertEquals(List.of(0, 1), jdbcTemplate.queryForList("SELECT image_order FROM image ORDER BY id", Integer.class));
+        assertEquals(List.of(0, 1), jdbcTemplate.queryForList("SELECT step_order FROM step ORDER BY id", Integer.class));
+    }
+
+    private static List<String> names(List<RecipeSummary> summaries) {
+        return summaries.stream().map(RecipeSummary::getRecipeName).toList();
+    }
+}
@@ -0,0 +1,181 @@
+package com.kk.cibaria.recipe;
+
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.rating.RatingRepository;
+import com.kk.cibaria.step.Step;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RecipeSecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    private Statistics statistics;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    private int recipeId;
+
+    private int userId;
+
+    @BeforeEach
+    void setup() {
+        transaction = new TransactionTemplate(transactionManager);
+        UserEntity user = new UserEntity();
+        user.setUsername("testuser");
+        user.setEmail("test@test.com");
+        user.setPassword("password");
+        UserEntity savedUser = userRepository.save(user);
+        userId = savedUser.getId();
+
+        Recipe recipe = new Recipe();
+        recipe.setRecipeName("Soup");
+        recipe.setUser(savedUser);
+        recipe.setIngredients(new ArrayList<>(List.of(ingredient("Tomato", recipe))));
+        recipe.setSteps(new ArrayList<>(List.of(new Step("Boil", recipe))));
+        recipeId = recipeRepository.save(recipe).getId();
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanup() {
+        ratingRepository.deleteAll();
+        recipeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void recipe_SecondLoadIsServedFromTheCache() {
+        assertEquals(List.of("Tomato"), loadIngredientNames());
+        assertEquals(List.of("Tomato"), loadIngredientNames());
+
+        assertEquals(1, region("recipe").getMissCount());
+        assertEquals(1, region("recipe").getHitCount());
+        assertEquals(1, region("recipe-ingredients").getMissCount());
+        assertEquals(1, region("recipe-ingredients").getHitCount());
+    }
+
+    @Test
+    void recipe_ReplacedListsAreNotServedStale() {
+        loadIngredientNames();
+
+        // the same cascading replacement as updateRecipeWithPhotos / updateRecipeWithoutPhotos
+        transaction.executeWithoutResult(status -> {
+            Recipe recipe = recipeRepository.findById(recipeId).orElseThrow();
+            recipe.setRecipeName("Pesto");
+            recipe.getIngredients().clear();
+            recipe.getIngredients().add(ingredient("Basil", recipe));
+            recipe.getSteps().clear();
+            recipe.getSteps().add(new Step("Blend", recipe));
+        });
+
+        transaction.executeWithoutResult(status -> {
+            Recipe recipe = recipeRepository.findById(recipeId).orElseThrow();
+            assertEquals("Pesto", recipe.getRecipeName());
+            assertEquals(List.of("Basil"), recipe.getIngredients().stream().map(Ingredient::getIngredientName).toList());
+            assertEquals(List.of("Blend"), recipe.getSteps().stream().map(Step::getContent).toList());
+        });
+    }
+
+    @Test
+    void recipe_RatingAggregatesAreNotServedStale() {
+        loadIngredientNames();
+
+        recipeRepository.addToRatingAggregates(recipeId, 1, 4);
+
+        transaction.executeWithoutResult(status -> {
+            Recipe recipe = recipeRepository.findById(recipeId).orElseThrow();
+            assertEquals(1, recipe.getRatingCount());
+            assertEquals(4.0, recipe.getRatingAverage());
+        });
+    }
+
+    @Test
+    void recipe_RatingAggregatesEvictOnlyTheRatedRecipe() {
+        int otherId = saveRecipe("Salad");
+        loadIngredientNames();
+        transaction.executeWithoutResult(status -> recipeRepository.findById(otherId).orElseThrow());
+
+        recipeRepository.addToRatingAggregates(recipeId, 1, 4);
+
+        assertFalse(entityManagerFactory.getCache().contains(Recipe.class, recipeId));
+        assertTrue(entityManagerFactory.getCache().contains(Recipe.class, otherId));
+    }
+
+    @Test
+    void recipe_RatingUpsertEvictsOnlyTheRatedRecipe() {
+        int otherId = saveRecipe("Salad");
+        loadIngredientNames();
+        transaction.executeWithoutResult(status -> recipeRepository.findById(otherId).orElseThrow());
+
+        transaction.executeWithoutResult(status -> assertTrue(ratingRepository.upsert(recipeId, userId, 5)));
+
+        assertFalse(entityManagerFactory.getCache().contains(Recipe.class, recipeId));
+        assertTrue(entityManagerFactory.getCache().contains(Recipe.class, otherId));
+        transaction.executeWithoutResult(status ->
+                assertEquals(5.0, recipeRepository.findById(recipeId).orElseThrow().getRatingAverage()));
+    }
+
+    private int saveRecipe(String name) {
+        Recipe recipe = new Recipe();
+        recipe.setRecipeName(name);
+        recipe.setUser(userRepository.findById(userId).orElseThrow());
+        return recipeRepository.save(recipe).getId();
+    }
+
+    private List<String> loadIngredientNames() {
+        return transaction.execute(status -> recipeRepository.findById(recipeId).orElseThrow()
+                .getIngredients().stream()
+                .map(Ingredient::getIngredientName)
+                .toList());
+    }
+
+    private CacheRegionStatistics region(String name) {
+        return statistics.getDomainDataRegionStatistics(name);
+    }
+
+    private static Ingredient ingredient(String name, Recipe recipe) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setIngredientName(name);
+        ingredient.setRecipe(recipe);
+        return ingredient;
+    }
+}
@@ -2,15 +2,22 @@ package com.kk.cibaria.recipe;
 
 import com.kk.cibaria.cloudinary.CloudinaryService;
 import com.kk.cibaria.dto.RecipeAddDto;
+import com.kk.cibaria.dto.RecipeFacetsDto;
 import com.kk.cibaria.dto.RecipeRequestDto;
+import com.kk.cibaria.dto.RecipeScrollDto;
+import com.kk.cibaria.dto.RecipeSummary;
 import com.kk.cibaria.exception.*;
+import com.kk.cibaria.helper.RecipeETag;
 import com.kk.cibaria.image.Image;
 import com.kk.cibaria.image.ImageService;
 import com.kk.cibaria.image.ImageType;
-import com.kk.cibaria.ingredient.IngredientService;
 import com.kk.cibaria.rating.Rating;
 import com.kk.cibaria.rating.RatingRepository;
-import com.kk.cibaria.security.jwt.JwtService;
+import com.kk.cibaria.catalog.RecipeCatalog;
+import com.kk.cibaria.search.IngredientIndex;
+import com.kk.cibaria.search.RecipeSearch;
+import com.kk.cibaria.search.RecipeSuggester;
+import com.kk.cibaria.security.CurrentUser;
 import com.kk.cibaria.user.UserEntity;
 import com.kk.cibaria.user.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,12 +26,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -39,9 +55,6 @@ class RecipeServiceImplTest {
     @Mock
     private UserRepository userRepository;
     
-    @Mock
-    private JwtService jwtService;
-    
     @Mock
     private ImageService imageService;
     
@@ -50,20 +63,49 @@ class RecipeServiceImplTest {
     
     @Mock
     private RatingRepository ratingRepository;
-    
+
+    @Mock
+    private RecipeSearch recipeSearch;
+
+    @Mock
+    private RecipeSuggester recipeSuggester;
+
+    @Mock
+    private IngredientIndex ingredientIndex;
+
+    @Mock
+    private ObjectProvider<RecipeCatalog> recipeCatalogProvider;
+
     @Mock
-    private IngredientService ingredientService;
+    private RecipeFacetCache facetCache;
+
+    @Mock
+    private RecipeListingCache listingCache;
+
+    @Mock
+    private RecipeCatalogVersion catalogVersion;
+
+    @Mock
+    private RecipeDetailCache detailCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private RecipeServiceImpl recipeService;
 
     private UserEntity testUser;
     private Recipe testRecipe;
+    private RecipeSummary testSummary;
     private RecipeAddDto testRecipeAddDto;
-    private String testToken;
+    private CurrentUser currentUser;
+    private CurrentUser otherUser;
 
     @BeforeEach
     void setup() {
+        lenient().when(listingCache.get(any(), anyInt(), anyInt(), any(), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<RecipeRequestDto>>getArgument(4).get());
+
         testUser = new UserEntity();
         testUser.setId(1);
         testUser.setUsername("testuser");
@@ -81,6 +123,8 @@ class RecipeServiceImplTest {
         testRecipe.setIngredients(new ArrayList<>());
         testRecipe.setSteps(new ArrayList<>());
 
+        testSummary = new RecipeSummary(1, "Test Recipe", "Main Course", 3, 30, 4, "en", null, null);
+
         testRecipeAddDto = new RecipeAddDto();
         testRecipeAddDto.setRecipeName("Test Recipe");
         testRecipeAddDto.setDifficulty(3);
@@ -92,7 +136,8 @@ class RecipeServiceImplTest {
         testRecipeAddDto.setIngredients(new ArrayList<>());
         testRecipeAddDto.setSteps(new ArrayList<>());
 
-        testToken = "Bearer testtoken123";
+        currentUser = new CurrentUser(1, List.of("USER"));
+        otherUser = new CurrentUser(2, List.of("USER"));
     }
 
     @Test
@@ -109,43 +154,67 @@ class RecipeServiceImplTest {
 
     @Test
     void testGetById_Success() {
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
+        when(recipeRepository.findDetailById(1)).thenReturn(Optional.of(testRecipe));
 
         Recipe result = recipeService.getById(1);
 
         assertEquals(testRecipe, result);
-        verify(recipeRepository).findById(1);
+        verify(recipeRepository).findDetailById(1);
     }
 
     @Test
     void testGetById_NotFound() {
-        when(recipeRepository.findById(1)).thenReturn(Optional.empty());
+        when(recipeRepository.findDetailById(1)).thenReturn(Optional.empty());
 
         assertThrows(RecipeNotFoundException.class, () -> recipeService.getById(1));
-        verify(recipeRepository).findById(1);
+        verify(recipeRepository).findDetailById(1);
     }
 
     @Test
-    void testSaveRecipeWithoutPhoto_Success() throws IOException {
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
-        when(recipeRepository.save(any(Recipe.class))).thenReturn(testRecipe);
+    void testGetETag() {
+        when(recipeRepository.findETagById(1)).thenReturn(Optional.of(new RecipeETag(3, 2, 9)));
 
-        Recipe result = recipeService.saveRecipeWithoutPhoto(testRecipeAddDto, testToken);
+        assertEquals("\"3-2-9\"", recipeService.getETag(1));
+        verify(recipeRepository, never()).findDetailById(anyInt());
+    }
 
-        assertNotNull(result);
-        verify(jwtService).extractId("testtoken123");
-        verify(userRepository).findById(1);
-        verify(recipeRepository).save(any(Recipe.class));
+    @Test
+    void testGetETag_NotFound() {
+        when(recipeRepository.findETagById(1)).thenReturn(Optional.empty());
+
+        assertThrows(RecipeNotFoundException.class, () -> recipeService.getETag(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetDetail_LoadsThroughTheCache() {
+        RecipeDetailCache.Detail detail = new RecipeDetailCache.Detail("\"0-0-0\"", new byte[0], new byte[0]);
+        when(detailCache.get(eq(1), eq("\"0-0-0\""), any())).thenAnswer(invocation -> {
+            assertEquals(testRecipe, invocation.<Supplier<Recipe>>getArgument(2).get());
+            return detail;
+        });
+        when(recipeRepository.findDetailById(1)).thenReturn(Optional.of(testRecipe));
+
+        assertSame(detail, recipeService.getDetail(1, "\"0-0-0\""));
     }
 
     @Test
-    void testSaveRecipeWithoutPhoto_UserNotFound() {
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.empty());
+    void testGetListingETag() {
+        when(catalogVersion.etag()).thenReturn("W/\"abc-4\"");
 
-        assertThrows(UserNotFoundException.class, 
-            () -> recipeService.saveRecipeWithoutPhoto(testRecipeAddDto, testToken));
+        assertEquals("W/\"abc-4\"", recipeService.getListingETag());
+    }
+
+    @Test
+    void testSaveRecipeWithoutPhoto_Success() throws IOException {
+        when(userRepository.getReferenceById(1)).thenReturn(testUser);
+        when(recipeRepository.save(any(Recipe.class))).thenReturn(testRecipe);
+
+        Recipe result = recipeService.saveRecipeWithoutPhoto(testRecipeAddDto, currentUser);
+
+        assertNotNull(result);
+        verify(recipeRepository).save(argThat(recipe -> recipe.getUser() == testUser));
+        verify(userRepository, never()).findById(anyInt());
     }
 
     @Test
@@ -154,12 +223,11 @@ class RecipeServiceImplTest {
         List<MultipartFile> images = List.of(mockFile);
         Image mockImage = new Image();
         
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
+        when(userRepository.getReferenceById(1)).thenReturn(testUser);
         when(imageService.createPhoto(mockFile, ImageType.RECIPE)).thenReturn(mockImage);
         when(recipeRepository.save(any(Recipe.class))).thenReturn(testRecipe);
 
-        Recipe result = recipeService.saveRecipeWithPhotos(testRecipeAddDto, images, testToken);
+        Recipe result = recipeService.saveRecipeWithPhotos(testRecipeAddDto, images, currentUser);
 
         assertNotNull(result);
         verify(imageService).createPhoto(mockFile, ImageType.RECIPE);
@@ -171,12 +239,10 @@ class RecipeServiceImplTest {
         MultipartFile mockFile = mock(MultipartFile.class);
         List<MultipartFile> images = List.of(mockFile);
         
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(imageService.createPhoto(mockFile, ImageType.RECIPE)).thenThrow(new IOException("Image error"));
 
         assertThrows(ImageErrorException.class, 
-            () -> recipeService.saveRecipeWithPhotos(testRecipeAddDto, images, testToken));
+            () -> recipeService.saveRecipeWithPhotos(testRecipeAddDto, images, currentUser));
     }
 
     @Test
@@ -186,83 +252,308 @@ class RecipeServiceImplTest {
         updatedRecipe.setIngredients(new ArrayList<>());
         updatedRecipe.setSteps(new ArrayList<>());
 
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
+        when(recipeRepository.findForUpdateById(1)).thenReturn(Optional.of(testRecipe));
         when(recipeRepository.save(any(Recipe.class))).thenReturn(testRecipe);
 
-        Recipe result = recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, testToken, true);
+        Recipe result = recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, currentUser, true, null);
 
         assertNotNull(result);
-        verify(recipeRepository).findById(1);
+        verify(recipeRepository).findForUpdateById(1);
         verify(recipeRepository).save(any(Recipe.class));
     }
 
+    @Test
+    void testUpdateRecipeWithoutPhotos_MatchingIfMatch() {
+        testRecipe.setVersion(3);
+        Recipe updatedRecipe = new Recipe();
+        updatedRecipe.setIngredients(new ArrayList<>());
+        updatedRecipe.setSteps(new ArrayList<>());
+
+        when(recipeRepository.findForUpdateById(1)).thenReturn(Optional.of(testRecipe));
+        when(recipeRepository.save(any(Recipe.class))).thenReturn(testRecipe);
+
+        // a rating given since the GET changed the tag but not the version
+        Recipe result = recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, currentUser, true, "\"3-0-0\"");
+
+        assertNotNull(result);
+        verify(recipeRepository).save(testRecipe);
+    }
+
+    @Test
+    void testUpdateRecipeWithoutPhotos_StaleIfMatch() {
+        testRecipe.setVersion(4);
+        Recipe updatedRecipe = new Recipe();
+        updatedRecipe.setIngredients(new ArrayList<>());
+        updatedRecipe.setSteps(new ArrayList<>());
+
+        when(recipeRepository.findForUpdateById(1)).thenReturn(Optional.of(testRecipe));
+
+        assertThrows(RecipeVersionMismatchException.class,
+            () -> recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, currentUser, true, "\"3-0-0\""));
+        assertThrows(RecipeVersionMismatchException.class,
+            () -> recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, currentUser, true, "W/\"4-0-0\""));
+        verify(recipeRepository, never()).save(any(Recipe.class));
+    }
+
+    @Test
+    void testUpdateRecipeWithPhotos_StaleIfMatch() {
+        testRecipe.setVersion(4);
+        when(recipeRepository.findForUpdateById(1)).thenReturn(Optional.of(testRecipe));
+
+        assertThrows(RecipeVersionMismatchException.class,
+            () -> recipeService.updateRecipeWithPhotos(1, new Recipe(), List.of(mock(MultipartFile.class)), currentUser,
+                "\"2-0-0\", \"3-1-5\""));
+        verifyNoInteractions(imageService, cloudinaryService);
+    }
+
     @Test
     void testUpdateRecipeWithoutPhotos_UnauthorizedException() {
-        UserEntity differentUser = new UserEntity();
-        differentUser.setId(2);
-        
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
-        when(jwtService.extractId("testtoken123")).thenReturn(2);
-        when(userRepository.findById(2)).thenReturn(Optional.of(differentUser));
-        when(jwtService.hasRole("testtoken123", "ADMIN")).thenReturn(false);
+        when(recipeRepository.findForUpdateById(1)).thenReturn(Optional.of(testRecipe));
 
         Recipe updatedRecipe = new Recipe();
         updatedRecipe.setIngredients(new ArrayList<>());
         updatedRecipe.setSteps(new ArrayList<>());
 
         assertThrows(UnauthorizedException.class, 
-            () -> recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, testToken, true));
+            () -> recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, otherUser, true, null));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testUpdateRecipe_NonOwnerWithStaleIfMatch_Unauthorized() {
+        testRecipe.setVersion(4);
+        when(recipeRepository.findForUpdateById(1)).thenReturn(Optional.of(testRecipe));
+
+        Recipe updatedRecipe = new Recipe();
+        updatedRecipe.setIngredients(new ArrayList<>());
+        updatedRecipe.setSteps(new ArrayList<>());
+
+        assertThrows(UnauthorizedException.class,
+            () -> recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, otherUser, true, "\"3-0-0\""));
+        assertThrows(UnauthorizedException.class,
+            () -> recipeService.updateRecipeWithPhotos(1, new Recipe(), List.of(mock(MultipartFile.class)), otherUser,
+                "\"3-0-0\""));
+    }
+
+    @Test
+    void testUpdateRecipeWithoutPhotos_AsAdmin() {
+        when(recipeRepository.findForUpdateById(1)).thenReturn(Optional.of(testRecipe));
+        when(recipeRepository.save(any(Recipe.class))).thenReturn(testRecipe);
+
+        Recipe updatedRecipe = new Recipe();
+        updatedRecipe.setIngredients(new ArrayList<>());
+        updatedRecipe.setSteps(new ArrayList<>());
+
+        assertNotNull(recipeService.updateRecipeWithoutPhotos(1, updatedRecipe, new CurrentUser(2, List.of("ADMIN")),
+            true, null));
     }
 
     @Test
     void testIsOwner_True() {
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
+        when(recipeRepository.findOwnerIdById(1)).thenReturn(Optional.of(1));
 
-        boolean result = recipeService.isOwner(1, testToken);
+        boolean result = recipeService.isOwner(1, currentUser);
 
         assertTrue(result);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void testIsOwner_False() {
-        UserEntity differentUser = new UserEntity();
-        differentUser.setId(2);
-        
-        when(jwtService.extractId("testtoken123")).thenReturn(2);
-        when(userRepository.findById(2)).thenReturn(Optional.of(differentUser));
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
+        when(recipeRepository.findOwnerIdById(1)).thenReturn(Optional.of(1));
 
-        boolean result = recipeService.isOwner(1, testToken);
+        boolean result = recipeService.isOwner(1, otherUser);
 
         assertFalse(result);
     }
 
     @Test
+    void testIsOwner_RecipeNotFound() {
+        when(recipeRepository.findOwnerIdById(1)).thenReturn(Optional.empty());
+
+        assertThrows(RecipeNotFoundException.class, () -> recipeService.isOwner(1, currentUser));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
     void testGetRecipeByPage() {
-        List<Recipe> recipes = List.of(testRecipe);
-        when(recipeRepository.findAll()).thenReturn(recipes);
+        List<RecipeSummary> recipes = List.of(testSummary);
+        when(recipeRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(recipes, PageRequest.of(0, 10), 1));
 
         RecipeRequestDto result = recipeService.getRecipeByPage(1, 10, null, null, 
-            null, null, true, "en", null);
+            null, null, true, "en", null, null, null);
 
         assertNotNull(result);
-        assertNotNull(result.getContent());
-        verify(recipeRepository).findAll();
+        assertEquals(recipes, result.getContent());
+        assertEquals(1, result.getTotalPages());
+        verify(recipeRepository).findSummaries(any(Specification.class), eq(PageRequest.of(0, 10, Sort.by("id"))));
+        verify(recipeRepository, never()).findAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetRecipeByPage_IngredientFilterUsesIndex() {
+        when(ingredientIndex.recipesWithAll(List.of("tomato", "basil"))).thenReturn(new int[] { 1 });
+        when(recipeRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(testSummary), PageRequest.of(0, 10), 1));
+
+        RecipeRequestDto result = recipeService.getRecipeByPage(1, 10, null, null,
+            null, null, true, null, List.of("tomato", "basil"), null, null);
+
+        assertEquals(List.of(testSummary), result.getContent());
+        verify(ingredientIndex).recipesWithAll(List.of("tomato", "basil"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetRecipeByPage_FromCatalog() {
+        RecipeCatalog recipeCatalog = mock(RecipeCatalog.class);
+        when(recipeCatalogProvider.getIfAvailable()).thenReturn(recipeCatalog);
+        RecipeServiceImpl catalogService = new RecipeServiceImpl(recipeRepository, userRepository, imageService,
+            cloudinaryService, null, ratingRepository, recipeSearch, recipeSuggester, ingredientIndex,
+            recipeCatalogProvider, facetCache, listingCache, catalogVersion, detailCache, eventPublisher);
+        when(recipeCatalog.find(null, 3, null, null, true, null, null, 10, 10))
+            .thenReturn(new RecipeCatalog.Page(List.of(1), 11));
+        when(recipeRepository.findSummaries(any(Specification.class), any(Sort.class), any(Limit.class)))
+            .thenReturn(List.of(testSummary));
+
+        RecipeRequestDto result = catalogService.getRecipeByPage(2, 10, null, 3, null, null, true, null, null, null, null);
+
+        assertEquals(List.of(testSummary), result.getContent());
+        assertEquals(2, result.getTotalPages());
+        verify(recipeRepository, never()).findSummaries(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetFacets_CountsThroughCache() {
+        RecipeFacetsDto facets = new RecipeFacetsDto();
+        when(facetCache.get(eq(ListingKey.of(List.of("Dinner"), null, null, null, true, null, null)), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<RecipeFacetsDto>>getArgument(1).get());
+        when(recipeRepository.countFacets(any(Specification.class))).thenReturn(facets);
+
+        RecipeFacetsDto result = recipeService.getFacets(List.of("Dinner"), null, null, null, true, null, null);
+
+        assertSame(facets, result);
+        verify(recipeRepository).countFacets(any(Specification.class));
+    }
+
+    @Test
+    void testGetFacets_FromCatalog() {
+        RecipeCatalog recipeCatalog = mock(RecipeCatalog.class);
+        when(recipeCatalogProvider.getIfAvailable()).thenReturn(recipeCatalog);
+        RecipeServiceImpl catalogService = new RecipeServiceImpl(recipeRepository, userRepository, imageService,
+            cloudinaryService, null, ratingRepository, recipeSearch, recipeSuggester, ingredientIndex,
+            recipeCatalogProvider, facetCache, listingCache, catalogVersion, detailCache, eventPublisher);
+        RecipeFacetsDto facets = new RecipeFacetsDto();
+        when(facetCache.get(eq(ListingKey.of(null, 3, null, null, true, null, null)), any()))
+            .thenAnswer(invocation -> invocation.<Supplier<RecipeFacetsDto>>getArgument(1).get());
+        when(recipeCatalog.facets(null, 3, null, null, true, null, null)).thenReturn(facets);
+
+        assertSame(facets, catalogService.getFacets(null, 3, null, null, true, null, null));
+        verifyNoInteractions(recipeRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetRecipeByPage_SortedSkipsCatalog() {
+        RecipeCatalog recipeCatalog = mock(RecipeCatalog.class);
+        when(recipeCatalogProvider.getIfAvailable()).thenReturn(recipeCatalog);
+        RecipeServiceImpl catalogService = new RecipeServiceImpl(recipeRepository, userRepository, imageService,
+            cloudinaryService, null, ratingRepository, recipeSearch, recipeSuggester, ingredientIndex,
+            recipeCatalogProvider, facetCache, listingCache, catalogVersion, detailCache, eventPublisher);
+        when(recipeRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(testSummary), PageRequest.of(0, 10), 1));
+
+        catalogService.getRecipeByPage(1, 10, null, null, null, null, true, null, null, "rating", null);
+
+        verify(recipeRepository).findSummaries(any(Specification.class),
+            eq(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "ratingAverage", "id"))));
+        verifyNoInteractions(recipeCatalog);
+    }
+
+    @Test
+    void testGetRecipeByPage_CachedByNormalizedFilter() {
+        RecipeRequestDto cached = new RecipeRequestDto();
+        doReturn(cached).when(listingCache).get(eq(ListingKey.of(List.of("Dinner"), null, null, null, true, "en", null)),
+            eq(2), eq(10), eq(Sort.by(Sort.Direction.DESC, "createdAt", "id")), any());
+
+        RecipeRequestDto result = recipeService.getRecipeByPage(2, 10, List.of("Dinner", "Dinner"), null, null, null,
+            true, "EN", null, "newest", null);
+
+        assertSame(cached, result);
+        verifyNoInteractions(recipeRepository);
+    }
+
+    @Test
+    void testGetRecipeByPage_UnknownSort() {
+        assertThrows(IllegalArgumentException.class,
+            () -> recipeService.getRecipeByPage(1, 10, null, null, null, null, true, null, null, "name", null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetRecipeByPage_PageDoesNotExist() {
+        when(recipeRepository.findSummaries(any(Specification.class), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(), PageRequest.of(4, 10), 1));
+
+        assertThrows(PageDoesNotExistException.class,
+            () -> recipeService.getRecipeByPage(5, 10, null, null, null, null, true, null, null, null, null));
+    }
+
+    @Test
+    void testGetRecipeByPage_InvalidPage() {
+        assertThrows(PageDoesNotExistException.class,
+            () -> recipeService.getRecipeByPage(0, 10, null, null, null, null, true, null, null, null, null));
+        verifyNoInteractions(recipeRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetRecipesAfter_HasNext() {
+        RecipeSummary secondSummary = new RecipeSummary();
+        secondSummary.setId(2);
+        RecipeSummary thirdSummary = new RecipeSummary();
+        thirdSummary.setId(3);
+        when(recipeRepository.findSummaries(any(Specification.class), any(Sort.class), eq(Limit.of(3))))
+            .thenReturn(new ArrayList<>(List.of(testSummary, secondSummary, thirdSummary)));
+
+        RecipeScrollDto result = recipeService.getRecipesAfter(null, 2, null, null, null, null, true, null, null);
+
+        assertEquals(List.of(testSummary, secondSummary), result.getContent());
+        assertTrue(result.isHasNext());
+        assertNotNull(result.getNext());
+        verify(recipeRepository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetRecipesAfter_LastPage() {
+        when(recipeRepository.findSummaries(any(Specification.class), any(Sort.class), any(Limit.class)))
+            .thenReturn(new ArrayList<>(List.of(testSummary)));
+
+        RecipeScrollDto result = recipeService.getRecipesAfter(null, 2, null, null, null, null, true, null, null);
+
+        assertEquals(List.of(testSummary), result.getContent());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    void testGetRecipesAfter_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+            () -> recipeService.getRecipesAfter("not-a-cursor", 2, null, null, null, null, true, null, null));
     }
 
     @Test
     void testAddRecipeToFavourites_Success() {
         testUser.setFavouriteRecipes(new ArrayList<>());
         
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
 
-        assertDoesNotThrow(() -> recipeService.addRecipeToFavourites(testToken, 1));
+        assertDoesNotThrow(() -> recipeService.addRecipeToFavourites(currentUser, 1));
         verify(userRepository).save(testUser);
     }
 
@@ -270,12 +561,11 @@ class RecipeServiceImplTest {
     void testAddRecipeToFavourites_AlreadyExists() {
         testUser.setFavouriteRecipes(List.of(testRecipe));
         
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
 
         assertThrows(RecipeErrorException.class, 
-            () -> recipeService.addRecipeToFavourites(testToken, 1));
+            () -> recipeService.addRecipeToFavourites(currentUser, 1));
     }
 
     @Test
@@ -283,11 +573,10 @@ class RecipeServiceImplTest {
         List<Recipe> favourites = new ArrayList<>(List.of(testRecipe));
         testUser.setFavouriteRecipes(favourites);
         
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
 
-        assertDoesNotThrow(() -> recipeService.deleteRiceFromFavourites(testToken, 1));
+        assertDoesNotThrow(() -> recipeService.deleteRiceFromFavourites(currentUser, 1));
         verify(userRepository).save(testUser);
     }
 
@@ -295,12 +584,11 @@ class RecipeServiceImplTest {
     void testDeleteRiceFromFavourites_NotInFavourites() {
         testUser.setFavouriteRecipes(new ArrayList<>());
         
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
 
         assertThrows(RecipeErrorException.class, 
-            () -> recipeService.deleteRiceFromFavourites(testToken, 1));
+            () -> recipeService.deleteRiceFromFavourites(currentUser, 1));
     }
 
     @Test
@@ -308,76 +596,88 @@ class RecipeServiceImplTest {
         testRecipe.setFavouriteByUsers(new ArrayList<>());
         testRecipe.setImages(new ArrayList<>());
         
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
 
-        assertDoesNotThrow(() -> recipeService.delete(testToken, 1));
+        assertDoesNotThrow(() -> recipeService.delete(currentUser, 1));
         verify(recipeRepository).delete(testRecipe);
     }
 
     @Test
     void testDelete_UnauthorizedException() {
-        UserEntity differentUser = new UserEntity();
-        differentUser.setId(2);
-        
-        when(jwtService.extractId("testtoken123")).thenReturn(2);
-        when(userRepository.findById(2)).thenReturn(Optional.of(differentUser));
         when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
-        when(jwtService.hasRole("testtoken123", "ADMIN")).thenReturn(false);
 
         assertThrows(UnauthorizedException.class, 
-            () -> recipeService.delete(testToken, 1));
+            () -> recipeService.delete(otherUser, 1));
     }
 
     @Test
-    void testSearchRecipes() {
-        List<Recipe> recipes = List.of(testRecipe);
-        when(recipeRepository.findByRecipeNameQuery("test")).thenReturn(recipes);
+    @SuppressWarnings("unchecked")
+    void testSearchRecipes_KeepsRankingOrder() {
+        RecipeSummary secondSummary = new RecipeSummary();
+        secondSummary.setId(2);
+        when(recipeSearch.search("test", 20, 10)).thenReturn(List.of(2, 1));
+        when(recipeRepository.findSummaries(any(Specification.class), any(Sort.class), eq(Limit.unlimited())))
+            .thenReturn(List.of(testSummary, secondSummary));
 
-        List<Recipe> result = recipeService.searchRecipes("test");
+        List<RecipeSummary> result = recipeService.searchRecipes(" test ", 3, 10);
 
-        assertEquals(1, result.size());
-        assertEquals(testRecipe, result.get(0));
-        verify(recipeRepository).findByRecipeNameQuery("test");
+        assertEquals(List.of(secondSummary, testSummary), result);
     }
 
     @Test
-    void testRating_Success() {
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
-        when(ratingRepository.findByRecipeIdAndUserId(1, 1)).thenReturn(Optional.empty());
+    void testSearchRecipes_NoMatches() {
+        when(recipeSearch.search("nothing", 0, 20)).thenReturn(List.of());
 
-        Recipe result = recipeService.rating(1, testToken, 4);
+        assertTrue(recipeService.searchRecipes("nothing", 1, 20).isEmpty());
+        verifyNoInteractions(recipeRepository);
+    }
 
-        assertEquals(testRecipe, result);
-        verify(ratingRepository).save(any(Rating.class));
+    @Test
+    void testSearchRecipes_BlankQueryAndInvalidPage() {
+        assertTrue(recipeService.searchRecipes("  ", 1, 20).isEmpty());
+        assertThrows(PageDoesNotExistException.class, () -> recipeService.searchRecipes("test", 0, 20));
+        assertThrows(IllegalArgumentException.class, () -> recipeService.searchRecipes("test", 1, 0));
+        verifyNoInteractions(recipeSearch);
     }
 
     @Test
-    void testRating_UpdateExisting() {
-        Rating existingRating = new Rating();
-        existingRating.setValue(3);
-        
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
-        when(ratingRepository.findByRecipeIdAndUserId(1, 1)).thenReturn(Optional.of(existingRating));
+    void testSuggest() {
+        when(recipeSuggester.suggest("tom", 10)).thenReturn(List.of("Tomato", "Tomato soup"));
 
-        Recipe result = recipeService.rating(1, testToken, 5);
+        assertEquals(List.of("Tomato", "Tomato soup"), recipeService.suggest("tom", 10));
+    }
 
-        assertEquals(testRecipe, result);
-        assertEquals(5, existingRating.getValue());
-        verify(ratingRepository).save(existingRating);
+    @Test
+    void testSuggest_BlankPrefixAndInvalidLimit() {
+        assertTrue(recipeService.suggest(" ", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> recipeService.suggest("tom", 0));
+        verifyNoInteractions(recipeSuggester);
+    }
+
+    @Test
+    void testRating_Success() {
+        when(ratingRepository.upsert(1, 1, 4)).thenReturn(true);
+
+        assertDoesNotThrow(() -> recipeService.rating(1, currentUser, 4));
+
+        verify(ratingRepository).upsert(1, 1, 4);
+        verify(eventPublisher).publishEvent(new RecipeRatedEvent(1));
+        verifyNoInteractions(userRepository, recipeRepository);
+    }
+
+    @Test
+    void testRating_RecipeNotFound() {
+        when(ratingRepository.upsert(1, 1, 4)).thenReturn(false);
+
+        assertThrows(RecipeNotFoundException.class, () -> recipeService.rating(1, currentUser, 4));
     }
 
     @Test
     void testRating_InvalidRating() {
         assertThrows(IllegalArgumentException.class, 
-            () -> recipeService.rating(1, testToken, 6));
+            () -> recipeService.rating(1, currentUser, 6));
         assertThrows(IllegalArgumentException.class, 
-            () -> recipeService.rating(1, testToken, 0));
+            () -> recipeService.rating(1, currentUser, 0));
     }
 
     @Test
@@ -385,49 +685,47 @@ class RecipeServiceImplTest {
         Rating userRating = new Rating();
         userRating.setValue(4);
         
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(ratingRepository.findByRecipeIdAndUserId(1, 1)).thenReturn(Optional.of(userRating));
 
-        int result = recipeService.getUserRating(1, testToken);
+        int result = recipeService.getUserRating(1, currentUser);
 
         assertEquals(4, result);
     }
 
     @Test
     void testGetUserRating_NoRating() {
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
         when(ratingRepository.findByRecipeIdAndUserId(1, 1)).thenReturn(Optional.empty());
 
-        int result = recipeService.getUserRating(1, testToken);
+        int result = recipeService.getUserRating(1, currentUser);
 
         assertEquals(0, result);
     }
 
     @Test
     void testIsRecipeFavourite_True() {
-        testUser.setFavouriteRecipes(List.of(testRecipe));
-        
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
+        when(recipeRepository.existsByIdAndFavouriteByUsersId(1, 1)).thenReturn(true);
 
-        boolean result = recipeService.isRecipeFavourite(testToken, 1);
+        boolean result = recipeService.isRecipeFavourite(currentUser, 1);
 
         assertTrue(result);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void testIsRecipeFavourite_False() {
-        testUser.setFavouriteRecipes(new ArrayList<>());
-        
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(testUser));
-        when(recipeRepository.findById(1)).thenReturn(Optional.of(testRecipe));
+        when(recipeRepository.existsByIdAndFavouriteByUsersId(1, 1)).thenReturn(false);
+        when(recipeRepository.existsById(1)).thenReturn(true);
 
-        boolean result = recipeService.isRecipeFavourite(testToken, 1);
+        boolean result = recipeService.isRecipeFavourite(currentUser, 1);
 
         assertFalse(result);
     }
+
+    @Test
+    void testIsRecipeFavourite_RecipeNotFound() {
+        when(recipeRepository.existsByIdAndFavouriteByUsersId(1, 1)).thenReturn(false);
+        when(recipeRepository.existsById(1)).thenReturn(false);
+
+        assertThrows(RecipeNotFoundException.class, () -> recipeService.isRecipeFavourite(currentUser, 1));
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.kk.cibaria.recipe;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kk.cibaria.ingredient.Ingredient;
 import com.kk.cibaria.rating.Rating;
 import com.kk.cibaria.step.Step;
@@ -37,7 +38,7 @@ class RecipeTest {
 
         Recipe recipe = new Recipe(1, "Test Recipe", 3, ingredients, 30, 4, 
                                  "Main Course", true, "en", ratings, 
-                                 new ArrayList<>(), user, new ArrayList<>(), steps);
+                                 new ArrayList<>(), user, new ArrayList<>(), steps, 0, 0L, 0.0, null, 0L);
 
         assertEquals(1, recipe.getId());
         assertEquals("Test Recipe", recipe.getRecipeName());
@@ -145,4 +146,13 @@ class RecipeTest {
         assertTrue(recipeString.contains("Test Recipe"));
         assertTrue(recipeString.contains("difficulty=2"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRecipeJson_CreatedAtIsReadOnly() throws Exception {
+        Recipe recipe = new ObjectMapper().readValue(
+                "{\"recipeName\":\"Test Recipe\",\"createdAt\":\"2026-01-01T10:00:00Z\"}", Recipe.class);
+
+        assertEquals("Test Recipe", recipe.getRecipeName());
+        assertNull(recipe.getCreatedAt());
+    }
+}
@@ -0,0 +1,106 @@
+package com.kk.cibaria.recipe;
+
+import com.kk.cibaria.helper.RecipeETag;
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.step.Step;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RecipeVersionIntegrationTest {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    private int recipeId;
+
+    @BeforeEach
+    void setup() {
+        transaction = new TransactionTemplate(transactionManager);
+        UserEntity user = new UserEntity();
+        user.setUsername("testuser");
+        user.setEmail("test@test.com");
+        user.setPassword("password");
+        UserEntity savedUser = userRepository.save(user);
+
+        Recipe recipe = new Recipe();
+        recipe.setRecipeName("Soup");
+        recipe.setUser(savedUser);
+        recipe.setIngredients(new ArrayList<>());
+        recipe.setSteps(new ArrayList<>(List.of(new Step("Boil", recipe))));
+        recipeId = recipeRepository.save(recipe).getId();
+    }
+
+    @AfterEach
+    void cleanup() {
+        recipeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void version_MovesWhenOnlyTheListsChange() {
+        long saved = currentETag().getVersion();
+
+        transaction.executeWithoutResult(status -> {
+            Recipe recipe = recipeRepository.findForUpdateById(recipeId).orElseThrow();
+            Ingredient ingredient = new Ingredient();
+            ingredient.setIngredientName("Tomato");
+            ingredient.setRecipe(recipe);
+            recipe.getIngredients().add(ingredient);
+            recipe.getSteps().clear();
+        });
+
+        assertEquals(saved + 1, currentETag().getVersion());
+    }
+
+    @Test
+    void version_StaysWhenRated() {
+        RecipeETag before = currentETag();
+
+        recipeRepository.addToRatingAggregates(recipeId, 1, 5);
+
+        RecipeETag after = currentETag();
+        assertEquals(before.getVersion(), after.getVersion());
+        assertEquals("\"" + before.getVersion() + "-1-5\"", after.value());
+    }
+
+    @Test
+    void version_RejectsAnEditOfAnOutdatedCopy() {
+        Recipe outdated = recipeRepository.findById(recipeId).orElseThrow();
+        transaction.executeWithoutResult(status ->
+                recipeRepository.findForUpdateById(recipeId).orElseThrow().setRecipeName("Tomato soup"));
+
+        outdated.setRecipeName("Onion soup");
+
+        assertThrows(OptimisticLockingFailureException.class, () -> recipeRepository.save(outdated));
+        assertEquals("Tomato soup", recipeRepository.findById(recipeId).orElseThrow().getRecipeName());
+    }
+
+    private RecipeETag currentETag() {
+        return recipeRepository.findETagById(recipeId).orElseThrow();
+    }
+}
@@ -0,0 +1,138 @@
+package com.kk.cibaria.search;
+
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import com.kk.cibaria.recipe.RecipeRepository;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the tsvector search against a real Postgres, skipped when Docker is not available
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ DatabaseRecipeSearch.class, RecipeSearchVector.class })
+class DatabaseRecipeSearchPostgresIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private DatabaseRecipeSearch recipeSearch;
+
+    @Autowired
+    private RecipeSearchVector recipeSearchVector;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserEntity testUser;
+
+    @BeforeEach
+    void setup() {
+        testUser = new UserEntity();
+        testUser.setUsername("testuser");
+        testUser.setEmail("test@test.com");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+        recipeSearchVector.run(null);
+    }
+
+    @AfterEach
+    void cleanup() {
+        recipeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void search_NameMatchRanksAboveIngredientMatch() {
+        Recipe soup = saveRecipe("Tomato soup", "en", "water");
+        Recipe salad = saveRecipe("Summer salad", "en", "tomatoes");
+        saveRecipe("Pancakes", "en", "flour");
+        recipeSearchVector.run(null);
+
+        // "tomatoes" only matches "Tomato" through the english stemmer
+        List<Integer> ids = recipeSearch.search("tomatoes", 0, 10);
+
+        assertEquals(List.of(soup.getId(), salad.getId()), ids);
+    }
+
+    @Test
+    void search_NonEnglishRecipeMatchesVerbatim() {
+        Recipe pierogi = saveRecipe("Pierogi ruskie", "pl", "ziemniaki");
+        recipeSearchVector.run(null);
+
+        assertEquals(List.of(pierogi.getId()), recipeSearch.search("ziemniaki", 0, 10));
+        assertEquals(List.of(), recipeSearch.search("ziemniak", 0, 10));
+    }
+
+    @Test
+    void search_Paginates() {
+        for (int i = 0; i < 5; i++) {
+            saveRecipe("Cake " + i, "en", "sugar");
+        }
+        recipeSearchVector.run(null);
+
+        assertEquals(2, recipeSearch.search("cake", 0, 2).size());
+        assertEquals(1, recipeSearch.search("cake", 4, 2).size());
+    }
+
+    @Test
+    void onRecipeChanged_RefreshesVectorBeforeCommit() {
+        Recipe recipe = saveRecipe("Plain bread", "en", "flour");
+        recipeSearchVector.run(null);
+        assertEquals(List.of(), recipeSearch.search("garlic", 0, 10));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Recipe loaded = recipeRepository.findById(recipe.getId()).orElseThrow();
+            loaded.setRecipeName("Garlic bread");
+            eventPublisher.publishEvent(new RecipeChangedEvent(loaded.getId(), false));
+        });
+
+        assertEquals(List.of(recipe.getId()), recipeSearch.search("garlic", 0, 10));
+    }
+
+    private Recipe saveRecipe(String name, String language, String ingredientName) {
+        Recipe recipe = new Recipe();
+        recipe.setRecipeName(name);
+        recipe.setLanguage(language);
+        recipe.setUser(testUser);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setIngredientName(ingredientName);
+        ingredient.setRecipe(recipe);
+        recipe.setIngredients(new ArrayList<>(List.of(ingredient)));
+        return recipeRepository.save(recipe);
+    }
+}
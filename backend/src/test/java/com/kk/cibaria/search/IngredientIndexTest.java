@@ -0,0 +1,58 @@
+package com.kk.cibaria.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientIndexTest {
+
+    private IngredientIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new IngredientIndex();
+        index.put(1, List.of("Tomato", "Basil", "Mozzarella"));
+        index.put(2, List.of("tomato ", "Garlic"));
+        index.put(3, List.of("Flour", "Milk", "Egg"));
+    }
+
+    @Test
+    void recipesWithAll_IntersectsIngredients() {
+        assertArrayEquals(new int[] { 1, 2 }, index.recipesWithAll(List.of("TOMATO")));
+        assertArrayEquals(new int[] { 1 }, index.recipesWithAll(List.of("tomato", "basil")));
+        assertArrayEquals(new int[] {}, index.recipesWithAll(List.of("basil", "garlic")));
+    }
+
+    @Test
+    void recipesWithAll_UnknownIngredient() {
+        assertArrayEquals(new int[] {}, index.recipesWithAll(List.of("tomato", "saffron")));
+    }
+
+    @Test
+    void put_ReplacesPreviousIngredients() {
+        index.put(2, List.of("Garlic", "Basil"));
+
+        assertArrayEquals(new int[] { 1 }, index.recipesWithAll(List.of("tomato")));
+        assertArrayEquals(new int[] { 1, 2 }, index.recipesWithAll(List.of("basil")));
+    }
+
+    @Test
+    void put_WithoutIngredientsRemovesRecipe() {
+        index.put(1, List.of());
+
+        assertArrayEquals(new int[] { 2 }, index.recipesWithAll(List.of("tomato")));
+        assertArrayEquals(new int[] {}, index.recipesWithAll(List.of("mozzarella")));
+    }
+
+    @Test
+    void recipesWithAll_LargeAndSmallLists() {
+        for (int id = 10; id < 2000; id++) {
+            index.put(id, List.of("Salt", id % 500 == 0 ? "Pepper" : "Sugar"));
+        }
+
+        assertArrayEquals(new int[] { 500, 1000, 1500 }, index.recipesWithAll(List.of("salt", "pepper")));
+    }
+}
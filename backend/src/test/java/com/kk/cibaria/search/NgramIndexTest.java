@@ -0,0 +1,86 @@
+package com.kk.cibaria.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NgramIndexTest {
+
+    private NgramIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new NgramIndex();
+        index.put(1, "Tomato Soup", List.of("Tomato", "Water"));
+        index.put(2, "Summer salad", List.of("Tomatoes", "Cucumber"));
+        index.put(3, "Pancakes", List.of("Flour", "Milk"));
+    }
+
+    @Test
+    void search_MatchesSubstringOfNameOrIngredient() {
+        assertEquals(List.of(1, 2), index.search("omat", 0, 10));
+        assertEquals(List.of(3), index.search("MILK", 0, 10));
+        assertEquals(List.of(), index.search("garlic", 0, 10));
+    }
+
+    @Test
+    void search_NameMatchesComeFirst() {
+        index.put(0, "Cucumber salad", List.of());
+
+        assertEquals(List.of(0, 2), index.search("cucumber", 0, 10));
+    }
+
+    @Test
+    void search_EveryTermHasToMatch() {
+        assertEquals(List.of(2), index.search("salad cucumber", 0, 10));
+        assertEquals(List.of(), index.search("salad milk", 0, 10));
+    }
+
+    @Test
+    void search_ShortTermChecksEveryRecipe() {
+        assertEquals(List.of(3), index.search("ak", 0, 10));
+        assertEquals(List.of(1, 2, 3), index.search("a", 0, 10));
+    }
+
+    @Test
+    void search_Paginates() {
+        assertEquals(List.of(1), index.search("a", 0, 1));
+        assertEquals(List.of(2, 3), index.search("a", 1, 10));
+        assertEquals(List.of(), index.search("a", 5, 10));
+    }
+
+    @Test
+    void put_ReplacesPreviousVersion() {
+        index.put(3, "Crepes", List.of("Flour"));
+
+        assertEquals(List.of(), index.search("pancake", 0, 10));
+        assertEquals(List.of(3), index.search("crepe", 0, 10));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void remove_DropsRecipe() {
+        index.remove(1);
+
+        assertEquals(List.of(2), index.search("tomato", 0, 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void estimatedSizeInBytes_GrowsAndShrinks() {
+        long before = index.estimatedSizeInBytes();
+
+        index.put(4, "Chocolate chip cookies", List.of("Chocolate", "Butter", "Sugar"));
+        long after = index.estimatedSizeInBytes();
+
+        assertTrue(after > before);
+        index.remove(4);
+        assertTrue(index.estimatedSizeInBytes() < after);
+
+        index.clear();
+        assertEquals(0, index.estimatedSizeInBytes());
+    }
+}
@@ -0,0 +1,141 @@
+package com.kk.cibaria.search;
+
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import com.kk.cibaria.recipe.RecipeRepository;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "cibaria.search.engine=ngram")
+@Import(NgramRecipeSearch.class)
+class NgramRecipeSearchIntegrationTest {
+
+    @Autowired
+    private NgramRecipeSearch recipeSearch;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserEntity testUser;
+
+    @BeforeEach
+    void setup() {
+        testUser = new UserEntity();
+        testUser.setUsername("testuser");
+        testUser.setEmail("test@test.com");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void cleanup() {
+        recipeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void run_RebuildsFromDatabase() {
+        Recipe soup = saveRecipe("Tomato soup", "water");
+        Recipe salad = saveRecipe("Summer salad", "tomatoes");
+
+        recipeSearch.run(null);
+
+        assertEquals(List.of(soup.getId(), salad.getId()), recipeSearch.search("tomato", 0, 10));
+    }
+
+    @Test
+    void onRecipeChanged_IndexesCommittedChange() {
+        Recipe recipe = saveRecipe("Plain bread", "flour");
+        recipeSearch.run(null);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Recipe loaded = recipeRepository.findById(recipe.getId()).orElseThrow();
+            loaded.setRecipeName("Garlic bread");
+            eventPublisher.publishEvent(new RecipeChangedEvent(loaded.getId(), false));
+        });
+
+        assertEquals(List.of(recipe.getId()), recipeSearch.search("garlic", 0, 10));
+        assertEquals(List.of(), recipeSearch.search("plain", 0, 10));
+    }
+
+    @Test
+    void onRecipeChanged_IgnoresRolledBackChange() {
+        Recipe recipe = saveRecipe("Plain bread", "flour");
+        recipeSearch.run(null);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Recipe loaded = recipeRepository.findById(recipe.getId()).orElseThrow();
+            loaded.setRecipeName("Garlic bread");
+            eventPublisher.publishEvent(new RecipeChangedEvent(loaded.getId(), false));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of(), recipeSearch.search("garlic", 0, 10));
+    }
+
+    @Test
+    void onRecipeChanged_RemovesDeletedRecipe() {
+        Recipe recipe = saveRecipe("Plain bread", "flour");
+        recipeSearch.run(null);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            recipeRepository.deleteById(recipe.getId());
+            eventPublisher.publishEvent(new RecipeChangedEvent(recipe.getId(), true));
+        });
+
+        assertEquals(List.of(), recipeSearch.search("bread", 0, 10));
+    }
+
+    @Test
+    void bindTo_ReportsIndexSize() {
+        saveRecipe("Plain bread", "flour");
+        recipeSearch.run(null);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        recipeSearch.bindTo(registry);
+
+        assertTrue(registry.get("recipes.search.index.size").gauge().value() > 0);
+        assertEquals(1, registry.get("recipes.search.index.recipes").gauge().value());
+    }
+
+    private Recipe saveRecipe(String name, String ingredientName) {
+        Recipe recipe = new Recipe();
+        recipe.setRecipeName(name);
+        recipe.setUser(testUser);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setIngredientName(ingredientName);
+        ingredient.setRecipe(recipe);
+        recipe.setIngredients(new ArrayList<>(List.of(ingredient)));
+        return recipeRepository.save(recipe);
+    }
+}
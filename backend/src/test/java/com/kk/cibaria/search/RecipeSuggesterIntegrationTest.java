@@ -0,0 +1,105 @@
+package com.kk.cibaria.search;
+
+import com.kk.cibaria.ingredient.Ingredient;
+import com.kk.cibaria.recipe.Recipe;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import com.kk.cibaria.recipe.RecipeRepository;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(RecipeSuggester.class)
+class RecipeSuggesterIntegrationTest {
+
+    @Autowired
+    private RecipeSuggester recipeSuggester;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserEntity testUser;
+
+    @BeforeEach
+    void setup() {
+        testUser = new UserEntity();
+        testUser.setUsername("testuser");
+        testUser.setEmail("test@test.com");
+        testUser.setPassword("password");
+        testUser = userRepository.save(testUser);
+    }
+
+    @AfterEach
+    void cleanup() {
+        recipeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void run_LoadsPublicRecipesOnly() {
+        saveRecipe("Tomato soup", true, "Tomato");
+        saveRecipe("Tomato secret", false, "Tomato paste");
+
+        recipeSuggester.run(null);
+
+        assertEquals(List.of("Tomato", "Tomato soup"), recipeSuggester.suggest("tom", 10));
+    }
+
+    @Test
+    void onRecipeChanged_UpdatesAfterCommit() {
+        Recipe recipe = saveRecipe("Plain bread", true, "Flour");
+        recipeSuggester.run(null);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Recipe loaded = recipeRepository.findById(recipe.getId()).orElseThrow();
+            loaded.setRecipeName("Garlic bread");
+            eventPublisher.publishEvent(new RecipeChangedEvent(loaded.getId(), false));
+        });
+        assertEquals(List.of("Garlic bread"), recipeSuggester.suggest("gar", 10));
+        assertEquals(List.of(), recipeSuggester.suggest("pla", 10));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Recipe loaded = recipeRepository.findById(recipe.getId()).orElseThrow();
+            loaded.setIsPublic(false);
+            eventPublisher.publishEvent(new RecipeChangedEvent(loaded.getId(), false));
+        });
+        assertEquals(List.of(), recipeSuggester.suggest("gar", 10));
+    }
+
+    private Recipe saveRecipe(String name, boolean isPublic, String ingredientName) {
+        Recipe recipe = new Recipe();
+        recipe.setRecipeName(name);
+        recipe.setIsPublic(isPublic);
+        recipe.setUser(testUser);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setIngredientName(ingredientName);
+        ingredient.setRecipe(recipe);
+        recipe.setIngredients(new ArrayList<>(List.of(ingredient)));
+        return recipeRepository.save(recipe);
+    }
+}
@@ -0,0 +1,101 @@
+package com.kk.cibaria.search;
+
+import com.kk.cibaria.search.SuggestionIndex.RecipeTerms;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new SuggestionIndex();
+        index.replaceAll(Map.of(
+                1, new RecipeTerms("Tomato Soup", List.of("Tomato", "Water"), 1),
+                2, new RecipeTerms("Tortilla", List.of("Tomato", "Flour"), 5),
+                3, new RecipeTerms("Pancakes", List.of("Flour", "Milk"), 1)));
+    }
+
+    @Test
+    void suggest_RanksByPopularity() {
+        // Tomato is in recipes 1 and 2 (1 + 5), Tortilla only in 2 (5), Tomato Soup only in 1
+        assertEquals(List.of("Tomato", "Tortilla", "Tomato Soup"), index.suggest("t", 10));
+        assertEquals(List.of("Tomato", "Tomato Soup"), index.suggest("TOMA", 10));
+    }
+
+    @Test
+    void suggest_CachedAndScannedPrefixesAgree() {
+        assertEquals(List.of("Tomato", "Tortilla", "Tomato Soup"), index.suggest("to", 10));
+        assertEquals(List.of("Tomato", "Tomato Soup"), index.suggest("tom", 10));
+        assertEquals(List.of("Tomato Soup"), index.suggest("tomato  s", 10));
+    }
+
+    @Test
+    void suggest_LimitsResults() {
+        assertEquals(List.of("Tomato"), index.suggest("t", 1));
+        assertEquals(List.of("Flour"), index.suggest("fl", 1));
+    }
+
+    @Test
+    void suggest_NoMatchOrBlankPrefix() {
+        assertEquals(List.of(), index.suggest("x", 10));
+        assertEquals(List.of(), index.suggest("xyz", 10));
+        assertEquals(List.of(), index.suggest("  ", 10));
+    }
+
+    @Test
+    void put_ReplacesPreviousVersion() {
+        index.put(2, new RecipeTerms("Burrito", List.of("Flour"), 5));
+
+        assertEquals(List.of("Tomato", "Tomato Soup"), index.suggest("to", 10));
+        assertEquals(List.of("Burrito"), index.suggest("bu", 10));
+    }
+
+    @Test
+    void remove_DropsTermsOnlyUsedByRecipe() {
+        index.remove(1);
+
+        assertEquals(List.of("Tomato", "Tortilla"), index.suggest("to", 10));
+        assertEquals(List.of(), index.suggest("wa", 10));
+    }
+
+    @Test
+    void put_And_Remove_MatchAFullRebuild() {
+        // enough terms per prefix to fill the cached top lists, so changes to their members force a rescan
+        SuggestionIndex incremental = new SuggestionIndex();
+        Random random = new Random(7);
+        Map<Integer, RecipeTerms> recipes = new HashMap<>();
+        for (int step = 0; step < 500; step++) {
+            int id = random.nextInt(60);
+            if (random.nextInt(4) == 0) {
+                recipes.remove(id);
+                incremental.remove(id);
+            } else {
+                List<String> ingredients = new ArrayList<>();
+                for (int i = random.nextInt(5); i > 0; i--) {
+                    ingredients.add("t" + (char) ('a' + random.nextInt(3)) + random.nextInt(40));
+                }
+                RecipeTerms recipe = new RecipeTerms("Ta " + id, ingredients, 1 + random.nextInt(10));
+                recipes.put(id, recipe);
+                incremental.put(id, recipe);
+            }
+        }
+
+        SuggestionIndex rebuilt = new SuggestionIndex();
+        rebuilt.replaceAll(recipes);
+        for (String prefix : List.of("t", "ta", "tb", "tc", "ta ", "ta1", "tb2", "to")) {
+            assertEquals(rebuilt.suggest(prefix, SuggestionIndex.MAX_LIMIT),
+                    incremental.suggest(prefix, SuggestionIndex.MAX_LIMIT), prefix);
+        }
+        assertEquals(rebuilt.size(), incremental.size());
+    }
+}
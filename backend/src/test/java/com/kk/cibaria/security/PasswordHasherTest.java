@@ -0,0 +1,108 @@
+package com.kk.cibaria.security;
+
+import com.kk.cibaria.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(4, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        hasher.close();
+    }
+
+    @Test
+    void encode_HashesWithTheConfiguredCost() {
+        String encoded = hasher.encode("password");
+
+        assertTrue(encoded.startsWith("$2a$04$"));
+        assertTrue(hasher.matches("password", encoded));
+        assertFalse(hasher.matches("wrongPassword", encoded));
+    }
+
+    @Test
+    void upgradeEncoding_WhenTheCostChanged() {
+        assertFalse(hasher.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertTrue(hasher.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password")));
+        assertFalse(hasher.upgradeEncoding("not a bcrypt hash"));
+        assertFalse(hasher.upgradeEncoding(null));
+    }
+
+    @Test
+    void encode_RecordsHashingTime() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        hasher.bindTo(registry);
+
+        hasher.matches("password", hasher.encode("password"));
+
+        assertEquals(1, registry.get("security.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(1, registry.get("security.password.hash").tag("operation", "matches").timer().count());
+        assertEquals(2, registry.get("security.password.wait").timer().count());
+    }
+
+    @Test
+    void encode_RejectsWhenTheQueueIsFull() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        hasher.bindTo(registry);
+        CountDownLatch release = new CountDownLatch(1);
+        // one password on the only thread, one in the only queue slot
+        Thread hashing = new Thread(() -> hasher.encode(new HeldPassword(release)));
+        Thread queued = new Thread(() -> hasher.encode(new HeldPassword(release)));
+        hashing.start();
+        awaitGauge(registry, "security.password.active", 1);
+        queued.start();
+        awaitGauge(registry, "security.password.queue", 1);
+
+        assertThrows(PasswordHashingBusyException.class, () -> hasher.encode("password"));
+        assertEquals(1, registry.get("security.password.rejected").counter().count());
+
+        release.countDown();
+        hashing.join();
+        queued.join();
+        assertTrue(hasher.matches("password", hasher.encode("password")));
+    }
+
+    private static void awaitGauge(SimpleMeterRegistry registry, String name, double value) throws InterruptedException {
+        for (int i = 0; i < 500 && registry.get(name).gauge().value() != value; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(value, registry.get(name).gauge().value());
+    }
+
+    // a password whose hashing only starts once the latch opens
+    private record HeldPassword(CountDownLatch release) implements CharSequence {
+
+        @Override
+        public String toString() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "password";
+        }
+
+        @Override
+        public int length() {
+            return toString().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return toString().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.kk.cibaria.security;
 
 import com.kk.cibaria.security.jwt.JwtAuthenticationFilter;
+import com.kk.cibaria.security.ratelimit.RateLimitFilter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -21,18 +22,21 @@ class SecurityConfigurationTest {
     @Mock
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Mock
+    private RateLimitFilter rateLimitFilter;
+
     private SecurityConfiguration securityConfiguration;
 
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        securityConfiguration = new SecurityConfiguration(userDetailService, jwtAuthenticationFilter);
+        securityConfiguration = new SecurityConfiguration(userDetailService, jwtAuthenticationFilter, rateLimitFilter);
     }
 
     @Test
     void testPasswordEncoder() {
         // create password encoder
-        PasswordEncoder encoder = securityConfiguration.passwordEncoder();
+        PasswordEncoder encoder = securityConfiguration.passwordEncoder(10, 0, 32);
 
         assertNotNull(encoder);
         assertTrue(encoder.encode("password").startsWith("$2a$")); // BCrypt format
@@ -41,7 +45,7 @@ class SecurityConfigurationTest {
 
     @Test
     void testAuthenticationProviderBean() {
-        AuthenticationProvider provider = securityConfiguration.authenticationProvider();
+        AuthenticationProvider provider = securityConfiguration.authenticationProvider(securityConfiguration.passwordEncoder(10, 0, 32));
 
         assertNotNull(provider);
         assertTrue(provider instanceof DaoAuthenticationProvider);
@@ -49,7 +53,8 @@ class SecurityConfigurationTest {
 
     @Test
     void testAuthenticationManagerBean() {
-        AuthenticationManager manager = securityConfiguration.authenticationManager();
+        AuthenticationManager manager = securityConfiguration.authenticationManager(
+                securityConfiguration.authenticationProvider(securityConfiguration.passwordEncoder(10, 0, 32)));
 
         assertNotNull(manager);
     }
@@ -63,14 +68,14 @@ class SecurityConfigurationTest {
 
     @Test
     void testConstructor() {
-        SecurityConfiguration config = new SecurityConfiguration(userDetailService, jwtAuthenticationFilter);
+        SecurityConfiguration config = new SecurityConfiguration(userDetailService, jwtAuthenticationFilter, rateLimitFilter);
 
         assertNotNull(config);
     }
 
     @Test
     void testPasswordEncoderWithSalt() {
-        PasswordEncoder encoder = securityConfiguration.passwordEncoder();
+        PasswordEncoder encoder = securityConfiguration.passwordEncoder(10, 0, 32);
         String password = "testPassword123!";
 
         String encoded1 = encoder.encode(password);
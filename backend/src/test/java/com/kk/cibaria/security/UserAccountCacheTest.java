@@ -0,0 +1,68 @@
+package com.kk.cibaria.security;
+
+import com.kk.cibaria.security.jwt.JwtPrincipal;
+import com.kk.cibaria.user.UserChangedEvent;
+import com.kk.cibaria.user.UserEntity;
+import com.kk.cibaria.user.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserAccountCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserAccountCache cache;
+    private UserEntity user;
+    private final JwtPrincipal principal = new JwtPrincipal(1, "test@test.com", List.of("USER"));
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        cache = new UserAccountCache(userRepository);
+        user = new UserEntity();
+        user.setId(1);
+        user.setEmail("test@test.com");
+        user.setRole("USER");
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void isCurrent_ReadsTheUserOnce() {
+        assertTrue(cache.isCurrent(principal));
+        assertTrue(cache.isCurrent(principal));
+
+        verify(userRepository, times(1)).findById(1);
+    }
+
+    @Test
+    void isCurrent_RejectsTokensOfChangedUsers() {
+        assertTrue(cache.isCurrent(principal));
+        user.setRole("USER,ADMIN");
+
+        // still the cached account until the change is announced
+        assertTrue(cache.isCurrent(principal));
+        cache.onUserChanged(new UserChangedEvent(1));
+
+        assertFalse(cache.isCurrent(principal));
+        assertTrue(cache.isCurrent(new JwtPrincipal(1, "test@test.com", List.of("USER", "ADMIN"))));
+        assertFalse(cache.isCurrent(new JwtPrincipal(1, "old@test.com", List.of("USER", "ADMIN"))));
+    }
+
+    @Test
+    void isCurrent_RejectsTokensOfDeletedUsers() {
+        when(userRepository.findById(2)).thenReturn(Optional.empty());
+
+        assertFalse(cache.isCurrent(new JwtPrincipal(2, "gone@test.com", List.of("USER"))));
+        assertFalse(cache.isCurrent(new JwtPrincipal(2, "gone@test.com", List.of("USER"))));
+        verify(userRepository, times(1)).findById(2);
+    }
+}
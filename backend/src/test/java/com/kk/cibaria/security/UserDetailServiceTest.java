@@ -46,6 +46,8 @@ class UserDetailServiceTest {
         assertEquals("$2a$10$encodedPassword", userDetails.getPassword());
         assertTrue(userDetails.getAuthorities().stream()
             .anyMatch(auth -> auth.getAuthority().equals("ROLE_USER")));
+        // the loaded entity travels with the principal, so a login does not load it again to mint the token
+        assertSame(user, ((AuthenticatedUser) userDetails).getUser());
     }
 
     @Test
@@ -122,6 +124,27 @@ class UserDetailServiceTest {
             .anyMatch(auth -> auth.getAuthority().equals("ROLE_USER")));
     }
 
+    @Test
+    void testUpdatePassword_StoresTheRehashedPassword() {
+        // given
+        UserEntity user = new UserEntity();
+        user.setEmail("test@test.com");
+        user.setPassword("$2a$04$oldCostPassword");
+        user.setRole("USER");
+        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+        UserDetails loaded = userDetailService.loadUserByUsername("test@test.com");
+
+        // when
+        UserDetails updated = userDetailService.updatePassword(loaded, "$2a$10$newCostPassword");
+
+        // then
+        assertEquals("$2a$10$newCostPassword", user.getPassword());
+        assertEquals("$2a$10$newCostPassword", updated.getPassword());
+        verify(userRepository).save(user);
+        verify(userRepository, times(1)).findByEmail("test@test.com");
+    }
+
     @Test
     void testConstructor() {
         UserDetailService service = new UserDetailService(userRepository);
@@ -1,22 +1,23 @@
 package com.kk.cibaria.security.jwt;
 
-import com.kk.cibaria.security.UserDetailService;
+import com.kk.cibaria.security.UserAccountCache;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class JwtAuthenticationFilterTest {
@@ -25,7 +26,7 @@ class JwtAuthenticationFilterTest {
     private JwtService jwtService;
 
     @Mock
-    private UserDetailService userDetailService;
+    private UserAccountCache userAccountCache;
 
     @Mock
     private HttpServletRequest request;
@@ -38,10 +39,12 @@ class JwtAuthenticationFilterTest {
 
     private JwtAuthenticationFilter filter;
 
+    private final JwtPrincipal principal = new JwtPrincipal(1, "test@test.com", List.of("USER"));
+
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        filter = new JwtAuthenticationFilter(jwtService, userDetailService);
+        filter = new JwtAuthenticationFilter(jwtService, userAccountCache);
         SecurityContextHolder.clearContext(); // clean slate
     }
 
@@ -65,59 +68,76 @@ class JwtAuthenticationFilterTest {
 
         verify(filterChain).doFilter(request, response);
         assertNull(SecurityContextHolder.getContext().getAuthentication()); // still not authenticated
+        verifyNoInteractions(jwtService);
     }
 
     @Test
     void testGoodToken() throws Exception {
-        // valid JWT token flow
-        String token = "goodToken";
-        UserDetails user = User.builder()
-            .username("test@test.com")
-            .password("pass")
-            .authorities(Collections.singleton(new SimpleGrantedAuthority("ROLE_USER")))
-            .build();
-
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn("test@test.com");
-        when(userDetailService.loadUserByUsername("test@test.com")).thenReturn(user);
-        when(jwtService.isTokenValid(token)).thenReturn(true);
+        // valid JWT token flow, the token is parsed once and the users table is not read
+        when(request.getHeader("Authorization")).thenReturn("Bearer goodToken");
+        when(jwtService.parse("goodToken")).thenReturn(principal);
+        when(userAccountCache.isCurrent(principal)).thenReturn(true);
 
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
-        assertNotNull(SecurityContextHolder.getContext().getAuthentication()); // now authenticated
-        assertEquals("test@test.com", SecurityContextHolder.getContext().getAuthentication().getName());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication); // now authenticated
+        assertEquals("test@test.com", authentication.getName());
+        assertSame(principal, authentication.getPrincipal());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+        verify(jwtService, times(1)).parse(any());
+        verifyNoMoreInteractions(jwtService);
+    }
+
+    @Test
+    void testTokenCheckedOnlyWhenTheAuthenticationIsRead() throws Exception {
+        // public routes never read the authentication, so their requests skip the token
+        when(request.getHeader("Authorization")).thenReturn("Bearer goodToken");
+        when(jwtService.parse("goodToken")).thenReturn(principal);
+        when(userAccountCache.isCurrent(principal)).thenReturn(true);
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(jwtService, userAccountCache);
+
+        assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(jwtService, times(1)).parse("goodToken");
+        verify(userAccountCache, times(1)).isCurrent(principal);
     }
 
     @Test
     void testBadToken() throws Exception {
-        // expired/invalid token
-        String token = "badToken";
-        UserDetails user = User.builder()
-            .username("test@test.com")
-            .password("pass")
-            .authorities(Collections.singleton(new SimpleGrantedAuthority("ROLE_USER")))
-            .build();
-
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn("test@test.com");
-        when(userDetailService.loadUserByUsername("test@test.com")).thenReturn(user);
-        when(jwtService.isTokenValid(token)).thenReturn(false); // token is bad
+        // expired token
+        when(request.getHeader("Authorization")).thenReturn("Bearer badToken");
+        when(jwtService.parse("badToken")).thenThrow(new ExpiredJwtException(null, null, "expired"));
 
         filter.doFilterInternal(request, response, filterChain);
 
         verify(filterChain).doFilter(request, response);
         assertNull(SecurityContextHolder.getContext().getAuthentication()); // not authenticated
+        verifyNoInteractions(userAccountCache);
+    }
+
+    @Test
+    void testMalformedToken() throws Exception {
+        when(request.getHeader("Authorization")).thenReturn("Bearer garbage");
+        when(jwtService.parse("garbage")).thenThrow(new MalformedJwtException("malformed"));
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
     @Test
     void testUserNotFound() throws Exception {
-        // token is ok but user doesn't exist in DB
-        String token = "goodToken";
-        
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn("test@test.com");
-        when(userDetailService.loadUserByUsername("test@test.com")).thenReturn(null); // user not found
+        // token is ok but the user was deleted or its email or roles changed since
+        when(request.getHeader("Authorization")).thenReturn("Bearer goodToken");
+        when(jwtService.parse("goodToken")).thenReturn(principal);
+        when(userAccountCache.isCurrent(principal)).thenReturn(false);
 
         filter.doFilterInternal(request, response, filterChain);
 
@@ -127,8 +147,8 @@ class JwtAuthenticationFilterTest {
 
     @Test
     void testConstructor() {
-        JwtAuthenticationFilter newFilter = new JwtAuthenticationFilter(jwtService, userDetailService);
+        JwtAuthenticationFilter newFilter = new JwtAuthenticationFilter(jwtService, userAccountCache);
         
         assertNotNull(newFilter);
     }
-}
\ No newline at end of file
+}
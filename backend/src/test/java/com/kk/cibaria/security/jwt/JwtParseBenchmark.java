@@ -0,0 +1,84 @@
+package com.kk.cibaria.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost of turning a bearer token into a JwtPrincipal: verifying it (HMAC and claim decoding) on every request
+// against the verified-token cache of JwtService, four request threads presenting tokens of 1000 users. Start it with
+//   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+//     -Dexec.args="-cp %classpath com.kk.cibaria.security.jwt.JwtParseBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JwtParseBenchmark {
+
+    private static final int USERS = 1000;
+
+    private JwtService jwtService;
+    private String[] tokens;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(10_000);
+        ReflectionTestUtils.setField(jwtService, "secretKey",
+                "12345678901234567890123456789012345678901234567890123456789012345678901234567890");
+        tokens = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            tokens[i] = Jwts.builder()
+                    .claims(Map.of("provider", "kkBackend", "id", String.valueOf(i), "roles", List.of("USER")))
+                    .subject("user" + i + "@example.com")
+                    .issuedAt(new Date())
+                    .expiration(Date.from(Instant.now().plusSeconds(3600)))
+                    .signWith(jwtService.generateKey())
+                    .compact();
+            jwtService.parse(tokens[i]);
+        }
+    }
+
+    private String anyToken() {
+        return tokens[ThreadLocalRandom.current().nextInt(USERS)];
+    }
+
+    @Benchmark
+    public JwtPrincipal coldParse() {
+        return jwtService.verify(anyToken());
+    }
+
+    @Benchmark
+    public JwtPrincipal cachedParse() {
+        return jwtService.parse(anyToken());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtParseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
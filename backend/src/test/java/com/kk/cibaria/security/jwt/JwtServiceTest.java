@@ -1,37 +1,30 @@
 package com.kk.cibaria.security.jwt;
 
 import com.kk.cibaria.user.UserEntity;
-import com.kk.cibaria.user.UserRepository;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.Collections;
-import java.util.Optional;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
 
 class JwtServiceTest {
 
-    @Mock
-    private UserRepository userRepository;
-
     private JwtService jwtService;
     
     private UserEntity testUser;
-    private UserDetails testUserDetails;
 
     @BeforeEach
     void setup() {
-        MockitoAnnotations.openMocks(this);
-        jwtService = new JwtService(userRepository);
+        jwtService = new JwtService(100);
         
         // base64 encoded test secret key
         ReflectionTestUtils.setField(jwtService, "secretKey", "12345678901234567890123456789012345678901234567890123456789012345678901234567890");
@@ -40,38 +33,20 @@ class JwtServiceTest {
         testUser.setId(1);
         testUser.setEmail("test@test.com");
         testUser.setRole("USER");
-        
-        testUserDetails = User.builder()
-            .username("test@test.com")
-            .password("encodedPassword")
-            .authorities(Collections.singleton(new SimpleGrantedAuthority("ROLE_USER")))
-            .build();
     }
 
     @Test
     void testGenerateToken_Success() {
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
-
-        String token = jwtService.generateToken(testUserDetails);
+        String token = jwtService.generateToken(testUser);
 
         assertNotNull(token);
         assertFalse(token.isEmpty());
         assertTrue(token.split("\\.").length == 3); // JWT format: header.payload.signature
     }
 
-    @Test
-    void testGenerateToken_UserNotFound() {
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.empty());
-
-        assertThrows(UsernameNotFoundException.class, 
-            () -> jwtService.generateToken(testUserDetails));
-    }
-
     @Test
     void testExtractUsername() {
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
-        
-        String token = jwtService.generateToken(testUserDetails);
+        String token = jwtService.generateToken(testUser);
         String extractedUsername = jwtService.extractUsername(token);
 
         assertEquals("test@test.com", extractedUsername);
@@ -79,9 +54,7 @@ class JwtServiceTest {
 
     @Test
     void testExtractId() {
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
-        
-        String token = jwtService.generateToken(testUserDetails);
+        String token = jwtService.generateToken(testUser);
         int extractedId = jwtService.extractId(token);
 
         assertEquals(1, extractedId);
@@ -89,9 +62,7 @@ class JwtServiceTest {
 
     @Test
     void testIsTokenValid() {
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
-        
-        String token = jwtService.generateToken(testUserDetails);
+        String token = jwtService.generateToken(testUser);
         boolean isValid = jwtService.isTokenValid(token);
 
         assertTrue(isValid); // fresh token should be valid
@@ -99,9 +70,7 @@ class JwtServiceTest {
 
     @Test
     void testHasRole_UserRole() {
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
-        
-        String token = jwtService.generateToken(testUserDetails);
+        String token = jwtService.generateToken(testUser);
         boolean hasUserRole = jwtService.hasRole(token, "USER");
         boolean hasAdminRole = jwtService.hasRole(token, "ADMIN");
 
@@ -112,9 +81,8 @@ class JwtServiceTest {
     @Test
     void testHasRole_AdminRole() {
         testUser.setRole("ADMIN");
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
         
-        String token = jwtService.generateToken(testUserDetails);
+        String token = jwtService.generateToken(testUser);
         boolean hasAdminRole = jwtService.hasRole(token, "ADMIN");
 
         assertTrue(hasAdminRole);
@@ -123,9 +91,8 @@ class JwtServiceTest {
     @Test
     void testHasRole_MultipleRoles() {
         testUser.setRole("USER,ADMIN");
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
         
-        String token = jwtService.generateToken(testUserDetails);
+        String token = jwtService.generateToken(testUser);
         boolean hasUserRole = jwtService.hasRole(token, "USER");
         boolean hasAdminRole = jwtService.hasRole(token, "ADMIN");
 
@@ -140,20 +107,82 @@ class JwtServiceTest {
 
     @Test
     void testConstructor() {
-        JwtService service = new JwtService(userRepository);
+        JwtService service = new JwtService(100);
         
         assertNotNull(service);
     }
 
     @Test
     void testTokenContainsClaims() {
-        when(userRepository.findByEmail("test@test.com")).thenReturn(Optional.of(testUser));
-        
-        String token = jwtService.generateToken(testUserDetails);
+        String token = jwtService.generateToken(testUser);
         
         // verify token structure and basic claims
         assertNotNull(jwtService.extractUsername(token));
         assertEquals(1, jwtService.extractId(token));
         assertTrue(jwtService.hasRole(token, "USER"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testParse() {
+        testUser.setRole("USER,ADMIN");
+
+        JwtPrincipal principal = jwtService.parse(jwtService.generateToken(testUser));
+
+        assertEquals(new JwtPrincipal(1, "test@test.com", List.of("USER", "ADMIN")), principal);
+        assertTrue(principal.hasRole("ADMIN"));
+    }
+
+    @Test
+    void testParse_TamperedToken() {
+        String token = jwtService.generateToken(testUser);
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + parts[1] + "." + new StringBuilder(parts[2]).reverse();
+
+        assertThrows(JwtException.class, () -> jwtService.parse(forged));
+    }
+
+    @Test
+    void testGenerateKey_BuiltOnce() {
+        assertSame(jwtService.generateKey(), jwtService.generateKey());
+    }
+
+    @Test
+    void testParse_AnswersRepeatedTokensFromTheCache() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        jwtService.bindTo(registry);
+        String token = jwtService.generateToken(testUser);
+
+        JwtPrincipal first = jwtService.parse(token);
+        JwtPrincipal second = jwtService.parse(token);
+
+        assertSame(first, second);
+        assertEquals(1, registry.get("cache.gets").tag("cache", "security.tokens").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(0.5, registry.get("security.tokens.cache.hit.ratio").gauge().value());
+    }
+
+    @Test
+    void testParse_DoesNotRememberRejectedTokens() {
+        String token = jwtService.generateToken(testUser);
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.parse(forged));
+        assertThrows(JwtException.class, () -> jwtService.parse(forged));
+        assertNotNull(jwtService.parse(token));
+    }
+
+    @Test
+    void testParse_CachedTokenExpiresWithTheToken() throws InterruptedException {
+        String token = Jwts.builder()
+                .claims(Map.of("id", "1", "roles", List.of("USER")))
+                .subject("test@test.com")
+                .expiration(Date.from(Instant.now().plusSeconds(2)))
+                .signWith(jwtService.generateKey())
+                .compact();
+        assertNotNull(jwtService.parse(token));
+
+        Thread.sleep(2100);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.parse(token));
+    }
+}
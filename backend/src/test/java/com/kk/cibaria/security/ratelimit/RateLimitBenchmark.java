@@ -0,0 +1,149 @@
+package com.kk.cibaria.security.ratelimit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// What the rate limiter adds to a request that is let through, with four request threads: every thread on one
+// client's bucket (the compare-and-set contended), threads spread over 1000 clients, a synchronized token bucket on
+// one client, without the cache lookup the limiter makes, and the whole filter for a limited and an unlimited route.
+// Only a multi-core host shows how the two buckets behave under contention. Start it with
+//   mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+//     -Dexec.args="-cp %classpath com.kk.cibaria.security.ratelimit.RateLimitBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final int CLIENTS = 1000;
+    private static final FilterChain PASS = (request, response) -> { };
+
+    private RateLimiter limiter;
+    private SynchronizedBucket synchronizedBucket;
+    private RateLimitFilter filter;
+    private String[] clients;
+
+    @Setup
+    public void setup() {
+        // large enough never to reject during a run, so every call takes the allowed path
+        RateLimitProperties.Policy search = new RateLimitProperties.Policy("search", "GET", "/recipes/search",
+                RateLimitProperties.Key.IP, 1_000_000_000, Duration.ofHours(1));
+        limiter = new RateLimiter(search);
+        synchronizedBucket = new SynchronizedBucket(1_000_000_000, TimeUnit.HOURS.toNanos(1));
+        filter = new RateLimitFilter(new RateLimitProperties(true, List.of(
+                new RateLimitProperties.Policy("login", "POST", "/authenticate", RateLimitProperties.Key.IP,
+                        1_000_000_000, Duration.ofHours(1)),
+                search)), new ObjectMapper());
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Requests {
+        MockHttpServletRequest limited;
+        MockHttpServletRequest unlimited;
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        @Setup
+        public void setup() {
+            limited = request("GET", "/api/recipes/search");
+            unlimited = request("GET", "/api/recipes/1");
+        }
+
+        private static MockHttpServletRequest request(String method, String uri) {
+            MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+            request.setContextPath("/api");
+            request.setRemoteAddr("10.0.0." + ThreadLocalRandom.current().nextInt(256));
+            return request;
+        }
+    }
+
+    @Benchmark
+    public long hotClient() {
+        return limiter.acquire("10.0.0.1", System.nanoTime());
+    }
+
+    @Benchmark
+    public long spreadClients() {
+        return limiter.acquire(clients[ThreadLocalRandom.current().nextInt(CLIENTS)], System.nanoTime());
+    }
+
+    @Benchmark
+    public boolean hotClientSynchronized() {
+        return synchronizedBucket.tryAcquire(System.nanoTime());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filterLimitedRoute(Requests requests) throws ServletException, IOException {
+        filter.doFilterInternal(requests.limited, requests.response, PASS);
+        return requests.response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filterUnlimitedRoute(Requests requests) throws ServletException, IOException {
+        filter.doFilterInternal(requests.unlimited, requests.response, PASS);
+        return requests.response;
+    }
+
+    // the textbook bucket: refill from the elapsed time and take a token, under one lock
+    static final class SynchronizedBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        SynchronizedBucket(int capacity, long periodNanos) {
+            this.capacity = capacity;
+            this.tokensPerNano = capacity / (double) periodNanos;
+            this.tokens = capacity;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,113 @@
+package com.kk.cibaria.security.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.cibaria.security.jwt.JwtPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RateLimitFilter filter = new RateLimitFilter(new RateLimitProperties(true, List.of(
+            new RateLimitProperties.Policy("login", "POST", "/authenticate", RateLimitProperties.Key.IP, 1,
+                    Duration.ofMinutes(1)),
+            new RateLimitProperties.Policy("search", "GET", "/recipes/search", RateLimitProperties.Key.USER, 1,
+                    Duration.ofMinutes(1)))), objectMapper);
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_AnswersTooManyRequestsOverTheLimit() throws Exception {
+        assertEquals(200, perform("POST", "/api/authenticate", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse response = perform("POST", "/api/authenticate", "10.0.0.1");
+
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader("Retry-After"));
+        assertEquals(429, objectMapper.readTree(response.getContentAsString()).get("statusCode").asInt());
+        assertEquals(200, perform("POST", "/api/authenticate", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void doFilter_PassesRoutesWithoutAPolicy() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, perform("GET", "/api/authenticate", "10.0.0.1").getStatus());
+            assertEquals(200, perform("GET", "/api/recipes/1", "10.0.0.1").getStatus());
+        }
+    }
+
+    @Test
+    void doFilter_CountsUserPoliciesPerUser() throws Exception {
+        authenticate(1);
+        assertEquals(200, perform("GET", "/api/recipes/search", "10.0.0.1").getStatus());
+        assertEquals(429, perform("GET", "/api/recipes/search", "10.0.0.1").getStatus());
+
+        // another user behind the same address has a bucket of their own
+        authenticate(2);
+        assertEquals(200, perform("GET", "/api/recipes/search", "10.0.0.1").getStatus());
+
+        // anonymous callers are counted by address
+        SecurityContextHolder.clearContext();
+        assertEquals(200, perform("GET", "/api/recipes/search", "10.0.0.1").getStatus());
+        assertEquals(429, perform("GET", "/api/recipes/search", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void doFilter_DoesNothingWhenDisabled() throws Exception {
+        RateLimitFilter disabled = new RateLimitFilter(new RateLimitProperties(false, List.of(
+                new RateLimitProperties.Policy("login", "POST", "/authenticate", RateLimitProperties.Key.IP, 1,
+                        Duration.ofMinutes(1)))), objectMapper);
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            disabled.doFilter(request("POST", "/api/authenticate", "10.0.0.1"), response, new MockFilterChain());
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    @Test
+    void bindTo_CountsRejectionsPerPolicy() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+
+        perform("POST", "/api/authenticate", "10.0.0.1");
+        perform("POST", "/api/authenticate", "10.0.0.1");
+
+        assertEquals(1, registry.get("security.ratelimit.rejected").tag("policy", "login").functionCounter().count());
+        assertEquals(1, registry.get("security.ratelimit.buckets").tag("policy", "login").gauge().value());
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, String address) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, uri, address), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContextPath("/api");
+        request.setRemoteAddr(address);
+        return request;
+    }
+
+    private static void authenticate(int userId) {
+        JwtPrincipal principal = new JwtPrincipal(userId, "user" + userId + "@test.com", List.of("USER"));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.authorities()));
+    }
+}
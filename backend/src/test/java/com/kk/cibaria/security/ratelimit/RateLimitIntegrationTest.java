@@ -0,0 +1,55 @@
+package com.kk.cibaria.security.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.cibaria.dto.auth.LoginFormDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "spring.profiles.active=test",
+        "cibaria.rate-limit.enabled=true",
+        "cibaria.rate-limit.policies[0].name=login",
+        "cibaria.rate-limit.policies[0].method=POST",
+        "cibaria.rate-limit.policies[0].path=/authenticate",
+        "cibaria.rate-limit.policies[0].key=ip",
+        "cibaria.rate-limit.policies[0].capacity=2",
+        "cibaria.rate-limit.policies[0].period=1m"
+})
+class RateLimitIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void authenticate_TooManyAttemptsFromOneAddress_ReturnsTooManyRequests() throws Exception {
+        String body = objectMapper.writeValueAsString(new LoginFormDto("nobody@example.com", "password123"));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/authenticate").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isNotFound());
+        }
+        mockMvc.perform(post("/authenticate").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.statusCode").value(429));
+
+        // routes without a policy are not limited
+        mockMvc.perform(get("/recipes/facets"))
+                .andExpect(result -> assertNotEquals(429, result.getResponse().getStatus()));
+    }
+}
@@ -0,0 +1,123 @@
+package com.kk.cibaria.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final RateLimiter limiter = new RateLimiter(new RateLimitProperties.Policy(
+            "login", "POST", "/authenticate", RateLimitProperties.Key.IP, 3, Duration.ofSeconds(3)));
+
+    @Test
+    void acquire_AllowsABurstOfCapacity() {
+        long now = 42 * SECOND;
+
+        assertEquals(0, limiter.acquire("10.0.0.1", now));
+        assertEquals(0, limiter.acquire("10.0.0.1", now));
+        assertEquals(0, limiter.acquire("10.0.0.1", now));
+        assertEquals(SECOND, limiter.acquire("10.0.0.1", now));
+        assertEquals(1, limiter.rejected());
+    }
+
+    @Test
+    void acquire_RefillsOneTokenPerInterval() {
+        long now = 42 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("10.0.0.1", now);
+        }
+
+        assertEquals(SECOND / 2, limiter.acquire("10.0.0.1", now + SECOND / 2));
+        assertEquals(0, limiter.acquire("10.0.0.1", now + SECOND));
+        assertTrue(limiter.acquire("10.0.0.1", now + SECOND) > 0);
+        // a long pause fills the bucket up to its capacity, not beyond
+        long later = now + 60 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire("10.0.0.1", later));
+        }
+        assertTrue(limiter.acquire("10.0.0.1", later) > 0);
+    }
+
+    @Test
+    void acquire_KeepsABucketPerClient() {
+        long now = 42 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("10.0.0.1", now);
+        }
+
+        assertTrue(limiter.acquire("10.0.0.1", now) > 0);
+        assertEquals(0, limiter.acquire("10.0.0.2", now));
+        assertEquals(0, limiter.acquire(7, now));
+        assertEquals(3, limiter.buckets());
+    }
+
+    @Test
+    void acquire_HandsOutExactlyTheCapacityUnderContention() throws InterruptedException {
+        RateLimiter shared = new RateLimiter(new RateLimitProperties.Policy(
+                "search", null, "/recipes/search", RateLimitProperties.Key.USER, 1000, Duration.ofHours(1)));
+        long now = System.nanoTime();
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (shared.acquire(1, now) == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, allowed.get());
+        assertEquals(3000, shared.rejected());
+    }
+
+    @Test
+    void matches_MethodAndPathPattern() {
+        RateLimiter uploads = new RateLimiter(new RateLimitProperties.Policy(
+                "uploads", "POST", "/image/**", RateLimitProperties.Key.USER, 1, Duration.ofMinutes(1)));
+
+        assertTrue(uploads.matchesMethod("POST"));
+        assertFalse(uploads.matchesMethod("GET"));
+        assertTrue(uploads.matchesPath("/api/image/addPhoto", 4));
+        assertFalse(uploads.matchesPath("/api/recipes/1", 4));
+    }
+
+    @Test
+    void matchesPath_LiteralPathsCompareTheDecodedPath() {
+        assertTrue(limiter.matchesPath("/api/authenticate", 4));
+        assertTrue(limiter.matchesPath("/authenticate", 0));
+        assertFalse(limiter.matchesPath("/api/authenticate/more", 4));
+        assertFalse(limiter.matchesPath("/api/authenticat", 4));
+        // encoded the same route is still limited
+        assertTrue(limiter.matchesPath("/api/%61uthenticate", 4));
+    }
+
+    @Test
+    void constructor_RejectsAnEmptyPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(new RateLimitProperties.Policy(
+                "broken", null, "/**", RateLimitProperties.Key.IP, 0, Duration.ofMinutes(1))));
+    }
+}
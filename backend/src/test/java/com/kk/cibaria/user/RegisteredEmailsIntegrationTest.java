@@ -0,0 +1,107 @@
+package com.kk.cibaria.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kk.cibaria.dto.auth.RegisterDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// not @Transactional: the filter learns of an email once its registration commits
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+@TestPropertySource(locations = "classpath:application-test.properties", properties = "spring.profiles.active=test")
+class RegisteredEmailsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void available_FollowsRegistrationsAndDeletions() throws Exception {
+        double absent = lookups("absent");
+        mockMvc.perform(get("/register/available").param("email", "bloom@test.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("bloom@test.com"))
+                .andExpect(jsonPath("$.available").value(true));
+        // answered by the filter alone
+        assertEquals(absent + 1, lookups("absent"));
+
+        register("bloom@test.com");
+
+        mockMvc.perform(get("/register/available").param("email", "bloom@test.com"))
+                .andExpect(jsonPath("$.available").value(false));
+        mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON).content(registration("bloom@test.com")))
+                .andExpect(status().isConflict());
+
+        // a deleted user's email stays in the filter, the database answers for it
+        userService.delete(userRepository.findByEmail("bloom@test.com").orElseThrow().getId());
+        mockMvc.perform(get("/register/available").param("email", "bloom@test.com"))
+                .andExpect(jsonPath("$.available").value(true));
+    }
+
+    @Test
+    void available_InvalidEmail_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/register/available").param("email", "not-an-email"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void register_EmailMissingFromTheFilter_RejectedByTheUniqueIndex() throws Exception {
+        // saved around the service, as another instance would
+        UserEntity other = new UserEntity();
+        other.setUsername("other");
+        other.setEmail("elsewhere@test.com");
+        other.setPassword("hash");
+        userRepository.save(other);
+
+        mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON)
+                        .content(registration("elsewhere@test.com")))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.statusCode").value(409));
+        assertEquals(1, userRepository.count());
+    }
+
+    private void register(String email) throws Exception {
+        mockMvc.perform(post("/register").contentType(MediaType.APPLICATION_JSON).content(registration(email)))
+                .andExpect(status().isOk());
+    }
+
+    private String registration(String email) throws Exception {
+        RegisterDto dto = new RegisterDto();
+        dto.setUsername("bloom");
+        dto.setEmail(email);
+        dto.setPassword("password123");
+        return objectMapper.writeValueAsString(dto);
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("users.emails.lookups").tag("result", result).functionCounter().count();
+    }
+}
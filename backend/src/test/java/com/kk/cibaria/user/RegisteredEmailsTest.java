@@ -0,0 +1,94 @@
+package com.kk.cibaria.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegisteredEmailsTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private RegisteredEmails registeredEmails;
+
+    @Test
+    void mightBeRegistered_EverythingBeforeTheLoad() {
+        assertTrue(registeredEmails.mightBeRegistered("new@example.com"));
+    }
+
+    @Test
+    void mightBeRegistered_IgnoresCaseAndSurroundingSpaces() {
+        load("Taken@Example.com");
+
+        assertTrue(registeredEmails.mightBeRegistered(" taken@example.COM "));
+        assertFalse(registeredEmails.mightBeRegistered("new@example.com"));
+    }
+
+    @Test
+    void onEmailChanged_AddsTakenEmails() {
+        load("taken@example.com");
+
+        registeredEmails.onEmailChanged(new UserEmailChangedEvent("new@example.com", null));
+
+        assertTrue(registeredEmails.mightBeRegistered("new@example.com"));
+    }
+
+    @Test
+    void onEmailChanged_ReloadsOnceManyEmailsWereReleased() {
+        load("taken@example.com");
+
+        for (int i = 0; i < RegisteredEmails.MIN_CAPACITY; i++) {
+            registeredEmails.onEmailChanged(new UserEmailChangedEvent(null, "taken@example.com"));
+        }
+        // released emails are still reported until the filter is reloaded
+        assertTrue(registeredEmails.mightBeRegistered("taken@example.com"));
+        verify(userRepository, times(1)).streamEmails();
+
+        when(userRepository.streamEmails()).thenReturn(Stream.of("other@example.com"));
+        registeredEmails.onEmailChanged(new UserEmailChangedEvent(null, "taken@example.com"));
+
+        assertFalse(registeredEmails.mightBeRegistered("taken@example.com"));
+        assertTrue(registeredEmails.mightBeRegistered("other@example.com"));
+    }
+
+    @Test
+    void onEmailChanged_IgnoredBeforeTheLoad() {
+        registeredEmails.onEmailChanged(new UserEmailChangedEvent("new@example.com", null));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void bindTo_CountsChecksTheFilterAnswered() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registeredEmails.bindTo(registry);
+        when(userRepository.count()).thenReturn(100L);
+        when(userRepository.streamEmails())
+                .thenReturn(IntStream.range(0, 100).mapToObj(i -> "user" + i + "@example.com"));
+        registeredEmails.run(null);
+
+        registeredEmails.mightBeRegistered("user1@example.com");
+        registeredEmails.mightBeRegistered("new@example.com");
+
+        assertEquals(1, registry.get("users.emails.lookups").tag("result", "absent").functionCounter().count());
+        assertEquals(1, registry.get("users.emails.lookups").tag("result", "maybe-present").functionCounter().count());
+        assertEquals(100, registry.get("users.emails.filter.emails").gauge().value());
+    }
+
+    private void load(String... emails) {
+        when(userRepository.count()).thenReturn((long) emails.length);
+        when(userRepository.streamEmails()).thenReturn(Stream.of(emails));
+        registeredEmails.run(null);
+    }
+}
@@ -9,6 +9,7 @@ import com.kk.cibaria.dto.myProfile.UpdatePasswordDto;
 import com.kk.cibaria.image.Image;
 import com.kk.cibaria.image.ImageService;
 import com.kk.cibaria.image.ImageType;
+import com.kk.cibaria.ingredient.Ingredient;
 import com.kk.cibaria.ingredient.IngredientService;
 import com.kk.cibaria.recipe.Recipe;
 import com.kk.cibaria.recipe.RecipeRepository;
@@ -30,6 +31,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -264,7 +266,12 @@ class UserControllerIntegrationTest {
         recipe.setIsPublic(true);
         recipe.setLanguage("en");
         recipe.setUser(testUser);
-        recipe.setIngredients(new ArrayList<>());
+        Ingredient flour = new Ingredient();
+        flour.setIngredientName("Flour");
+        flour.setQuantity(200);
+        flour.setUnit("g");
+        flour.setRecipe(recipe);
+        recipe.setIngredients(new ArrayList<>(List.of(flour)));
         recipe.setSteps(new ArrayList<>());
         recipe.setRatings(new ArrayList<>());
         recipe.setImages(new ArrayList<>());
@@ -274,7 +281,9 @@ class UserControllerIntegrationTest {
         mockMvc.perform(get("/users/recipes")
                 .header("Authorization", authToken))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.userRecipes").isArray());
+                .andExpect(jsonPath("$.userRecipes").isArray())
+                .andExpect(jsonPath("$.userRecipes[0].recipeName").value("Test Recipe"))
+                .andExpect(jsonPath("$.userRecipes[0].ingredients[0]").value("Flour"));
     }
 
     @Test
@@ -3,7 +3,8 @@ package com.kk.cibaria.user;
 import com.kk.cibaria.dto.myProfile.MyProfileDto;
 import com.kk.cibaria.dto.myProfile.UpdateEmailDto;
 import com.kk.cibaria.dto.myProfile.UpdatePasswordDto;
-import com.kk.cibaria.security.jwt.JwtService;
+import com.kk.cibaria.exception.UnauthorizedException;
+import com.kk.cibaria.security.CurrentUser;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,14 +29,11 @@ class UserControllerTest {
     @Mock
     private UserService userService;
 
-    @Mock
-    private JwtService jwtService;
-
     @InjectMocks
     private UserController userController;
 
     private UserEntity testUser;
-    private String testToken;
+    private CurrentUser currentUser;
 
     @BeforeEach
     void setup() {
@@ -50,7 +49,7 @@ class UserControllerTest {
         testUser.setFavouriteRecipes(new ArrayList<>());
         testUser.setImages(new ArrayList<>());
 
-        testToken = "Bearer testtoken123";
+        currentUser = new CurrentUser(1, List.of("USER"));
     }
 
     @Test
@@ -82,7 +81,7 @@ class UserControllerTest {
         
         when(userService.update(1, updatedUser)).thenReturn(testUser);
 
-        UserEntity result = userController.update(1, updatedUser, testToken);
+        UserEntity result = userController.update(1, updatedUser, currentUser);
 
         assertEquals(testUser, result);
         verify(userService).update(1, updatedUser);
@@ -94,12 +93,12 @@ class UserControllerTest {
         profileDto.setUsername("updateduser");
         profileDto.setDescription("Updated description");
 
-        when(userService.updateProfile(1, profileDto, testToken)).thenReturn(testUser);
+        when(userService.updateProfile(1, profileDto, currentUser)).thenReturn(testUser);
 
-        UserEntity result = userController.updateProfile(1, profileDto, testToken);
+        UserEntity result = userController.updateProfile(1, profileDto, currentUser);
 
         assertEquals(testUser, result);
-        verify(userService).updateProfile(1, profileDto, testToken);
+        verify(userService).updateProfile(1, profileDto, currentUser);
     }
 
     @Test
@@ -108,12 +107,12 @@ class UserControllerTest {
         updateEmailDto.setNewEmail("newemail@example.com");
         updateEmailDto.setPassword("password123");
 
-        when(userService.updateEmail(1, updateEmailDto, testToken)).thenReturn(testUser);
+        when(userService.updateEmail(1, updateEmailDto, currentUser)).thenReturn(testUser);
 
-        UserEntity result = userController.updateEmail(1, updateEmailDto, testToken);
+        UserEntity result = userController.updateEmail(1, updateEmailDto, currentUser);
 
         assertEquals(testUser, result);
-        verify(userService).updateEmail(1, updateEmailDto, testToken);
+        verify(userService).updateEmail(1, updateEmailDto, currentUser);
     }
 
     @Test
@@ -122,12 +121,12 @@ class UserControllerTest {
         updatePasswordDto.setCurrentPassword("currentPassword");
         updatePasswordDto.setNewPassword("NewPassword123");
 
-        when(userService.updatePassword(1, updatePasswordDto, testToken)).thenReturn(testUser);
+        when(userService.updatePassword(1, updatePasswordDto, currentUser)).thenReturn(testUser);
 
-        UserEntity result = userController.updatePassword(1, updatePasswordDto, testToken);
+        UserEntity result = userController.updatePassword(1, updatePasswordDto, currentUser);
 
         assertEquals(testUser, result);
-        verify(userService).updatePassword(1, updatePasswordDto, testToken);
+        verify(userService).updatePassword(1, updatePasswordDto, currentUser);
     }
 
     @Test
@@ -137,12 +136,12 @@ class UserControllerTest {
         profileDto.setUsername("testuser");
         profileDto.setDescription("Test description");
 
-        when(userService.getMyProfile(testToken)).thenReturn(profileDto);
+        when(userService.getMyProfile(currentUser)).thenReturn(profileDto);
 
-        MyProfileDto result = userController.getMyProfile(testToken);
+        MyProfileDto result = userController.getMyProfile(currentUser);
 
         assertEquals(profileDto, result);
-        verify(userService).getMyProfile(testToken);
+        verify(userService).getMyProfile(currentUser);
     }
 
     @Test
@@ -150,12 +149,12 @@ class UserControllerTest {
         MyProfileDto profileDto = new MyProfileDto();
         profileDto.setUserRecipes(new ArrayList<>());
 
-        when(userService.getUserRecipes(testToken)).thenReturn(profileDto);
+        when(userService.getUserRecipes(currentUser)).thenReturn(profileDto);
 
-        MyProfileDto result = userController.getUserRecipes(testToken);
+        MyProfileDto result = userController.getUserRecipes(currentUser);
 
         assertEquals(profileDto, result);
-        verify(userService).getUserRecipes(testToken);
+        verify(userService).getUserRecipes(currentUser);
     }
 
     @Test
@@ -163,12 +162,12 @@ class UserControllerTest {
         MyProfileDto profileDto = new MyProfileDto();
         profileDto.setFavourites(new ArrayList<>());
 
-        when(userService.getFavouriteRecipes(testToken)).thenReturn(profileDto);
+        when(userService.getFavouriteRecipes(currentUser)).thenReturn(profileDto);
 
-        MyProfileDto result = userController.getFavouriteRecipes(testToken);
+        MyProfileDto result = userController.getFavouriteRecipes(currentUser);
 
         assertEquals(profileDto, result);
-        verify(userService).getFavouriteRecipes(testToken);
+        verify(userService).getFavouriteRecipes(currentUser);
     }
 
     @Test
@@ -176,13 +175,13 @@ class UserControllerTest {
         MockMultipartFile file = new MockMultipartFile("image", "test.jpg", "image/jpeg", "test data".getBytes());
         String imageUrl = "http://test.com/image.jpg";
 
-        when(userService.updateProfilePicture(1, file, testToken)).thenReturn(imageUrl);
+        when(userService.updateProfilePicture(1, file, currentUser)).thenReturn(imageUrl);
 
-        ResponseEntity<String> result = userController.updateProfilePicture(1, file, testToken);
+        ResponseEntity<String> result = userController.updateProfilePicture(1, file, currentUser);
 
         assertEquals(200, result.getStatusCode().value());
         assertEquals(imageUrl, result.getBody());
-        verify(userService).updateProfilePicture(1, file, testToken);
+        verify(userService).updateProfilePicture(1, file, currentUser);
     }
 
     @Test
@@ -190,46 +189,52 @@ class UserControllerTest {
         MockMultipartFile file = new MockMultipartFile("image", "background.jpg", "image/jpeg", "test data".getBytes());
         String imageUrl = "http://test.com/background.jpg";
 
-        when(userService.updateBackgroundPicture(1, file, testToken)).thenReturn(imageUrl);
+        when(userService.updateBackgroundPicture(1, file, currentUser)).thenReturn(imageUrl);
 
-        ResponseEntity<String> result = userController.updateBackgroundPicture(1, file, testToken);
+        ResponseEntity<String> result = userController.updateBackgroundPicture(1, file, currentUser);
 
         assertEquals(200, result.getStatusCode().value());
         assertEquals(imageUrl, result.getBody());
-        verify(userService).updateBackgroundPicture(1, file, testToken);
+        verify(userService).updateBackgroundPicture(1, file, currentUser);
     }
 
     @Test
     void testDelete() {
-    when(jwtService.isTokenValid("testtoken123")).thenReturn(true);
-    when(jwtService.extractId("testtoken123")).thenReturn(1);
-    when(jwtService.hasRole("testtoken123", "ADMIN")).thenReturn(false); 
-    
     doNothing().when(userService).delete(1);
 
-    assertDoesNotThrow(() -> userController.delete(1, testToken));
+    assertDoesNotThrow(() -> userController.delete(1, currentUser));
     verify(userService).delete(1);
-    verify(jwtService).isTokenValid("testtoken123");
-    verify(jwtService).extractId("testtoken123");
+    }
+
+    @Test
+    void testDelete_OtherUser() {
+        assertThrows(UnauthorizedException.class, () -> userController.delete(2, currentUser));
+        verify(userService, never()).delete(anyInt());
+    }
+
+    @Test
+    void testDelete_OtherUserAsAdmin() {
+        assertDoesNotThrow(() -> userController.delete(2, new CurrentUser(1, List.of("USER", "ADMIN"))));
+        verify(userService).delete(2);
     }
     
     @Test
     void testUpdateProfilePicture_IOException() throws IOException {
         MockMultipartFile file = new MockMultipartFile("image", "test.jpg", "image/jpeg", "test data".getBytes());
         
-        when(userService.updateProfilePicture(1, file, testToken)).thenThrow(new IOException("File upload failed"));
+        when(userService.updateProfilePicture(1, file, currentUser)).thenThrow(new IOException("File upload failed"));
 
-        assertThrows(IOException.class, () -> userController.updateProfilePicture(1, file, testToken));
-        verify(userService).updateProfilePicture(1, file, testToken);
+        assertThrows(IOException.class, () -> userController.updateProfilePicture(1, file, currentUser));
+        verify(userService).updateProfilePicture(1, file, currentUser);
     }
 
     @Test
     void testUpdateBackgroundPicture_IOException() throws IOException {
         MockMultipartFile file = new MockMultipartFile("image", "background.jpg", "image/jpeg", "test data".getBytes());
         
-        when(userService.updateBackgroundPicture(1, file, testToken)).thenThrow(new IOException("File upload failed"));
+        when(userService.updateBackgroundPicture(1, file, currentUser)).thenThrow(new IOException("File upload failed"));
 
-        assertThrows(IOException.class, () -> userController.updateBackgroundPicture(1, file, testToken));
-        verify(userService).updateBackgroundPicture(1, file, testToken);
+        assertThrows(IOException.class, () -> userController.updateBackgroundPicture(1, file, currentUser));
+        verify(userService).updateBackgroundPicture(1, file, currentUser);
     }
 }
\ No newline at end of file
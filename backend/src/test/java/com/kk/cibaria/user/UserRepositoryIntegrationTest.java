@@ -4,6 +4,7 @@ import com.kk.cibaria.image.Image;
 import com.kk.cibaria.image.ImageType;
 import com.kk.cibaria.rating.Rating;
 import com.kk.cibaria.recipe.Recipe;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -273,11 +274,10 @@ class UserRepositoryIntegrationTest {
         entityManager.persist(user1);
         entityManager.flush();
 
-        // This should work at the repository level, but constraints will be enforced at DB level
-        assertDoesNotThrow(() -> {
+        // users.email has a unique index, the identity insert runs at once
+        assertThrows(ConstraintViolationException.class, () -> {
             entityManager.persist(user2);
-            // Note: The actual constraint violation will occur on flush/commit
-            // depending on the database configuration
+            entityManager.flush();
         });
     }
 
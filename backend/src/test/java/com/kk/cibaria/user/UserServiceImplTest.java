@@ -2,9 +2,9 @@ package com.kk.cibaria.user;
 
 import com.kk.cibaria.cloudinary.CloudinaryService;
 import com.kk.cibaria.dto.auth.RegisterDto;
+import com.kk.cibaria.dto.RecipeSummary;
 import com.kk.cibaria.dto.auth.TokenResponseDto;
 import com.kk.cibaria.dto.myProfile.MyProfileDto;
-import com.kk.cibaria.dto.myProfile.MyProfileRecipeDto;
 import com.kk.cibaria.dto.myProfile.UpdateEmailDto;
 import com.kk.cibaria.dto.myProfile.UpdatePasswordDto;
 import com.kk.cibaria.exception.*;
@@ -13,17 +13,25 @@ import com.kk.cibaria.image.ImageRepository;
 import com.kk.cibaria.image.ImageService;
 import com.kk.cibaria.image.ImageType;
 import com.kk.cibaria.rating.Rating;
+import com.kk.cibaria.rating.RatingRepository;
 import com.kk.cibaria.recipe.Recipe;
-import com.kk.cibaria.security.UserDetailService;
+import com.kk.cibaria.recipe.RecipeChangedEvent;
+import com.kk.cibaria.recipe.RecipeRepository;
+import com.kk.cibaria.security.CurrentUser;
 import com.kk.cibaria.security.jwt.JwtService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.io.IOException;
@@ -47,9 +55,6 @@ class UserServiceImplTest {
     @Mock
     private JwtService jwtService;
 
-    @Mock
-    private UserDetailService userDetailService;
-
     @Mock
     private ImageService imageService;
 
@@ -59,11 +64,23 @@ class UserServiceImplTest {
     @Mock
     private ImageRepository imageRepository;
 
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private RegisteredEmails registeredEmails;
+
     @InjectMocks
     private UserServiceImpl userService;
 
     private UserEntity user;
-    private String token;
+    private CurrentUser currentUser;
 
     @BeforeEach
     void setup() {
@@ -80,7 +97,7 @@ class UserServiceImplTest {
         user.setFavouriteRecipes(new ArrayList<>());
         user.setImages(new ArrayList<>());
 
-        token = "Bearer testtoken123";
+        currentUser = new CurrentUser(1, List.of("USER"));
     }
 
     @Test
@@ -120,20 +137,52 @@ class UserServiceImplTest {
         registerDto.setPassword("password123");
         registerDto.setUsername("newuser");
 
-        UserDetails userDetails = mock(UserDetails.class);
-        when(userRepository.findByEmail("new@example.com")).thenReturn(Optional.empty());
+        when(registeredEmails.mightBeRegistered("new@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("new@example.com")).thenReturn(false);
         when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
         when(userRepository.save(any(UserEntity.class))).thenReturn(user);
-        when(userDetailService.loadUserByUsername("test@test.com")).thenReturn(userDetails);
-        when(jwtService.generateToken(userDetails)).thenReturn("generatedToken");
+        when(jwtService.generateToken(user)).thenReturn("generatedToken");
 
         TokenResponseDto result = userService.save(registerDto);
 
         assertNotNull(result);
         assertEquals("generatedToken", result.getToken());
-        verify(userRepository).findByEmail("new@example.com");
+        verify(userRepository).existsByEmail("new@example.com");
         verify(passwordEncoder).encode("password123");
         verify(userRepository).save(any(UserEntity.class));
+        verify(eventPublisher).publishEvent(new UserEmailChangedEvent("test@test.com", null));
+        // the token is minted from the saved entity, the user is not read back
+        verify(userRepository, never()).findByEmail(anyString());
+    }
+
+    @Test
+    void testSave_UnknownEmailSkipsTheLookup() {
+        RegisterDto registerDto = new RegisterDto();
+        registerDto.setEmail("new@example.com");
+        registerDto.setPassword("password123");
+        registerDto.setUsername("newuser");
+
+        when(registeredEmails.mightBeRegistered("new@example.com")).thenReturn(false);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.save(any(UserEntity.class))).thenReturn(user);
+        when(jwtService.generateToken(user)).thenReturn("generatedToken");
+
+        assertEquals("generatedToken", userService.save(registerDto).getToken());
+        verify(userRepository, never()).existsByEmail(anyString());
+    }
+
+    @Test
+    void testSave_EmailTakenSinceTheFilterLoaded() {
+        RegisterDto registerDto = new RegisterDto();
+        registerDto.setEmail("new@example.com");
+        registerDto.setPassword("password123");
+
+        when(registeredEmails.mightBeRegistered("new@example.com")).thenReturn(false);
+        when(passwordEncoder.encode("password123")).thenReturn("encodedPassword");
+        when(userRepository.save(any(UserEntity.class))).thenThrow(new DataIntegrityViolationException("users_email_key"));
+
+        assertThrows(UserEmailAlreadyExistException.class, () -> userService.save(registerDto));
+        verify(eventPublisher, never()).publishEvent(any(UserEmailChangedEvent.class));
     }
 
     @Test
@@ -141,10 +190,11 @@ class UserServiceImplTest {
         RegisterDto registerDto = new RegisterDto();
         registerDto.setEmail("existing@example.com");
 
-        when(userRepository.findByEmail("existing@example.com")).thenReturn(Optional.of(user));
+        when(registeredEmails.mightBeRegistered("existing@example.com")).thenReturn(true);
+        when(userRepository.existsByEmail("existing@example.com")).thenReturn(true);
 
         assertThrows(UserEmailAlreadyExistException.class, () -> userService.save(registerDto));
-        verify(userRepository).findByEmail("existing@example.com");
+        verify(userRepository).existsByEmail("existing@example.com");
         verify(userRepository, never()).save(any());
     }
 
@@ -173,11 +223,10 @@ class UserServiceImplTest {
         profileDto.setUsername("updateduser");
         profileDto.setDescription("Updated description");
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
         when(userRepository.save(user)).thenReturn(user);
 
-        UserEntity result = userService.updateProfile(1, profileDto, token);
+        UserEntity result = userService.updateProfile(1, profileDto, currentUser);
 
         assertEquals("updateduser", result.getUsername());
         assertEquals("Updated description", result.getDescription());
@@ -188,11 +237,9 @@ class UserServiceImplTest {
     void testUpdateProfile_Unauthorized() {
         MyProfileDto profileDto = new MyProfileDto();
         
-        when(jwtService.extractId("testtoken123")).thenReturn(2); // Different user ID
-        when(userRepository.findById(2)).thenReturn(Optional.of(new UserEntity()));
-
         assertThrows(UnauthorizedException.class, 
-            () -> userService.updateProfile(1, profileDto, token));
+            () -> userService.updateProfile(1, profileDto, new CurrentUser(2, List.of("USER"))));
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -201,16 +248,32 @@ class UserServiceImplTest {
         updateEmailDto.setNewEmail("newemail@example.com");
         updateEmailDto.setPassword("password123");
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+        when(registeredEmails.mightBeRegistered("newemail@example.com")).thenReturn(true);
         when(userRepository.findByEmail("newemail@example.com")).thenReturn(Optional.empty());
         when(userRepository.save(user)).thenReturn(user);
 
-        UserEntity result = userService.updateEmail(1, updateEmailDto, token);
+        UserEntity result = userService.updateEmail(1, updateEmailDto, currentUser);
 
         assertEquals("newemail@example.com", result.getEmail());
         verify(userRepository).save(user);
+        verify(eventPublisher).publishEvent(new UserEmailChangedEvent("newemail@example.com", "test@test.com"));
+    }
+
+    @Test
+    void testUpdateEmail_UnknownEmailSkipsTheLookup() {
+        UpdateEmailDto updateEmailDto = new UpdateEmailDto();
+        updateEmailDto.setNewEmail("newemail@example.com");
+        updateEmailDto.setPassword("password123");
+
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+        when(registeredEmails.mightBeRegistered("newemail@example.com")).thenReturn(false);
+        when(userRepository.save(user)).thenReturn(user);
+
+        assertEquals("newemail@example.com", userService.updateEmail(1, updateEmailDto, currentUser).getEmail());
+        verify(userRepository, never()).findByEmail(anyString());
     }
 
     @Test
@@ -219,11 +282,10 @@ class UserServiceImplTest {
         updateEmailDto.setNewEmail("invalid-email");
         updateEmailDto.setPassword("password123");
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
 
         assertThrows(InvalidEmailFormatException.class, 
-            () -> userService.updateEmail(1, updateEmailDto, token));
+            () -> userService.updateEmail(1, updateEmailDto, currentUser));
     }
 
     @Test
@@ -232,12 +294,11 @@ class UserServiceImplTest {
         updateEmailDto.setNewEmail("newemail@example.com");
         updateEmailDto.setPassword("wrongpassword");
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches("wrongpassword", "encodedPassword")).thenReturn(false);
 
         assertThrows(InvalidPasswordException.class, 
-            () -> userService.updateEmail(1, updateEmailDto, token));
+            () -> userService.updateEmail(1, updateEmailDto, currentUser));
     }
 
     @Test
@@ -246,14 +307,13 @@ class UserServiceImplTest {
         updatePasswordDto.setCurrentPassword("currentPassword");
         updatePasswordDto.setNewPassword("NewPassword123");
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches("currentPassword", "encodedPassword")).thenReturn(true);
         when(passwordEncoder.matches("NewPassword123", "encodedPassword")).thenReturn(false);
         when(passwordEncoder.encode("NewPassword123")).thenReturn("newEncodedPassword");
         when(userRepository.save(user)).thenReturn(user);
 
-        UserEntity result = userService.updatePassword(1, updatePasswordDto, token);
+        UserEntity result = userService.updatePassword(1, updatePasswordDto, currentUser);
 
         assertEquals("newEncodedPassword", result.getPassword());
         verify(userRepository).save(user);
@@ -265,12 +325,11 @@ class UserServiceImplTest {
         updatePasswordDto.setCurrentPassword("currentPassword");
         updatePasswordDto.setNewPassword("weak");
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches("currentPassword", "encodedPassword")).thenReturn(true);
 
         assertThrows(WeakPasswordException.class, 
-            () -> userService.updatePassword(1, updatePasswordDto, token));
+            () -> userService.updatePassword(1, updatePasswordDto, currentUser));
     }
 
     @Test
@@ -279,13 +338,12 @@ class UserServiceImplTest {
         Image mockImage = new Image();
         mockImage.setImageUrl("http://test.com/image.jpg");
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
         when(imageService.createPhoto(file, ImageType.PROFILE_PICTURE)).thenReturn(mockImage);
         when(imageRepository.save(mockImage)).thenReturn(mockImage);
         when(userRepository.save(user)).thenReturn(user);
 
-        String result = userService.updateProfilePicture(1, file, token);
+        String result = userService.updateProfilePicture(1, file, currentUser);
 
         assertEquals("http://test.com/image.jpg", result);
         verify(imageService).createPhoto(file, ImageType.PROFILE_PICTURE);
@@ -299,6 +357,19 @@ class UserServiceImplTest {
         verify(userRepository).delete(user);
     }
 
+    @Test
+    void testDelete_PublishesRemovalOfOwnRecipes() {
+        Recipe recipe = new Recipe();
+        recipe.setId(7);
+        user.getUserRecipes().add(recipe);
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+
+        userService.delete(1);
+
+        verify(eventPublisher).publishEvent(new RecipeChangedEvent(7, true));
+        verify(userRepository).delete(user);
+    }
+
     @Test
     void testGetMyProfile_Success() {
         Image profileImage = new Image();
@@ -312,10 +383,9 @@ class UserServiceImplTest {
         user.getImages().add(profileImage);
         user.getImages().add(backgroundImage);
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
 
-        MyProfileDto result = userService.getMyProfile(token);
+        MyProfileDto result = userService.getMyProfile(currentUser);
 
         assertEquals(1, result.getId());
         assertEquals("testuser", result.getUsername());
@@ -325,66 +395,44 @@ class UserServiceImplTest {
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void testGetFavouriteRecipes_Success() {
-        Recipe recipe = new Recipe();
-        recipe.setId(1);
-        recipe.setRecipeName("Test Recipe");
-        recipe.setCategory("Breakfast");
-        recipe.setServings(2);
-        recipe.setDifficulty(1);
-        recipe.setPrepareTime(15);
-        recipe.setLanguage("en");
-        recipe.setImages(new ArrayList<>());
-        recipe.setIngredients(new ArrayList<>());
-        recipe.setRatings(new ArrayList<>());
-        
-        user.getFavouriteRecipes().add(recipe);
+        RecipeSummary summary = new RecipeSummary(1, "Test Recipe", "Breakfast", 1, 15, 2, "en", null, null);
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(recipeRepository.findSummaries(any(Specification.class), any(Sort.class), any(Limit.class)))
+                .thenReturn(List.of(summary));
 
-        MyProfileDto result = userService.getFavouriteRecipes(token);
+        MyProfileDto result = userService.getFavouriteRecipes(currentUser);
 
+        verifyNoInteractions(userRepository);
         assertNotNull(result.getFavourites());
         assertEquals(1, result.getFavourites().size());
         assertEquals("Test Recipe", result.getFavourites().get(0).getRecipeName());
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     void testGetUserRecipes_Success() {
-        Recipe recipe = new Recipe();
-        recipe.setId(1);
-        recipe.setRecipeName("User Recipe");
-        recipe.setCategory("Lunch");
-        recipe.setServings(4);
-        recipe.setDifficulty(2);
-        recipe.setPrepareTime(30);
-        recipe.setLanguage("en");
-        recipe.setImages(new ArrayList<>());
-        recipe.setIngredients(new ArrayList<>());
-        
-        Rating rating = new Rating();
-        rating.setValue(5);
-        List<Rating> ratings = List.of(rating);
-        recipe.setRatings(ratings);
-        
-        user.getUserRecipes().add(recipe);
+        RecipeSummary summary = new RecipeSummary(1, "User Recipe", "Lunch", 2, 30, 4, "en", 5.0, "http://image.jpg");
 
-        when(jwtService.extractId("testtoken123")).thenReturn(1);
-        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(recipeRepository.findSummaries(any(Specification.class), any(Sort.class), any(Limit.class)))
+                .thenReturn(List.of(summary));
 
-        MyProfileDto result = userService.getUserRecipes(token);
+        MyProfileDto result = userService.getUserRecipes(currentUser);
 
         assertNotNull(result.getUserRecipes());
         assertEquals(1, result.getUserRecipes().size());
-        MyProfileRecipeDto recipeDto = result.getUserRecipes().get(0);
+        RecipeSummary recipeDto = result.getUserRecipes().get(0);
         assertEquals("User Recipe", recipeDto.getRecipeName());
-        assertEquals(5L, recipeDto.getAvgRating());
+        assertEquals(5.0, recipeDto.getAvgRating());
+        assertEquals("http://image.jpg", recipeDto.getImageUrl());
+        verify(recipeRepository).addIngredientNames(List.of(summary));
     }
 
     @Test
     void testUpdateUser_Success() {
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(registeredEmails.mightBeRegistered("new@example.com")).thenReturn(true);
         when(userRepository.findByEmail("new@example.com")).thenReturn(Optional.empty());
         when(userRepository.save(user)).thenReturn(user);
 
@@ -393,7 +441,10 @@ class UserServiceImplTest {
         assertEquals("ADMIN", result.getRole());
         assertEquals("new@example.com", result.getEmail());
         assertEquals("newusername", result.getUsername());
-        verify(userRepository).save(user);
+        // the cached account is only dropped once the change is written
+        InOrder order = inOrder(userRepository, eventPublisher);
+        order.verify(userRepository).save(user);
+        order.verify(eventPublisher).publishEvent(new UserChangedEvent(1));
     }
 
     @Test
@@ -402,12 +453,37 @@ class UserServiceImplTest {
         anotherUser.setId(2);
         
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(registeredEmails.mightBeRegistered("existing@example.com")).thenReturn(true);
         when(userRepository.findByEmail("existing@example.com")).thenReturn(Optional.of(anotherUser));
 
         assertThrows(UserEmailAlreadyExistException.class, 
             () -> userService.updateUser(1, "USER", "existing@example.com", "username"));
     }
 
+    @Test
+    void testIsEmailAvailable_UnknownEmailSkipsTheLookup() {
+        when(registeredEmails.mightBeRegistered("new@example.com")).thenReturn(false);
+
+        assertTrue(userService.isEmailAvailable("new@example.com"));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testIsEmailAvailable_ProbableHitAsksTheDatabase() {
+        when(registeredEmails.mightBeRegistered(anyString())).thenReturn(true);
+        when(userRepository.existsByEmail("test@test.com")).thenReturn(true);
+        when(userRepository.existsByEmail("false-positive@example.com")).thenReturn(false);
+
+        assertFalse(userService.isEmailAvailable("test@test.com"));
+        assertTrue(userService.isEmailAvailable("false-positive@example.com"));
+    }
+
+    @Test
+    void testIsEmailAvailable_InvalidFormat() {
+        assertThrows(InvalidEmailFormatException.class, () -> userService.isEmailAvailable("not-an-email"));
+        verifyNoInteractions(registeredEmails);
+    }
+
     @Test
     void testGetProfilePicture() {
         Image profileImage = new Image();
@@ -1,20 +1,5 @@
-import { Rating } from './rating';
+import { RecipeSummary } from './recipe-summary';
 
-export interface ProfileRecipe {
-  id: number;
-  imageUrl: { imageUrl: string; publicId: string }[];
-  recipeName: string;
-  servings: number;
-  difficulty: number;
-  prepareTime: number;
-  category: string;
-  avgRating: number;
-  language: string;
-  ratings: Rating[];
-  ingredients: {
-    ingredientName: string;
-    quantity: number;
-    unit: string;
-    isOptional?: boolean;
-  }[];
-}
\ No newline at end of file
+export interface ProfileRecipe extends RecipeSummary {
+  ingredients: string[];
+}
@@ -1,8 +1,6 @@
-import { Recipe } from './recipe';
-import { RecipeImage } from './recipe-image';
+import { RecipeSummary } from './recipe-summary';
 
 export interface RecipesResponse {
-  content: Recipe[];
-  images: RecipeImage[];
+  content: RecipeSummary[];
   totalPages: number;
 }
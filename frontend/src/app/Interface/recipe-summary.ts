@@ -0,0 +1,12 @@
+export interface RecipeSummary {
+  id: number;
+  recipeName: string;
+  category: string;
+  difficulty: number;
+  prepareTime: number;
+  servings: number;
+  language: string;
+  avgRating: number | null;
+  imageUrl: string | null;
+  ingredients?: string[];
+}
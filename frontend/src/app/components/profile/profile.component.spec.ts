@@ -54,43 +54,31 @@ describe('ProfileComponent', () => {
 
   const mockUserRecipes = [
     {
-      title: 'Test Recipe',
+      id: 3,
+      recipeName: 'Test Recipe',
       category: 'BREAKFAST',
       difficulty: 1,
       servings: 2,
       prepareTime: 25,
-      ingredients: [
-        {
-          ingredientName: 'Tomato',
-          quantity: 100,
-          unit: 'g',
-        },
-      ],
-      steps: [{ content: 'Fill the pot with water' }],
-      isPublic: true,
       language: 'en',
-      images: null,
+      avgRating: null,
+      imageUrl: null,
+      ingredients: ['Tomato'],
     },
   ];
 
   const mockUserFavRecipes = [
     {
-      title: 'Shakshuka',
+      id: 4,
+      recipeName: 'Shakshuka',
       category: 'BREAKFAST',
       difficulty: 1,
       servings: 2,
       prepareTime: 25,
-      ingredients: [
-        {
-          ingredientName: 'Tomato',
-          quantity: 2,
-          unit: 'pcs',
-        },
-      ],
-      steps: [{ content: 'Cut the tomatoes into cubes' }],
-      isPublic: true,
       language: 'en',
-      images: null,
+      avgRating: null,
+      imageUrl: null,
+      ingredients: ['Tomato'],
     },
   ];
 
@@ -104,11 +92,8 @@ describe('ProfileComponent', () => {
       servings: 2,
       language: 'english',
       avgRating: 4.5,
-      ingredients: [{ ingredientName: 'Flour', quantity: 200, unit: 'g' }],
-      imageUrl: [
-        { imageUrl: 'https://images.com/test-image1.jpg', publicId: '1' },
-      ],
-      ratings: [{ ratingId: 1, value: 5 }],
+      imageUrl: 'https://images.com/test-image1.jpg',
+      ingredients: ['Flour'],
     },
     {
       id: 2,
@@ -119,11 +104,8 @@ describe('ProfileComponent', () => {
       servings: 4,
       language: 'polish',
       avgRating: 4.3,
-      ingredients: [{ ingredientName: 'Pasta', quantity: 300, unit: 'g' }],
-      imageUrl: [
-        { imageUrl: 'https://images.com/test-image2.jpg', publicId: '2' },
-      ],
-      ratings: [{ ratingId: 2, value: 4 }],
+      imageUrl: 'https://images.com/test-image2.jpg',
+      ingredients: ['Pasta'],
     },
   ];
 
@@ -370,7 +370,7 @@ export class ProfileComponent implements OnInit, OnDestroy {
 
       const allIngredients = recipesToProcess
         .flatMap(
-          (recipe) => recipe.ingredients?.map((ing) => ing.ingredientName) || []
+          (recipe) => recipe.ingredients || []
         )
         .filter((ing) => ing && ing.trim() !== '');
 
@@ -391,7 +391,7 @@ export class ProfileComponent implements OnInit, OnDestroy {
 
       const allIngredients = recipesToProcess
         .flatMap(
-          (recipe) => recipe.ingredients?.map((ing) => ing.ingredientName) || []
+          (recipe) => recipe.ingredients || []
         )
         .filter((ing) => ing && ing.trim() !== '');
 
@@ -483,7 +483,7 @@ export class ProfileComponent implements OnInit, OnDestroy {
       filtered = filtered.filter((recipe) =>
         this.filters.ingredients!.every((filterIngredient) =>
           recipe.ingredients?.some((recipeIngredient) =>
-            recipeIngredient.ingredientName
+            recipeIngredient
               .toLowerCase()
               .includes(filterIngredient.toLowerCase())
           )
@@ -9,101 +9,52 @@ describe('RecipeCardComponent', () => {
   let fixture: ComponentFixture<RecipeCardComponent>;
   const mockRecipe = {
     id: 1,
-    recipeId: 1,
     recipeName: 'Test Recipe',
     difficulty: 1,
     servings: 4,
     prepareTime: 30,
     category: 'breakfast',
-    images: [{ imageUrl: 'https://images.com/test-image.jpg', publicId: '1' }],
-    ratings: [
-      { ratingId: 1, value: 4 },
-      { ratingId: 2, value: 5 },
-    ],
-    isPublic: true,
-    steps: [{ content: 'Step1' }],
-    ingredients: [
-      {
-        ingredientName: 'Flour',
-        quantity: 500,
-        unit: 'g',
-        isOptional: false,
-      },
-    ],
     language: 'pl',
+    avgRating: 4.5,
+    imageUrl: 'https://images.com/test-image.jpg',
   };
 
   const mockProfileRecipe = {
     id: 2,
-    recipeId: 2,
     recipeName: 'Test Recipe',
     difficulty: 1,
     servings: 4,
     prepareTime: 30,
     category: 'breakfast',
-    imageUrl: [
-      { imageUrl: 'https://images.com/profile-image.jpg', publicId: '2' },
-    ],
-    isPublic: true,
-    steps: [{ content: 'Step1' }],
-    ingredients: [
-      {
-        ingredientName: 'Flour',
-        quantity: 500,
-        unit: 'g',
-        isOptional: false,
-      },
-    ],
     language: 'pl',
     avgRating: 4.5,
-    ratings: [],
+    imageUrl: 'https://images.com/profile-image.jpg',
+    ingredients: ['Flour'],
   };
 
   const mockRecipeWithoutImage = {
     id: 1,
-    recipeId: 1,
     recipeName: 'Test Recipe',
     difficulty: 1,
     servings: 4,
     prepareTime: 30,
     category: 'breakfast',
-    images: [],
-    ratings: [{ ratingId: 1, value: 4.89 }],
-    isPublic: true,
-    steps: [{ content: 'Step1' }],
-    ingredients: [
-      {
-        ingredientName: 'Flour',
-        quantity: 500,
-        unit: 'g',
-        isOptional: false,
-      },
-    ],
     language: 'pl',
+    avgRating: 4.89,
+    imageUrl: null,
   };
 
   const mockProfileRecipeWithoutImage = {
     id: 2,
-    recipeId: 2,
     recipeName: 'Test Recipe',
     difficulty: 1,
     servings: 4,
     prepareTime: 30,
     category: 'breakfast',
-    imageUrl: [],
-    isPublic: true,
-    steps: [{ content: 'Step1' }],
-    ingredients: [
-      {
-        ingredientName: 'Flour',
-        quantity: 500,
-        unit: 'g',
-        isOptional: false,
-      },
-    ],
     language: 'pl',
-    avgRating: 4.5,
-    ratings: [],
+    avgRating: null,
+    imageUrl: null,
+    ingredients: ['Flour'],
   };
 
   beforeEach(async () => {
@@ -122,7 +73,7 @@ describe('RecipeCardComponent', () => {
     expect(component).toBeTruthy();
   });
 
-  it('should return Recipe image when recipe has images', () => {
+  it('should return Recipe image when recipe has an image', () => {
     component.recipe = mockRecipe;
     const imageUrl = component.getRecipeImage();
 
@@ -136,7 +87,7 @@ describe('RecipeCardComponent', () => {
     expect(imageUrl).toBe('https://images.com/profile-image.jpg');
   });
 
-  it('should return default image when Recipe has no images', () => {
+  it('should return default image when Recipe has no image', () => {
     component.recipe = mockRecipeWithoutImage;
     const imageUrl = component.getRecipeImage();
 
@@ -150,24 +101,25 @@ describe('RecipeCardComponent', () => {
     expect(imageUrl).toBe('images/Cibaria.png');
   });
 
-  it('should calculate correct average rating', () => {
-    const avgRating = component.getAverageRating(mockRecipe.ratings);
+  it('should show the average rating', () => {
+    const avgRating = component.getAverageRating(mockRecipe.avgRating);
     expect(avgRating).toBe('4.5');
   });
 
-  it('should return "0.0" for empty ratings array', () => {
-    const avgRating = component.getAverageRating(mockProfileRecipe.ratings);
+  it('should return "0.0" for a recipe without ratings', () => {
+    const avgRating = component.getAverageRating(
+      mockProfileRecipeWithoutImage.avgRating
+    );
     expect(avgRating).toBe('0.0');
   });
 
-  it('should return "0.0" for null/undefined ratings', () => {
-    expect(component.getAverageRating(null as any)).toBe('0.0');
-    expect(component.getAverageRating(undefined as any)).toBe('0.0');
+  it('should return "0.0" for undefined rating', () => {
+    expect(component.getAverageRating(undefined)).toBe('0.0');
   });
 
   it('should format rating to 1 decimal place', () => {
     const avgRating = component.getAverageRating(
-      mockRecipeWithoutImage.ratings
+      mockRecipeWithoutImage.avgRating
     );
     expect(avgRating).toBe('4.9');
   });
@@ -1,11 +1,7 @@
 import { Component, Input } from '@angular/core';
 import { RouterLink } from '@angular/router';
 import { TranslateModule } from '@ngx-translate/core';
-import { Recipe } from '../../Interface/recipe';
-import { ProfileRecipe } from '../../Interface/profile-recipe';
-import { Rating } from '../../Interface/rating';
-
-type RecipeCardData = Recipe | ProfileRecipe;
+import { RecipeSummary } from '../../Interface/recipe-summary';
 
 @Component({
   selector: 'app-recipe-card',
@@ -15,24 +11,14 @@ type RecipeCardData = Recipe | ProfileRecipe;
   styleUrl: './recipe-card.component.css',
 })
 export class RecipeCardComponent {
-  @Input() recipe!: RecipeCardData;
+  @Input() recipe!: RecipeSummary;
 
   getRecipeImage(): string {
-    if ('images' in this.recipe) {
-      return this.recipe.images?.[0]?.imageUrl || 'images/Cibaria.png';
-    } else {
-      return this.recipe.imageUrl?.[0]?.imageUrl || 'images/Cibaria.png';
-    }
+    return this.recipe.imageUrl || 'images/Cibaria.png';
   }
 
-  getAverageRating(ratings: Rating[]): string {
-    if (!ratings || ratings.length === 0) {
-      return '0.0';
-    }
-
-    const totalRating = ratings.reduce((sum, rating) => sum + rating.value, 0);
-    const avgRating = totalRating / ratings.length;
-    return avgRating.toFixed(1);
+  getAverageRating(avgRating: number | null | undefined): string {
+    return (avgRating ?? 0).toFixed(1);
   }
 
   getDifficulty(difficulty: number): string {
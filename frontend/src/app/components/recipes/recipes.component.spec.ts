@@ -43,7 +43,6 @@ describe('RecipesComponent', () => {
     );
     const defaultResponse = {
       content: [],
-      images: [],
       totalPages: 1,
     };
     filterServiceMock.loadRecipes.and.returnValue(of(defaultResponse));
@@ -94,55 +93,29 @@ describe('RecipesComponent', () => {
       content: [
         {
           id: 1,
-          recipeId: 1,
           recipeName: 'Test Recipe 1',
           category: 'Main Course',
           difficulty: 2,
           prepareTime: 30,
           servings: 4,
-          isPublic: true,
           language: 'en',
-          ingredients: [
-            { ingredientName: 'Tomato', quantity: 2, unit: 'pieces' },
-          ],
-          steps: [{ content: 'Chop tomatoes' }],
-          images: [],
-          ratings: [{ ratingId: 1, value: 5 }],
+          avgRating: 5,
+          imageUrl: null,
+          ingredients: ['Tomato'],
         },
         {
           id: 2,
-          recipeId: 2,
           recipeName: 'Test Recipe 2',
           category: 'Dessert',
           difficulty: 3,
           prepareTime: 45,
           servings: 2,
-          isPublic: true,
           language: 'en',
-          ingredients: [
-            { ingredientName: 'Sugar', quantity: 100, unit: 'grams' },
-          ],
-          steps: [{ content: 'Mix sugar' }],
-          images: [],
-          ratings: [],
-        },
-        {
-          id: 3,
-          recipeId: 3,
-          recipeName: 'Private Recipe',
-          category: 'Snack',
-          difficulty: 1,
-          prepareTime: 15,
-          servings: 6,
-          isPublic: false,
-          language: 'en',
-          ingredients: [],
-          steps: [{ content: 'Toast bread' }],
-          images: [],
-          ratings: [],
+          avgRating: null,
+          imageUrl: 'https://example.com/cake.png',
+          ingredients: ['Sugar'],
         },
       ],
-      images: [],
       totalPages: 3,
     };
 
@@ -151,7 +124,7 @@ describe('RecipesComponent', () => {
     component.loadRecipes();
     expect(component.recipesArray.length).toBe(2);
     expect(component.totalPages).toBe(3);
-    expect(component.recipesArray[0].isPublic).toBe(true);
+    expect(component.recipesArray[0].avgRating).toBe(5);
   });
 
   it('should call loadRecipes when calling onFiltersChange', () => {
@@ -175,23 +148,17 @@ describe('RecipesComponent', () => {
       content: [
         {
           id: 1,
-          recipeId: 1,
           recipeName: 'Test Recipe 1',
           category: 'Main Course',
           difficulty: 2,
           prepareTime: 30,
           servings: 4,
-          isPublic: true,
           language: 'en',
-          ingredients: [
-            { ingredientName: 'Tomato', quantity: 2, unit: 'pieces' },
-          ],
-          steps: [{ content: 'Chop tomatoes' }],
-          images: [],
-          ratings: [{ ratingId: 1, value: 5 }],
+          avgRating: 5,
+          imageUrl: null,
+          ingredients: ['Tomato'],
         },
       ],
-      images: [],
       totalPages: 3,
     };
     filterServiceMock.loadRecipes.and.returnValue(of(mockResponse));
@@ -205,54 +172,39 @@ describe('RecipesComponent', () => {
     expect(filterServiceMock.loadRecipes).toHaveBeenCalled();
   });
 
-  it('should filter out private recipes and show only public ones', () => {
+  it('should show the recipes in the order the server returned them', () => {
     const mockResponse = {
       content: [
         {
-          id: 1,
-          recipeId: 1,
-          recipeName: 'Test Recipe 1',
-          category: 'breakfast',
+          id: 2,
+          recipeName: 'Test Recipe 2',
+          category: 'dinner',
           difficulty: 2,
           prepareTime: 30,
           servings: 4,
-          isPublic: true,
-          language: 'en',
-          ingredients: [{ ingredientName: 'Tomato', quantity: 2, unit: 'pcs' }],
-          steps: [{ content: 'Chop tomatoes' }],
-          images: [],
-          ratings: [{ ratingId: 1, value: 5 }],
+          language: 'pl',
+          avgRating: 4.5,
+          imageUrl: null,
         },
         {
-          id: 2,
-          recipeId: 2,
-          recipeName: 'Test Recipe 2',
-          category: 'dinner',
+          id: 1,
+          recipeName: 'Test Recipe 1',
+          category: 'breakfast',
           difficulty: 2,
           prepareTime: 30,
           servings: 4,
-          isPublic: false,
-          language: 'pl',
-          ingredients: [{ ingredientName: 'Tomato', quantity: 2, unit: 'pcs' }],
-          steps: [{ content: 'Chop tomatoes' }],
-          images: [],
-          ratings: [{ ratingId: 1, value: 5 }],
+          language: 'en',
+          avgRating: null,
+          imageUrl: null,
         },
       ],
-      images: [],
       totalPages: 3,
     };
 
     filterServiceMock.loadRecipes.and.returnValue(of(mockResponse));
 
     component.loadRecipes();
-    expect(component.recipesArray.length).toBe(1);
-    expect(component.recipesArray[0].isPublic).toBe(true);
-    expect(
-      component.recipesArray.some(
-        (recipe) => recipe.recipeName === 'Test Recipe 2'
-      )
-    ).toBe(false);
+    expect(component.recipesArray.map((recipe) => recipe.id)).toEqual([2, 1]);
   });
 
   it('should set isFiltering to true when screen width <=1350px', () => {
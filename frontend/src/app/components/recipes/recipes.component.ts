@@ -8,7 +8,7 @@ import { filter, Subject, takeUntil } from 'rxjs';
 import { NotificationService } from '../../services/notification.service';
 import { RecipeFiltersComponent } from '../recipe-filters/recipe-filters.component';
 import { FilterService } from '../../services/filter.service';
-import { Recipe } from '../../Interface/recipe';
+import { RecipeSummary } from '../../Interface/recipe-summary';
 import { RecipeCardComponent } from '../recipe-card/recipe-card.component';
 
 @Component({
@@ -20,7 +20,7 @@ import { RecipeCardComponent } from '../recipe-card/recipe-card.component';
 })
 export class RecipesComponent implements OnInit, OnDestroy {
   private destroy$ = new Subject<void>();
-  recipesArray: Recipe[] = [];
+  recipesArray: RecipeSummary[] = [];
   totalPages: number = 1;
   currentPage: number = 1;
   isFiltering: boolean = false;
@@ -71,9 +71,8 @@ export class RecipesComponent implements OnInit, OnDestroy {
       .subscribe({
         next: (response) => {
           if (response && Array.isArray(response.content)) {
-            this.recipesArray = response.content.filter(
-              (recipe) => recipe.isPublic === true
-            );
+            // the listing only returns public recipes unless asked otherwise
+            this.recipesArray = response.content;
             this.totalPages = response.totalPages;
           } else {
             this.notificationService.error(
@@ -90,10 +90,7 @@ export class FilterService {
             }
 
             const allIngredients = filteredRecipes
-              .flatMap(
-                (recipe) =>
-                  recipe.ingredients?.map((ing) => ing.ingredientName) || []
-              )
+              .flatMap((recipe) => recipe.ingredients || [])
               .filter((ing) => ing && ing.trim() !== '');
 
             const uniqueIngredients = Array.from(
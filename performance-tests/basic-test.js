@@ -1,6 +1,8 @@
 import http from "k6/http";
 import { check, sleep } from "k6";
 
+// every iteration registers and logs in from the same address, start the backend with RATE_LIMIT_ENABLED=false
+
 export const options = {
   // vus: 5, // virtual users
   // duration: "30s",